@@ -11,8 +11,10 @@ import android.widget.ImageView;
 import net.alexblass.chess.base.R;
 import net.alexblass.chess.constant.Constants;
 import net.alexblass.chess.model.GameBoard;
+import net.alexblass.chess.model.bitboard.Bitboards;
 import net.alexblass.chess.model.piece.AbstractPiece;
 import net.alexblass.chess.util.DisplaySizeUtil;
+import net.alexblass.chess.util.PieceImageUtil;
 
 /**
  * An adapter to correctly display the game tiles on the chess board.
@@ -23,6 +25,7 @@ public class ChessBoardAdapter extends ArrayAdapter {
     private GameBoard mGameBoard;
     private int mChessSquareSizeInDp;
     private int mSelectedPieceIndex;
+    private long mHangingPieces;
 
     public ChessBoardAdapter(Context context, GameBoard gameBoard) {
         super(context, R.layout.item_chess_board_square, gameBoard.getPiecePlacementArray());
@@ -30,6 +33,7 @@ public class ChessBoardAdapter extends ArrayAdapter {
         mGameBoard = gameBoard;
         mChessSquareSizeInDp = Constants.CHESS_SQUARE_SIZE_UNSPECIFIED;
         mSelectedPieceIndex = Constants.NO_PIECE_SELECTED;
+        mHangingPieces = gameBoard.getHangingPieces();
     }
 
     public ChessBoardAdapter(Context context, GameBoard gameBoard, int chessSquareSizeInDp) {
@@ -38,6 +42,7 @@ public class ChessBoardAdapter extends ArrayAdapter {
         mGameBoard = gameBoard;
         mChessSquareSizeInDp = chessSquareSizeInDp;
         mSelectedPieceIndex = Constants.NO_PIECE_SELECTED;
+        mHangingPieces = gameBoard.getHangingPieces();
     }
 
     public AbstractPiece getItem(int row, int col) {
@@ -70,7 +75,8 @@ public class ChessBoardAdapter extends ArrayAdapter {
             viewHolder = (ChessSquareViewHolder) gameBoardSquare.getTag();
         }
 
-        viewHolder.setSquareColor(mContext, position, mSelectedPieceIndex);
+        boolean isHanging = (mHangingPieces & Bitboards.bit(position)) != 0;
+        viewHolder.setSquareColor(mContext, position, mSelectedPieceIndex, isHanging);
 
         if (mChessSquareSizeInDp == Constants.CHESS_SQUARE_SIZE_UNSPECIFIED) {
             viewHolder.setSquareDimens(mContext);
@@ -78,12 +84,21 @@ public class ChessBoardAdapter extends ArrayAdapter {
             viewHolder.setSquareDimens(mContext, mChessSquareSizeInDp);
         }
 
-        int resId = (piece != null) ? piece.getImageResId() : 0;
+        int resId = (piece != null) ? PieceImageUtil.getImageResId(piece) : 0;
         viewHolder.chessSquareImageView.setImageResource(resId);
 
         return gameBoardSquare;
     }
 
+    /**
+     * Works out the hanging pieces once per change rather than once per square.
+     */
+    @Override
+    public void notifyDataSetChanged() {
+        mHangingPieces = mGameBoard.getHangingPieces();
+        super.notifyDataSetChanged();
+    }
+
     public void toggleSelectPiece(int position) {
         mSelectedPieceIndex = mSelectedPieceIndex == Constants.NO_PIECE_SELECTED ?
                 position : Constants.NO_PIECE_SELECTED;
@@ -95,6 +110,11 @@ public class ChessBoardAdapter extends ArrayAdapter {
         notifyDataSetChanged();
     }
 
+    public void applyMove(int move) {
+        mGameBoard.applyMove(move);
+        notifyDataSetChanged();
+    }
+
     public GameBoard getGameBoard() {
         return mGameBoard;
     }
@@ -109,22 +129,22 @@ public class ChessBoardAdapter extends ArrayAdapter {
 
     // public static methods //////////////////////////////////////////////////////////////////////
     public static int convertPositionToRow(int position) {
-        return position / Constants.BOARD_LENGTH;
+        return Bitboards.rowOf(position);
     }
 
     public static int convertPositionToCol(int position) {
-        return position % Constants.BOARD_LENGTH;
+        return Bitboards.colOf(position);
     }
 
     public static int convertRowColToPosition(int row, int col) {
-        return row * Constants.BOARD_LENGTH + col;
+        return Bitboards.square(row, col);
     }
 
     // Viewholder /////////////////////////////////////////////////////////////////////////////////
     static class ChessSquareViewHolder {
         ImageView chessSquareImageView;
 
-        private void setSquareColor(Context context, int position, int selectedPosition){
+        private void setSquareColor(Context context, int position, int selectedPosition, boolean isHanging){
             int row = convertPositionToRow(position);
             int col = convertPositionToCol(position);
             int colorId;
@@ -140,6 +160,9 @@ public class ChessBoardAdapter extends ArrayAdapter {
             } else {
                 colorId = col % 2 == 0 ? R.color.color_black : R.color.color_white;
             }
+            if (isHanging) {
+                colorId = R.color.color_hanging;
+            }
             if (selectedPosition == position) {
                 colorId = R.color.color_selected;
             }
@@ -0,0 +1,23 @@
+package net.alexblass.chess.bus;
+
+import net.alexblass.chess.ChessApplication;
+import net.alexblass.chess.bus.event.CastlingEvent;
+import net.alexblass.chess.bus.event.PawnEligibleForPromotionEvent;
+import net.alexblass.chess.model.BoardEventListener;
+import net.alexblass.chess.model.piece.AbstractPiece;
+
+/**
+ * Forwards the GameBoard's events onto the app's event bus.
+ */
+public class BusBoardEventListener implements BoardEventListener {
+
+    @Override
+    public void onCastling() {
+        ChessApplication.bus().post(new CastlingEvent());
+    }
+
+    @Override
+    public void onPawnEligibleForPromotion(AbstractPiece pawn) {
+        ChessApplication.bus().post(new PawnEligibleForPromotionEvent(pawn));
+    }
+}
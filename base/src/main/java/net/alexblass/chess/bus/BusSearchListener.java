@@ -0,0 +1,17 @@
+package net.alexblass.chess.bus;
+
+import net.alexblass.chess.ChessApplication;
+import net.alexblass.chess.bus.event.SearchProgressEvent;
+import net.alexblass.chess.engine.SearchListener;
+import net.alexblass.chess.engine.SearchResult;
+
+/**
+ * Forwards a search's progress onto the app's event bus, from the searching thread.
+ */
+public class BusSearchListener implements SearchListener {
+
+    @Override
+    public void onIterationComplete(SearchResult result) {
+        ChessApplication.bus().post(new SearchProgressEvent(result));
+    }
+}
@@ -1,19 +1,82 @@
 package net.alexblass.chess.bus;
 
-import io.reactivex.Observable;
-import io.reactivex.subjects.PublishSubject;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.processors.FlowableProcessor;
+import io.reactivex.processors.PublishProcessor;
+import io.reactivex.schedulers.Schedulers;
 
 /**
- * An event bus to broadcast events across the app.
+ * An event bus to broadcast events across the app, with a stream of its own per event type.
+ *
+ * Subscribers only see the type they ask for and may post from any thread. A subscriber that
+ * falls behind either has every event buffered for it, or with latestEvents() only the newest,
+ * so frequent events like search progress can't flood the main thread. Subscriptions last until
+ * they are disposed, which their owner does when its lifecycle ends.
  */
 public final class RxBus {
-    private PublishSubject<Object> mBus = PublishSubject.create();
 
+    private static final Scheduler MAIN_THREAD = Schedulers.from(new Executor() {
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void execute(Runnable command) {
+            mHandler.post(command);
+        }
+    });
+
+    private final ConcurrentMap<Class<?>, FlowableProcessor<Object>> mProcessors = new ConcurrentHashMap<>();
+
+    /**
+     * Delivers the event to the subscribers of its type, on this thread unless they observe on
+     * another scheduler.
+     */
     public void post(Object event) {
-        mBus.onNext(event);
+        getProcessor(event.getClass()).onNext(event);
+    }
+
+    /**
+     * @return every event of the type, delivered on the posting thread.
+     */
+    public <T> Flowable<T> events(Class<T> eventType) {
+        return getProcessor(eventType).onBackpressureBuffer().cast(eventType);
+    }
+
+    /**
+     * @return the events of the type on the scheduler, skipping all but the newest while the
+     * subscriber is still busy with the last one.
+     */
+    public <T> Flowable<T> latestEvents(Class<T> eventType, Scheduler scheduler) {
+        return getProcessor(eventType).onBackpressureLatest()
+                .observeOn(scheduler, false, 1)
+                .cast(eventType);
+    }
+
+    /**
+     * @return a scheduler running on the main thread, for subscribers that update views.
+     */
+    public static Scheduler mainThread() {
+        return MAIN_THREAD;
     }
 
-    public Observable<Object> toObservable() {
-        return mBus;
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private FlowableProcessor<Object> getProcessor(Class<?> eventType) {
+        FlowableProcessor<Object> processor = mProcessors.get(eventType);
+        if (processor == null) {
+            // Serialized so events posted on different threads at once don't break the stream
+            FlowableProcessor<Object> created = PublishProcessor.create().toSerialized();
+            processor = mProcessors.putIfAbsent(eventType, created);
+            if (processor == null) {
+                processor = created;
+            }
+        }
+        return processor;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,19 @@
+package net.alexblass.chess.bus.event;
+
+import net.alexblass.chess.engine.SearchResult;
+
+/**
+ * An event that fires each time the computer's search completes another depth.
+ * Used to show the depth, speed and principal variation while the computer thinks.
+ */
+public class SearchProgressEvent {
+    private SearchResult mResult;
+
+    public SearchProgressEvent(SearchResult result) {
+        mResult = result;
+    }
+
+    public SearchResult getResult() {
+        return mResult;
+    }
+}
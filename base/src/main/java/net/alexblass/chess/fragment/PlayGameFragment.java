@@ -1,6 +1,5 @@
 package net.alexblass.chess.fragment;
 
-import android.annotation.SuppressLint;
 import android.os.Bundle;
 import android.support.v4.app.Fragment;
 import android.view.LayoutInflater;
@@ -8,20 +7,27 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.AdapterView;
 import android.widget.GridView;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import net.alexblass.chess.ChessApplication;
 import net.alexblass.chess.adapter.ChessBoardAdapter;
 import net.alexblass.chess.base.R;
+import net.alexblass.chess.bus.BusBoardEventListener;
+import net.alexblass.chess.bus.RxBus;
 import net.alexblass.chess.bus.event.CastlingEvent;
 import net.alexblass.chess.bus.event.PawnEligibleForPromotionEvent;
 import net.alexblass.chess.bus.event.PawnPromotedEvent;
+import net.alexblass.chess.bus.event.SearchProgressEvent;
+import net.alexblass.chess.engine.SearchResult;
 import net.alexblass.chess.fragment.presenter.PlayGameFragmentPresenter;
 import net.alexblass.chess.model.GameBoard;
+import net.alexblass.chess.model.bitboard.Move;
 import net.alexblass.chess.model.piece.AbstractPiece;
 import net.alexblass.chess.util.DialogUtil;
 
 import butterknife.ButterKnife;
+import io.reactivex.disposables.CompositeDisposable;
 import io.reactivex.functions.Consumer;
 
 /**
@@ -31,9 +37,12 @@ import io.reactivex.functions.Consumer;
 public class PlayGameFragment extends Fragment {
 
     private GridView mGridView;
+    private TextView mSearchProgressTextView;
 
     private ChessBoardAdapter mChessBoardAdapter;
     private PlayGameFragmentPresenter mPresenter;
+    // Disposed with the view, so a recreated fragment doesn't leave its old subscriptions behind
+    private final CompositeDisposable mEventSubscriptions = new CompositeDisposable();
 
     public PlayGameFragment() {
         // Required empty public constructor
@@ -45,14 +54,24 @@ public class PlayGameFragment extends Fragment {
         ButterKnife.bind(this, view);
 
         mGridView = view.findViewById(R.id.chessBoardGridView);
+        mSearchProgressTextView = view.findViewById(R.id.searchProgressTextView);
         mPresenter = new PlayGameFragmentPresenter(this, getActivity());
         initializeChessBoard();
 
         return view;
     }
 
+    @Override
+    public void onDestroyView() {
+        mEventSubscriptions.clear();
+        mPresenter.onDestroy();
+        super.onDestroyView();
+    }
+
     private void initializeChessBoard() {
-        mChessBoardAdapter = new ChessBoardAdapter(getContext(), new GameBoard());
+        GameBoard gameBoard = new GameBoard();
+        gameBoard.setBoardEventListener(new BusBoardEventListener());
+        mChessBoardAdapter = new ChessBoardAdapter(getContext(), gameBoard);
 
         ViewGroup.LayoutParams layoutParams = mGridView.getLayoutParams();
         layoutParams.width = mChessBoardAdapter.getGridViewSizeFromChessSquareSize();
@@ -66,6 +85,7 @@ public class PlayGameFragment extends Fragment {
         });
 
         subscribeToEvents();
+        mPresenter.loadGame(gameBoard);
     }
 
     public void toggleSelectPiece(int position) {
@@ -76,27 +96,62 @@ public class PlayGameFragment extends Fragment {
         mChessBoardAdapter.movePiece(piece, row, col);
     }
 
+    public void applyMove(int move) {
+        mChessBoardAdapter.applyMove(move);
+    }
+
     public void showErrorToast(int stringId) {
         Toast.makeText(getActivity(), stringId, Toast.LENGTH_SHORT).show();
     }
 
-    @SuppressLint("CheckResult")
+    public void showSearchProgress(SearchResult result) {
+        StringBuilder principalVariation = new StringBuilder();
+        for (int move : result.getPrincipalVariation()) {
+            if (principalVariation.length() > 0) {
+                principalVariation.append(' ');
+            }
+            principalVariation.append(Move.toNotation(move));
+        }
+        mSearchProgressTextView.setText(getString(R.string.search_progress, result.getDepth(),
+                result.getNodesPerSecond() / 1000L, principalVariation));
+    }
+
+    /**
+     * Board events are handled on the posting thread right away, since the move that caused
+     * them isn't complete until they are. Search progress is only drawn as often as the main
+     * thread can keep up with.
+     */
     private void subscribeToEvents() {
-        ChessApplication.bus()
-                .toObservable()
-                .subscribe(new Consumer<Object>() {
+        RxBus bus = ChessApplication.bus();
+        mEventSubscriptions.add(bus.events(CastlingEvent.class)
+                .subscribe(new Consumer<CastlingEvent>() {
+                    @Override
+                    public void accept(CastlingEvent event) {
+                        mPresenter.castlingMoveRookPiece(mChessBoardAdapter.getGameBoard());
+                    }
+                }));
+        mEventSubscriptions.add(bus.events(PawnEligibleForPromotionEvent.class)
+                .subscribe(new Consumer<PawnEligibleForPromotionEvent>() {
+                    @Override
+                    public void accept(PawnEligibleForPromotionEvent event) {
+                        DialogUtil.showPawnPromotionDialog(getContext(), event.getPawnToPromote());
+                    }
+                }));
+        mEventSubscriptions.add(bus.events(PawnPromotedEvent.class)
+                .subscribe(new Consumer<PawnPromotedEvent>() {
+                    @Override
+                    public void accept(PawnPromotedEvent event) {
+                        AbstractPiece piece = mPresenter.promotePawn(event.getPawnToPromote());
+                        movePiece(piece, piece.getRow(), piece.getCol());
+                        mPresenter.onPawnPromoted(mChessBoardAdapter.getGameBoard());
+                    }
+                }));
+        mEventSubscriptions.add(bus.latestEvents(SearchProgressEvent.class, RxBus.mainThread())
+                .subscribe(new Consumer<SearchProgressEvent>() {
                     @Override
-                    public void accept(Object event) {
-                        if (event instanceof CastlingEvent) {
-                            mPresenter.castlingMoveRookPiece(mChessBoardAdapter.getGameBoard());
-                        } else if (event instanceof PawnEligibleForPromotionEvent) {
-                            DialogUtil.showPawnPromotionDialog(getContext(),
-                                    ((PawnEligibleForPromotionEvent) event).getPawnToPromote());
-                        } else if (event instanceof PawnPromotedEvent) {
-                            AbstractPiece piece = mPresenter.promotePawn(((PawnPromotedEvent) event).getPawnToPromote());
-                            movePiece(piece, piece.getRow(), piece.getCol());
-                        }
+                    public void accept(SearchProgressEvent event) {
+                        showSearchProgress(event.getResult());
                     }
-                });
+                }));
     }
 }
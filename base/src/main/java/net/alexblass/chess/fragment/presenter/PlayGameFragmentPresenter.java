@@ -1,23 +1,59 @@
 package net.alexblass.chess.fragment.presenter;
 
 import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 import android.util.Pair;
 
+import com.google.firebase.firestore.FirebaseFirestore;
+
 import net.alexblass.chess.adapter.ChessBoardAdapter;
 import net.alexblass.chess.base.R;
+import net.alexblass.chess.bus.BusSearchListener;
 import net.alexblass.chess.constant.Constants;
+import net.alexblass.chess.engine.OpeningBook;
+import net.alexblass.chess.engine.Search;
+import net.alexblass.chess.engine.SearchResult;
+import net.alexblass.chess.engine.Tablebase;
+import net.alexblass.chess.engine.TranspositionTable;
 import net.alexblass.chess.fragment.PlayGameFragment;
 import net.alexblass.chess.model.Game;
 import net.alexblass.chess.model.GameBoard;
+import net.alexblass.chess.model.GameState;
 import net.alexblass.chess.model.PieceColor;
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.bitboard.Bitboards;
+import net.alexblass.chess.model.bitboard.Move;
+import net.alexblass.chess.model.bitboard.MoveGenerator;
 import net.alexblass.chess.model.piece.AbstractPiece;
 import net.alexblass.chess.model.piece.BishopPiece;
 import net.alexblass.chess.model.piece.KingPiece;
 import net.alexblass.chess.model.piece.KnightPiece;
+import net.alexblass.chess.model.piece.PawnPiece;
 import net.alexblass.chess.model.piece.QueenPiece;
 import net.alexblass.chess.model.piece.RookPiece;
+import net.alexblass.chess.persistence.FirestoreMoveLogStore;
+import net.alexblass.chess.persistence.GameRecorder;
+import net.alexblass.chess.persistence.MoveLogStore;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class PlayGameFragmentPresenter {
+    private static final String TAG = PlayGameFragmentPresenter.class.getSimpleName();
+
     private Context mContext;
     private PlayGameFragment mView;
 
@@ -25,14 +61,88 @@ public class PlayGameFragmentPresenter {
     private Pair<Integer, Integer> mFirstClickCoordinates;
     private Pair<Integer, Integer> mSecondClickCoordinates;
     private AbstractPiece mSelectedPiece;
+    // The squares of the player's last move, kept until a promoting pawn has its piece
+    private int mPlayerMoveFrom;
+    private int mPlayerMoveTo;
+    private final int[] mLegalMoves = new int[MoveGenerator.MAX_MOVES];
+    // The game as played, with the undo history and halfmove clock that the GameBoard's own
+    // position lacks, so searches see repetitions and the fifty-move rule. Null until loaded.
+    private BitboardPosition mGamePosition;
+
+    private final MoveLogStore mMoveLogStore;
+    private final SharedPreferences mPreferences;
+    // Null until the game has been loaded
+    private GameRecorder mGameRecorder;
+    // Set once a move can't be identified, since the log could no longer be replayed past it
+    private boolean mIsRecordingStopped;
+    private boolean mIsDestroyed;
+
+    private final ExecutorService mEngineExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    // Kept for the whole game so each search starts with what the previous ones learned
+    private final TranspositionTable mTranspositionTable =
+            new TranspositionTable(Search.DEFAULT_TRANSPOSITION_TABLE_SIZE_MB);
+    private Search mActiveSearch;
+    // Null when the app ships without a book
+    private final OpeningBook mOpeningBook;
+    private final Random mRandom = new Random();
+    private final Tablebase mTablebase;
+    private int mShownTablebaseResult = Tablebase.UNKNOWN;
+
+    // While the player thinks, the engine searches the position after the reply it expects
+    private boolean mIsPonderingEnabled = true;
+    private Search mPonderSearch;
+    private long mPonderKey;
+    private SearchResult mPonderResult;
+    private boolean mIsPonderHit;
 
     public PlayGameFragmentPresenter(PlayGameFragment view, Context context) {
+        this(view, context, new FirestoreMoveLogStore(FirebaseFirestore.getInstance()));
+    }
+
+    public PlayGameFragmentPresenter(PlayGameFragment view, Context context, MoveLogStore moveLogStore) {
         mContext = context;
         mView = view;
-        mGame = new Game(1);
+        mMoveLogStore = moveLogStore;
+        mPreferences = context.getSharedPreferences(Constants.GAME_PREFERENCES, Context.MODE_PRIVATE);
+        mOpeningBook = openOpeningBook(context);
+        mTablebase = openTablebase(context);
+    }
+
+    /**
+     * Resumes the unfinished game of the last session by replaying its moves, or starts a new
+     * game when there is none.
+     */
+    public void loadGame(final GameBoard gameBoard) {
+        final String gameId = mPreferences.getString(Constants.PREFERENCE_CURRENT_GAME_ID, null);
+        if (gameId == null) {
+            startNewGame(gameBoard);
+            return;
+        }
+
+        mMoveLogStore.loadMoves(gameId, new MoveLogStore.LoadCallback() {
+            @Override
+            public void onMovesLoaded(int[] moves) {
+                if (!mIsDestroyed) {
+                    resumeGame(gameBoard, gameId, moves);
+                }
+            }
+
+            @Override
+            public void onLoadFailed(Exception e) {
+                if (!mIsDestroyed) {
+                    startNewGame(gameBoard);
+                }
+            }
+        });
     }
 
     public void handleClick(GameBoard gameBoard, int position) {
+        // Taps are ignored while the game loads or the computer is thinking
+        if (mGameRecorder == null || mGame.isComputerTurn()) {
+            return;
+        }
+
         int row = ChessBoardAdapter.convertPositionToRow(position);
         int col = ChessBoardAdapter.convertPositionToCol(position);
 
@@ -55,6 +165,33 @@ public class PlayGameFragmentPresenter {
         mView.movePiece(castlingRook, mSecondClickCoordinates.first, rookCol);
     }
 
+    public void setPonderingEnabled(boolean isPonderingEnabled) {
+        mIsPonderingEnabled = isPonderingEnabled;
+        if (!isPonderingEnabled) {
+            stopPondering();
+        }
+    }
+
+    public void onPawnPromoted(GameBoard gameBoard) {
+        onPlayerMoveComplete(gameBoard);
+    }
+
+    /**
+     * Stops any search in progress so its result is never applied to a destroyed view.
+     */
+    public void onDestroy() {
+        mIsDestroyed = true;
+        if (mGameRecorder != null) {
+            mGameRecorder.flush();
+        }
+        if (mActiveSearch != null) {
+            mActiveSearch.stop();
+            mActiveSearch = null;
+        }
+        stopPondering();
+        mEngineExecutor.shutdownNow();
+    }
+
     public AbstractPiece promotePawn(AbstractPiece pawnToPromote) {
         PieceColor color = pawnToPromote.getColor();
         int row = pawnToPromote.getRow();
@@ -94,16 +231,299 @@ public class PlayGameFragmentPresenter {
             return;
         }
 
-        if (!mSelectedPiece.isValidMove(gameBoard, mSecondClickCoordinates.first, mSecondClickCoordinates.second)) {
+        // Legality is checked first since a valid castling move already moves the rook
+        if (!gameBoard.isLegalMove(mSelectedPiece, mSecondClickCoordinates.first, mSecondClickCoordinates.second)
+                || !mSelectedPiece.isValidMove(gameBoard, mSecondClickCoordinates.first, mSecondClickCoordinates.second)) {
             mView.showErrorToast(R.string.invalid_move_invalid_move);
             return;
         }
 
         if (mSelectedPiece != null) {
+            mPlayerMoveFrom = Bitboards.square(mFirstClickCoordinates.first, mFirstClickCoordinates.second);
+            mPlayerMoveTo = Bitboards.square(mSecondClickCoordinates.first, mSecondClickCoordinates.second);
             mView.movePiece(mSelectedPiece, mSecondClickCoordinates.first, mSecondClickCoordinates.second);
             mView.toggleSelectPiece(position);
             mGame.nextTurn();
+            gameBoard.setActiveTurn(mGame.getActiveTurn());
             resetClicks();
+            showGameState(gameBoard.getGameState());
+
+            // A promoting pawn waits for the player's choice before the computer replies
+            boolean isAwaitingPromotion = mSelectedPiece instanceof PawnPiece
+                    && ((PawnPiece) mSelectedPiece).isPawnEligibleForPromotion();
+            if (!isAwaitingPromotion) {
+                onPlayerMoveComplete(gameBoard);
+            }
+        }
+    }
+
+    private void startNewGame(GameBoard gameBoard) {
+        mGamePosition = new BitboardPosition(gameBoard.getPosition());
+        String gameId = UUID.randomUUID().toString();
+        mPreferences.edit().putString(Constants.PREFERENCE_CURRENT_GAME_ID, gameId).apply();
+        mGame = new Game(gameId, PieceColor.BLACK);
+        mGameRecorder = new GameRecorder(mMoveLogStore, gameId);
+    }
+
+    private void resumeGame(GameBoard gameBoard, String gameId, int[] moves) {
+        mGame = new Game(gameId, PieceColor.BLACK);
+        mGamePosition = new BitboardPosition(gameBoard.getPosition());
+        int moveCount = GameRecorder.replay(moves, mGamePosition);
+        for (int i = 0; i < moveCount; i++) {
+            mView.applyMove(moves[i]);
+            mGame.nextTurn();
+            gameBoard.setActiveTurn(mGame.getActiveTurn());
+        }
+        // A damaged log is continued after the last move that could be replayed
+        mGameRecorder = new GameRecorder(mMoveLogStore, gameId, moveCount, GameRecorder.DEFAULT_BATCH_PLIES);
+        startComputerMoveIfNeeded(gameBoard);
+    }
+
+    /**
+     * Records the player's move, now that the rook of a castling move or the piece a pawn is
+     * promoted to is on the board too, and lets the computer reply.
+     */
+    private void onPlayerMoveComplete(GameBoard gameBoard) {
+        // A promoted pawn is already replaced by the chosen piece on the board
+        int promotionType = Bitboards.typeOf(gameBoard.getPosition().getPieceAt(mPlayerMoveTo));
+        int move = MoveGenerator.findLegalMove(mGamePosition, mPlayerMoveFrom, mPlayerMoveTo, promotionType,
+                mLegalMoves);
+        if (move != Move.NO_MOVE) {
+            recordMove(gameBoard, move);
+        } else {
+            stopRecording(gameBoard);
+        }
+        showTablebaseResultIfChanged(gameBoard);
+        startComputerMoveIfNeeded(gameBoard);
+    }
+
+    private void recordMove(GameBoard gameBoard, int move) {
+        mGamePosition.makeMove(move);
+        if (mIsRecordingStopped) {
+            return;
+        }
+        mGameRecorder.record(move);
+        GameState gameState = gameBoard.getGameState();
+        if (gameState == GameState.CHECKMATE || gameState == GameState.STALEMATE) {
+            // The game is over, so the next session starts a new one
+            mGameRecorder.flush();
+            mPreferences.edit().remove(Constants.PREFERENCE_CURRENT_GAME_ID).apply();
+        }
+    }
+
+    /**
+     * Keeps the moves logged so far when the board made a move the engine's rules don't allow,
+     * and stops the log there. The next session starts a new game rather than resuming one that
+     * would replay to another position.
+     */
+    private void stopRecording(GameBoard gameBoard) {
+        Log.e(TAG, "No legal move from " + Move.getSquareName(mPlayerMoveFrom) + " to "
+                + Move.getSquareName(mPlayerMoveTo) + ", game " + mGame.getId() + " is no longer recorded");
+        mIsRecordingStopped = true;
+        mGameRecorder.flush();
+        mPreferences.edit().remove(Constants.PREFERENCE_CURRENT_GAME_ID).apply();
+        // Searches go on from the board as it is, only without the history before it
+        mGamePosition = new BitboardPosition(gameBoard.getPosition());
+    }
+
+    /**
+     * Searches a copy of the position on the engine thread and plays the best move back on the
+     * main thread once the time limit is up. When the player made the move the engine was
+     * pondering on, that search carries on instead.
+     */
+    private void startComputerMoveIfNeeded(final GameBoard gameBoard) {
+        GameState gameState = gameBoard.getGameState();
+        if (!mGame.isComputerTurn() || gameState == GameState.CHECKMATE || gameState == GameState.STALEMATE) {
+            stopPondering();
+            return;
+        }
+
+        int bookMove = mOpeningBook == null ? Move.NO_MOVE
+                : mOpeningBook.chooseMove(mGamePosition, mRandom);
+        if (bookMove != Move.NO_MOVE) {
+            stopPondering();
+            playComputerMove(gameBoard, new SearchResult(new int[] {bookMove}, Search.DRAW_SCORE, 0, 0L, 0L));
+            return;
+        }
+
+        if (mPonderSearch != null && mPonderKey == mGamePosition.getZobristKey()) {
+            onPonderHit(gameBoard);
+            return;
+        }
+        stopPondering();
+
+        final Search search = new Search(new BitboardPosition(mGamePosition), mTranspositionTable);
+        search.setTablebase(mTablebase);
+        search.setSearchListener(new BusSearchListener());
+        mActiveSearch = search;
+        mEngineExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final SearchResult result = search.search(Constants.COMPUTER_MOVE_TIME_MILLIS, Search.MAX_PLY);
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (mActiveSearch == search) {
+                            mActiveSearch = null;
+                            playComputerMove(gameBoard, result);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void playComputerMove(GameBoard gameBoard, SearchResult result) {
+        if (result.getBestMove() == Move.NO_MOVE) {
+            return;
+        }
+
+        mView.applyMove(result.getBestMove());
+        mGame.nextTurn();
+        gameBoard.setActiveTurn(mGame.getActiveTurn());
+        recordMove(gameBoard, result.getBestMove());
+        showGameState(gameBoard.getGameState());
+        showTablebaseResultIfChanged(gameBoard);
+        startPonderingIfEnabled(gameBoard, result.getPonderMove());
+    }
+
+    /**
+     * Searches the position after the expected reply without a time limit until the player
+     * moves. The search shares the transposition table, so even a wrong guess leaves entries
+     * the next search can use.
+     */
+    private void startPonderingIfEnabled(final GameBoard gameBoard, int ponderMove) {
+        GameState gameState = gameBoard.getGameState();
+        if (!mIsPonderingEnabled || ponderMove == Move.NO_MOVE
+                || gameState == GameState.CHECKMATE || gameState == GameState.STALEMATE) {
+            return;
+        }
+
+        BitboardPosition position = new BitboardPosition(mGamePosition);
+        position.makeMove(ponderMove);
+        final Search search = new Search(position, mTranspositionTable);
+        search.setTablebase(mTablebase);
+        mPonderSearch = search;
+        mPonderKey = position.getZobristKey();
+        mPonderResult = null;
+        mIsPonderHit = false;
+        mEngineExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final SearchResult result = search.ponder();
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (mPonderSearch != search) {
+                            return;
+                        }
+                        if (mIsPonderHit) {
+                            clearPondering();
+                            playComputerMove(gameBoard, result);
+                        } else {
+                            // The search ended on its own, for example after finding a mate
+                            mPonderResult = result;
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Gives the pondering search the normal time limit, counted from now, or plays its result
+     * right away when it already finished.
+     */
+    private void onPonderHit(GameBoard gameBoard) {
+        if (mPonderResult != null) {
+            SearchResult result = mPonderResult;
+            clearPondering();
+            playComputerMove(gameBoard, result);
+            return;
+        }
+        mIsPonderHit = true;
+        mPonderSearch.ponderHit(Constants.COMPUTER_MOVE_TIME_MILLIS);
+    }
+
+    /**
+     * Stops pondering without waiting for the search to unwind, its result is then ignored.
+     */
+    private void stopPondering() {
+        if (mPonderSearch != null) {
+            mPonderSearch.stop();
+            clearPondering();
+        }
+    }
+
+    private void clearPondering() {
+        mPonderSearch = null;
+        mPonderResult = null;
+        mIsPonderHit = false;
+    }
+
+    /**
+     * Maps the opening book asset. Mapping reads nothing, so this is cheap on the main thread.
+     */
+    private static OpeningBook openOpeningBook(Context context) {
+        try {
+            AssetFileDescriptor descriptor = context.getAssets().openFd(Constants.OPENING_BOOK_ASSET);
+            FileInputStream input = descriptor.createInputStream();
+            try {
+                return OpeningBook.open(input.getChannel(), descriptor.getStartOffset(), descriptor.getLength());
+            } finally {
+                input.close();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void showGameState(GameState gameState) {
+        switch (gameState) {
+            case CHECK:
+                mView.showErrorToast(R.string.game_state_check);
+                break;
+            case CHECKMATE:
+                mView.showErrorToast(R.string.game_state_checkmate);
+                break;
+            case STALEMATE:
+                mView.showErrorToast(R.string.game_state_stalemate);
+                break;
+        }
+    }
+
+    /**
+     * Tells the player the outcome with best play once the position is in the tablebase, and
+     * again whenever a move changes it.
+     */
+    private void showTablebaseResultIfChanged(GameBoard gameBoard) {
+        GameState gameState = gameBoard.getGameState();
+        if (gameState == GameState.CHECKMATE || gameState == GameState.STALEMATE) {
+            return;
+        }
+
+        BitboardPosition position = mGamePosition;
+        int wdl = mTablebase.probeWdl(position);
+        if (wdl == Tablebase.UNKNOWN) {
+            mShownTablebaseResult = Tablebase.UNKNOWN;
+            return;
+        }
+        // Seen from white, a fifty-move rule draw counts as a draw
+        int result = wdl == Tablebase.WDL_WIN ? 1 : (wdl == Tablebase.WDL_LOSS ? -1 : 0);
+        if (position.getSideToMove() == Bitboards.BLACK) {
+            result = -result;
+        }
+        if (result == mShownTablebaseResult) {
+            return;
+        }
+
+        mShownTablebaseResult = result;
+        if (result > 0) {
+            mView.showErrorToast(R.string.tablebase_result_white_wins);
+        } else if (result < 0) {
+            mView.showErrorToast(R.string.tablebase_result_black_wins);
+        } else {
+            mView.showErrorToast(R.string.tablebase_result_draw);
         }
     }
 
@@ -111,4 +531,27 @@ public class PlayGameFragmentPresenter {
         mFirstClickCoordinates = null;
         mSecondClickCoordinates = null;
     }
+
+    /**
+     * Maps the tablebase files the build generates into the assets, like the opening book.
+     */
+    private static Tablebase openTablebase(Context context) {
+        Map<String, ByteBuffer> files = new HashMap<>();
+        AssetManager assets = context.getAssets();
+        try {
+            for (String name : assets.list(Constants.TABLEBASE_DIRECTORY)) {
+                AssetFileDescriptor descriptor = assets.openFd(Constants.TABLEBASE_DIRECTORY + "/" + name);
+                FileInputStream input = descriptor.createInputStream();
+                try {
+                    files.put(name, input.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                            descriptor.getStartOffset(), descriptor.getLength()));
+                } finally {
+                    input.close();
+                }
+            }
+        } catch (IOException e) {
+            // The files mapped so far are still probed
+        }
+        return new Tablebase(files, Tablebase.DEFAULT_CACHE_BLOCKS);
+    }
 }
@@ -0,0 +1,78 @@
+package net.alexblass.chess.persistence;
+
+import android.support.annotation.NonNull;
+
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Keeps move logs in Firestore, one small document per ply under games/{gameId}/moves.
+ *
+ * Each append is a single WriteBatch, so the moves of a batch are committed together and a move
+ * costs one tiny document write instead of rewriting the board. Document ids are the zero-padded
+ * ply, which also makes writing a ply again replace it. Firestore queues writes made offline and
+ * sends them once it is back online.
+ */
+public class FirestoreMoveLogStore implements MoveLogStore {
+
+    private static final String GAMES_COLLECTION = "games";
+    private static final String MOVES_COLLECTION = "moves";
+    private static final String FIELD_PLY = "ply";
+    private static final String FIELD_MOVE = "move";
+
+    private final FirebaseFirestore mFirestore;
+
+    public FirestoreMoveLogStore(FirebaseFirestore firestore) {
+        mFirestore = firestore;
+    }
+
+    @Override
+    public void appendMoves(String gameId, int firstPly, int[] moves) {
+        CollectionReference moveLog = getMoveLog(gameId);
+        WriteBatch batch = mFirestore.batch();
+        for (int i = 0; i < moves.length; i++) {
+            int ply = firstPly + i;
+            Map<String, Object> record = new HashMap<>();
+            record.put(FIELD_PLY, ply);
+            record.put(FIELD_MOVE, moves[i]);
+            batch.set(moveLog.document(String.format(Locale.US, "%04d", ply)), record);
+        }
+        batch.commit();
+    }
+
+    @Override
+    public void loadMoves(String gameId, final LoadCallback callback) {
+        getMoveLog(gameId).orderBy(FIELD_PLY).get().addOnCompleteListener(new OnCompleteListener<QuerySnapshot>() {
+            @Override
+            public void onComplete(@NonNull Task<QuerySnapshot> task) {
+                if (!task.isSuccessful()) {
+                    callback.onLoadFailed(task.getException());
+                    return;
+                }
+
+                List<DocumentSnapshot> records = task.getResult().getDocuments();
+                int[] moves = new int[records.size()];
+                for (int i = 0; i < moves.length; i++) {
+                    // Firestore hands numbers back as longs
+                    moves[i] = records.get(i).getLong(FIELD_MOVE).intValue();
+                }
+                callback.onMovesLoaded(moves);
+            }
+        });
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private CollectionReference getMoveLog(String gameId) {
+        return mFirestore.collection(GAMES_COLLECTION).document(gameId).collection(MOVES_COLLECTION);
+    }
+}
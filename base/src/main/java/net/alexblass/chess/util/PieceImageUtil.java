@@ -0,0 +1,28 @@
+package net.alexblass.chess.util;
+
+import net.alexblass.chess.base.R;
+import net.alexblass.chess.model.PieceColor;
+import net.alexblass.chess.model.bitboard.Bitboards;
+import net.alexblass.chess.model.piece.AbstractPiece;
+
+public class PieceImageUtil {
+    public static int getImageResId(AbstractPiece piece) {
+        boolean isBlack = piece.getColor().equals(PieceColor.BLACK);
+        switch (piece.getPieceType()) {
+            case Bitboards.PAWN:
+                return isBlack ? R.drawable.ic_piece_modern_pawn_black : R.drawable.ic_piece_modern_pawn_white;
+            case Bitboards.KNIGHT:
+                return isBlack ? R.drawable.ic_piece_modern_knight_black : R.drawable.ic_piece_modern_knight_white;
+            case Bitboards.BISHOP:
+                return isBlack ? R.drawable.ic_piece_modern_bishop_black : R.drawable.ic_piece_modern_bishop_white;
+            case Bitboards.ROOK:
+                return isBlack ? R.drawable.ic_piece_modern_rook_black : R.drawable.ic_piece_modern_rook_white;
+            case Bitboards.QUEEN:
+                return isBlack ? R.drawable.ic_piece_modern_queen_black : R.drawable.ic_piece_modern_queen_white;
+            case Bitboards.KING:
+                return isBlack ? R.drawable.ic_piece_modern_king_black : R.drawable.ic_piece_modern_king_white;
+            default:
+                return 0;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package net.alexblass.chess.benchmark;
+
+import net.alexblass.chess.model.bitboard.Attacks;
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.bitboard.Bitboards;
+import net.alexblass.chess.model.notation.Fen;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the attack lookups that every legality check is built from, summed over all squares.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AttacksBenchmark {
+
+    private BitboardPosition mPosition;
+    private long mOccupancy;
+
+    @Setup
+    public void setUp() {
+        mPosition = new BitboardPosition();
+        Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", mPosition);
+        mOccupancy = mPosition.getOccupancy();
+    }
+
+    @Benchmark
+    public long rookAttacks() {
+        long attacks = 0L;
+        for (int square = 0; square < Bitboards.SQUARES; square++) {
+            attacks ^= Attacks.rookAttacks(square, mOccupancy);
+        }
+        return attacks;
+    }
+
+    @Benchmark
+    public long bishopAttacks() {
+        long attacks = 0L;
+        for (int square = 0; square < Bitboards.SQUARES; square++) {
+            attacks ^= Attacks.bishopAttacks(square, mOccupancy);
+        }
+        return attacks;
+    }
+
+    @Benchmark
+    public long knightAndKingAttacks() {
+        long attacks = 0L;
+        for (int square = 0; square < Bitboards.SQUARES; square++) {
+            attacks ^= Attacks.knightAttacks(square) ^ Attacks.kingAttacks(square);
+        }
+        return attacks;
+    }
+
+    @Benchmark
+    public int isSquareAttacked() {
+        int attacked = 0;
+        for (int square = 0; square < Bitboards.SQUARES; square++) {
+            if (mPosition.isSquareAttacked(square, Bitboards.BLACK)) {
+                attacked++;
+            }
+        }
+        return attacked;
+    }
+}
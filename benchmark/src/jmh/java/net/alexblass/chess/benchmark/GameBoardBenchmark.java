@@ -0,0 +1,103 @@
+package net.alexblass.chess.benchmark;
+
+import net.alexblass.chess.constant.Constants;
+import net.alexblass.chess.model.GameBoard;
+import net.alexblass.chess.model.bitboard.Bitboards;
+import net.alexblass.chess.model.piece.AbstractPiece;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the object based GameBoard the UI plays on: construction, moving a piece, asking a
+ * piece about all 64 targets and the position conversions used by the board adapter.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GameBoardBenchmark {
+
+    private GameBoard mGameBoard;
+    private AbstractPiece mKnight;
+
+    /**
+     * A board with the center pawns advanced so the sliding pieces have somewhere to go.
+     */
+    @State(Scope.Thread)
+    public static class PieceState {
+        @Param({Constants.PAWN, Constants.KNIGHT, Constants.BISHOP, Constants.ROOK, Constants.QUEEN, Constants.KING})
+        public String pieceName;
+
+        GameBoard gameBoard;
+        AbstractPiece piece;
+
+        @Setup
+        public void setUp() {
+            gameBoard = new GameBoard();
+            gameBoard.movePiece(gameBoard.getPieceAtCoordinates(6, 4), 4, 4);
+            gameBoard.movePiece(gameBoard.getPieceAtCoordinates(6, 3), 4, 3);
+            piece = findWhitePiece(gameBoard, pieceName);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        mGameBoard = new GameBoard();
+        mKnight = mGameBoard.getPieceAtCoordinates(Constants.HOME_ROW_WHITE, 6);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public GameBoard createGameBoard() {
+        return new GameBoard();
+    }
+
+    @Benchmark
+    public int isValidMoveToEverySquare(PieceState state) {
+        int validMoves = 0;
+        for (int row = 0; row < Constants.BOARD_LENGTH; row++) {
+            for (int col = 0; col < Constants.BOARD_LENGTH; col++) {
+                if (state.piece.isValidMove(state.gameBoard, row, col)) {
+                    validMoves++;
+                }
+            }
+        }
+        return validMoves;
+    }
+
+    @Benchmark
+    public long movePieceAndBack() {
+        mGameBoard.movePiece(mKnight, Constants.HOME_ROW_WHITE - 2, 5);
+        mGameBoard.movePiece(mKnight, Constants.HOME_ROW_WHITE, 6);
+        return mGameBoard.getZobristKey();
+    }
+
+    @Benchmark
+    public int convertPositions() {
+        int sum = 0;
+        for (int position = 0; position < Bitboards.SQUARES; position++) {
+            sum += Bitboards.square(Bitboards.rowOf(position), Bitboards.colOf(position));
+        }
+        return sum;
+    }
+
+    private static AbstractPiece findWhitePiece(GameBoard gameBoard, String name) {
+        for (int row = Constants.HOME_ROW_WHITE; row >= 0; row--) {
+            for (int col = 0; col < Constants.BOARD_LENGTH; col++) {
+                AbstractPiece piece = gameBoard.getPieceAtCoordinates(row, col);
+                if (piece != null && piece.getName().equals(name)) {
+                    return piece;
+                }
+            }
+        }
+        throw new IllegalArgumentException("No white piece named " + name);
+    }
+}
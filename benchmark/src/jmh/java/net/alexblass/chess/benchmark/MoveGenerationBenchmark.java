@@ -0,0 +1,67 @@
+package net.alexblass.chess.benchmark;
+
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.bitboard.MoveGenerator;
+import net.alexblass.chess.model.bitboard.Perft;
+import net.alexblass.chess.model.notation.Fen;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures move generation and make/unmake on a few typical positions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MoveGenerationBenchmark {
+
+    @Param({
+            Fen.STARTING_POSITION,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10"
+    })
+    public String fen;
+
+    private BitboardPosition mPosition;
+    private int[] mMoves;
+    private int mMoveCount;
+
+    @Setup
+    public void setUp() {
+        mPosition = new BitboardPosition();
+        Fen.parse(fen, mPosition);
+        mMoves = new int[MoveGenerator.MAX_MOVES];
+        mMoveCount = MoveGenerator.generateMoves(mPosition, mMoves, 0);
+    }
+
+    @Benchmark
+    public int generateMoves() {
+        return MoveGenerator.generateMoves(mPosition, mMoves, 0);
+    }
+
+    @Benchmark
+    public long makeAndUnmakeEveryMove() {
+        long keys = 0L;
+        for (int i = 0; i < mMoveCount; i++) {
+            mPosition.makeMove(mMoves[i]);
+            keys ^= mPosition.getZobristKey();
+            mPosition.unmakeMove();
+        }
+        return keys;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long perft3() {
+        return new Perft(mPosition).count(3);
+    }
+}
@@ -0,0 +1,129 @@
+package net.alexblass.chess.benchmark;
+
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.bitboard.MoveGenerator;
+import net.alexblass.chess.model.notation.Fen;
+import net.alexblass.chess.model.notation.PgnGame;
+import net.alexblass.chess.model.notation.PgnReader;
+import net.alexblass.chess.model.notation.PgnWriter;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many games per second PgnReader imports, moves validated and all.
+ *
+ * Reads the file given by the pgnFile parameter, or a generated file of random games when it's
+ * empty. The games and plies counters report the import rate next to the file reads.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PgnBenchmark {
+
+    private static final int SAMPLE_GAMES = 2000;
+    private static final int SAMPLE_MAX_PLIES = 120;
+
+    @Param({""})
+    public String pgnFile;
+
+    private File mFile;
+    private boolean mIsSample;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long games;
+        public long plies;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            games = 0L;
+            plies = 0L;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        if (pgnFile.isEmpty()) {
+            mFile = File.createTempFile("sample", ".pgn");
+            mIsSample = true;
+            writeSampleGames(mFile);
+        } else {
+            mFile = new File(pgnFile);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (mIsSample) {
+            mFile.delete();
+        }
+    }
+
+    @Benchmark
+    public void readGames(Counters counters) throws IOException {
+        PgnReader reader = PgnReader.open(mFile);
+        try {
+            PgnGame game;
+            while ((game = reader.next()) != null) {
+                counters.games++;
+                counters.plies += game.getMoves().length;
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    /**
+     * Writes games of random legal moves, always the same ones so runs can be compared.
+     */
+    private static void writeSampleGames(File file) throws IOException {
+        Random random = new Random(1);
+        BitboardPosition position = new BitboardPosition();
+        int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+        int[] moves = new int[SAMPLE_MAX_PLIES];
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put(PgnGame.TAG_EVENT, "Sample");
+
+        PgnWriter writer = new PgnWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+        try {
+            for (int i = 0; i < SAMPLE_GAMES; i++) {
+                Fen.parse(Fen.STARTING_POSITION, position);
+                int plies = 0;
+                while (plies < SAMPLE_MAX_PLIES) {
+                    int moveCount = MoveGenerator.generateLegalMoves(position, legalMoves, 0);
+                    if (moveCount == 0) {
+                        break;
+                    }
+                    moves[plies] = legalMoves[random.nextInt(moveCount)];
+                    position.makeMove(moves[plies++]);
+                }
+                tags.put(PgnGame.TAG_ROUND, String.valueOf(i + 1));
+                writer.write(new PgnGame(tags, Arrays.copyOf(moves, plies), PgnGame.RESULT_UNKNOWN));
+            }
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package net.alexblass.chess.constant;
 
-import net.alexblass.chess.base.R;
-
 /**
  * A class to keep track of the constants that will be accessed by the game logic.
  */
@@ -14,9 +12,6 @@ public class Constants {
     public static final String KNIGHT = "knight";
     public static final String PAWN = "pawn";
 
-    public static final int COLOR_RESOURCE_WHITE = R.color.color_white; // White goes first in the game
-    public static final int COLOR_RESOURCE_BLACK = R.color.color_black;
-
     public static final int BOARD_LENGTH = 8;
     public static final int HOME_ROW_WHITE = 7;
     public static final int HOME_ROW_BLACK = 0;
@@ -51,4 +46,14 @@ public class Constants {
     public static final int PAWN_FIRST_MOVE = 2;
     public static final int PAWN_STD_MOVE = 1;
     public static final int PAWN_CAPTURE_ROW_CHANGE = 1;
+
+    public static final long COMPUTER_MOVE_TIME_MILLIS = 1000;
+    // Stored uncompressed in the APK so it can be memory-mapped
+    public static final String OPENING_BOOK_ASSET = "opening_book.bin";
+    // The assets directory the build generates the tablebases into, stored uncompressed too
+    public static final String TABLEBASE_DIRECTORY = "tablebases";
+
+    public static final String GAME_PREFERENCES = "game";
+    // The unfinished game to resume, removed once a game ends
+    public static final String PREFERENCE_CURRENT_GAME_ID = "current_game_id";
 }
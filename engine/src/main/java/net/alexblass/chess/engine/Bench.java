@@ -0,0 +1,61 @@
+package net.alexblass.chess.engine;
+
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.notation.Fen;
+
+/**
+ * Searches a fixed set of positions to a fixed depth and reports the total node count.
+ *
+ * Every position gets a fresh search and transposition table, so the node count only changes
+ * when the search itself does. A lower count at the same depth means the moves were ordered
+ * better, which makes it the number to compare when tuning move ordering or pruning.
+ *
+ * Run with ./gradlew :engine:bench, or run the class with the depth as its argument.
+ */
+public final class Bench {
+
+    public static final int DEFAULT_DEPTH = 7;
+
+    static final String[] POSITIONS = {
+            Fen.STARTING_POSITION,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4",
+            "2r3k1/pp3ppp/4p3/3pP3/3P4/P4N2/1P3PPP/2R3K1 w - - 0 25",
+            "8/8/4k3/3p4/3P4/4K3/8/8 w - - 0 1",
+            "6k1/5pp1/7p/8/8/7P/5PP1/3R2K1 w - - 0 1"
+    };
+
+    private Bench() {
+    }
+
+    /**
+     * @return the total number of nodes searched over all benchmark positions.
+     */
+    public static long run(int depth) {
+        long nodes = 0L;
+        for (String fen : POSITIONS) {
+            BitboardPosition position = new BitboardPosition();
+            Fen.parse(fen, position);
+            nodes += new Search(position).search(Long.MAX_VALUE, depth).getNodes();
+        }
+        return nodes;
+    }
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_DEPTH;
+
+        long startTime = System.currentTimeMillis();
+        long nodes = run(depth);
+        long elapsedMillis = Math.max(1L, System.currentTimeMillis() - startTime);
+
+        System.out.println("Positions: " + POSITIONS.length);
+        System.out.println("Depth:     " + depth);
+        System.out.println("Nodes:     " + nodes);
+        System.out.println("Time (ms): " + elapsedMillis);
+        System.out.println("Nodes/s:   " + nodes * 1000L / elapsedMillis);
+    }
+}
@@ -0,0 +1,46 @@
+package net.alexblass.chess.engine;
+
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.bitboard.Bitboards;
+import net.alexblass.chess.model.bitboard.PieceSquareTables;
+
+/**
+ * Static evaluation of a position in centipawns from the point of view of the side to move.
+ *
+ * The position keeps its middlegame and endgame material and piece-square scores up to date as
+ * moves are made, and pawn structure scores come from a cache keyed by the pawn key, so
+ * evaluating usually only blends the two scores by how much material is left.
+ *
+ * An Evaluation owns its pawn cache and is used by one thread at a time.
+ */
+public class Evaluation {
+
+    private final PawnHashTable mPawnHashTable;
+
+    public Evaluation() {
+        this(new PawnHashTable());
+    }
+
+    public Evaluation(PawnHashTable pawnHashTable) {
+        mPawnHashTable = pawnHashTable;
+    }
+
+    public int evaluate(BitboardPosition position) {
+        long pawnKey = position.getPawnKey();
+        long pawnScore = mPawnHashTable.probe(pawnKey);
+        if (pawnScore == PawnHashTable.MISSING) {
+            pawnScore = PawnStructure.evaluate(position);
+            mPawnHashTable.store(pawnKey, pawnScore);
+        }
+
+        int middlegame = position.getMiddlegameScore() + PawnStructure.middlegame(pawnScore);
+        int endgame = position.getEndgameScore() + PawnStructure.endgame(pawnScore);
+        int phase = Math.min(position.getPhase(), PieceSquareTables.MAX_PHASE);
+        int score = (middlegame * phase + endgame * (PieceSquareTables.MAX_PHASE - phase)) / PieceSquareTables.MAX_PHASE;
+        return position.getSideToMove() == Bitboards.WHITE ? score : -score;
+    }
+
+    public PawnHashTable getPawnHashTable() {
+        return mPawnHashTable;
+    }
+}
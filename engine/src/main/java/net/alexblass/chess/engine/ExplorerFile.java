@@ -0,0 +1,105 @@
+package net.alexblass.chess.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read-only position statistics gathered from a collection of games, for an opening explorer.
+ *
+ * The file is a flat run of 32 byte entries, one per position: the position's Zobrist key
+ * (8 bytes), then the number of games that reached it, white wins, draws, black wins, the most
+ * common reply as a packed Move and the number of games it was played in (4 bytes each),
+ * big-endian and sorted by key as an unsigned number. Like OpeningBook, the file is
+ * memory-mapped and looked up with a binary search. The tools module builds it.
+ *
+ * Lookups use absolute reads only and may run on several threads at once.
+ */
+public class ExplorerFile {
+
+    public static final int BYTES_PER_ENTRY = 32;
+
+    private static final int GAMES_OFFSET = 8;
+    private static final int WHITE_WINS_OFFSET = 12;
+    private static final int DRAWS_OFFSET = 16;
+    private static final int BLACK_WINS_OFFSET = 20;
+    private static final int REPLY_MOVE_OFFSET = 24;
+    private static final int REPLY_GAMES_OFFSET = 28;
+
+    private final ByteBuffer mBuffer;
+    private final int mEntryCount;
+
+    public ExplorerFile(ByteBuffer buffer) {
+        if (buffer.capacity() % BYTES_PER_ENTRY != 0) {
+            throw new IllegalArgumentException("Explorer file size is not a multiple of "
+                    + BYTES_PER_ENTRY + " bytes: " + buffer.capacity());
+        }
+        mBuffer = buffer;
+        mEntryCount = buffer.capacity() / BYTES_PER_ENTRY;
+    }
+
+    /**
+     * Maps a whole explorer file. The mapping stays valid after the file is closed.
+     */
+    public static ExplorerFile open(File file) throws IOException {
+        RandomAccessFile explorerFile = new RandomAccessFile(file, "r");
+        try {
+            return open(explorerFile.getChannel(), 0L, explorerFile.length());
+        } finally {
+            explorerFile.close();
+        }
+    }
+
+    /**
+     * Maps an explorer file stored in part of a file, for example an uncompressed asset.
+     */
+    public static ExplorerFile open(FileChannel channel, long offset, long length) throws IOException {
+        return new ExplorerFile(channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+    }
+
+    public int getEntryCount() {
+        return mEntryCount;
+    }
+
+    /**
+     * @return the statistics of the position with the key, or null when no game reached it.
+     */
+    public PositionStats lookup(long key) {
+        int index = find(key);
+        if (index < 0) {
+            return null;
+        }
+        int entry = index * BYTES_PER_ENTRY;
+        return new PositionStats(mBuffer.getInt(entry + GAMES_OFFSET),
+                mBuffer.getInt(entry + WHITE_WINS_OFFSET),
+                mBuffer.getInt(entry + DRAWS_OFFSET),
+                mBuffer.getInt(entry + BLACK_WINS_OFFSET),
+                mBuffer.getInt(entry + REPLY_MOVE_OFFSET),
+                mBuffer.getInt(entry + REPLY_GAMES_OFFSET));
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    /**
+     * @return the index of the entry with the key, or -1.
+     */
+    private int find(long key) {
+        // Flipping the sign bit makes the signed comparison order keys as unsigned numbers
+        long target = key ^ Long.MIN_VALUE;
+        int low = 0;
+        int high = mEntryCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleKey = mBuffer.getLong(middle * BYTES_PER_ENTRY) ^ Long.MIN_VALUE;
+            if (middleKey < target) {
+                low = middle + 1;
+            } else if (middleKey > target) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,143 @@
+package net.alexblass.chess.engine;
+
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.bitboard.Bitboards;
+import net.alexblass.chess.model.bitboard.Move;
+import net.alexblass.chess.model.bitboard.MoveGenerator;
+import net.alexblass.chess.model.bitboard.PieceSquareTables;
+import net.alexblass.chess.model.bitboard.StaticExchange;
+
+import java.util.Arrays;
+
+/**
+ * Decides the order in which a search tries the moves of a node.
+ *
+ * Every generated move gets a score in an int array running parallel to the move buffer: the
+ * hash move first, then captures and promotions by most valuable victim, least valuable
+ * attacker, then the two killer moves of the ply, the remaining quiet moves by their history
+ * count and last the captures that lose material by static exchange. selectNext() then picks
+ * the best remaining move, so a node that is cut off after its first move never pays for
+ * sorting the rest.
+ *
+ * A MoveOrderer belongs to one Search and is used by one thread at a time.
+ */
+public class MoveOrderer {
+
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 28;
+    private static final int FIRST_KILLER_SCORE = (1 << 26) + 1;
+    private static final int SECOND_KILLER_SCORE = 1 << 26;
+    private static final int LOSING_CAPTURE_SCORE = -(1 << 26);
+    // History counts are halved whenever one reaches this, so they stay below the killer scores
+    static final int MAX_HISTORY = 1 << 20;
+
+    private final int[] mScores;
+    private final int[] mKillers = new int[Search.MAX_PLY * 2];
+    // Indexed by (piece code * 64) + destination square
+    private final int[] mHistory = new int[Bitboards.NO_PIECE * Bitboards.SQUARES];
+
+    public MoveOrderer() {
+        mScores = new int[Search.MAX_PLY * MoveGenerator.MAX_MOVES];
+    }
+
+    /**
+     * Forgets the killers of the previous search and ages its history, which is still a good
+     * guess for the next one.
+     */
+    public void newSearch() {
+        Arrays.fill(mKillers, Move.NO_MOVE);
+        ageHistory();
+    }
+
+    /**
+     * Scores moves[start] up to moves[end] for the node at the given ply.
+     */
+    public void scoreMoves(BitboardPosition position, int[] moves, int start, int end, int hashMove, int ply) {
+        int firstKiller = mKillers[ply * 2];
+        int secondKiller = mKillers[ply * 2 + 1];
+        for (int i = start; i < end; i++) {
+            int move = moves[i];
+            if (move == hashMove) {
+                mScores[i] = HASH_MOVE_SCORE;
+            } else if (Move.isCapture(move) || Move.isPromotion(move)) {
+                mScores[i] = (StaticExchange.isAtLeast(position, move, 0) ? CAPTURE_SCORE : LOSING_CAPTURE_SCORE)
+                        + getCaptureScore(move);
+            } else if (move == firstKiller) {
+                mScores[i] = FIRST_KILLER_SCORE;
+            } else if (move == secondKiller) {
+                mScores[i] = SECOND_KILLER_SCORE;
+            } else {
+                mScores[i] = mHistory[historyIndex(move)];
+            }
+        }
+    }
+
+    /**
+     * Swaps the best scored move from moves[index] up to moves[end] into moves[index].
+     * @return that move.
+     */
+    public int selectNext(int[] moves, int index, int end) {
+        int best = index;
+        for (int i = index + 1; i < end; i++) {
+            if (mScores[i] > mScores[best]) {
+                best = i;
+            }
+        }
+        if (best != index) {
+            int move = moves[best];
+            moves[best] = moves[index];
+            moves[index] = move;
+            int score = mScores[best];
+            mScores[best] = mScores[index];
+            mScores[index] = score;
+        }
+        return moves[index];
+    }
+
+    /**
+     * Remembers a quiet move that caused a beta cutoff, both as a killer for its ply and in the
+     * history, weighted by the depth of the cut off subtree.
+     */
+    public void onCutoff(int move, int ply, int depth) {
+        if (Move.isCapture(move) || Move.isPromotion(move)) {
+            return;
+        }
+
+        if (mKillers[ply * 2] != move) {
+            mKillers[ply * 2 + 1] = mKillers[ply * 2];
+            mKillers[ply * 2] = move;
+        }
+
+        int index = historyIndex(move);
+        mHistory[index] += depth * depth;
+        if (mHistory[index] >= MAX_HISTORY) {
+            ageHistory();
+        }
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    /**
+     * Most valuable victim first, and the least valuable attacker among captures of the same
+     * victim. A promotion counts the promoted piece as won material.
+     */
+    private static int getCaptureScore(int move) {
+        int score = 0;
+        if (Move.isCapture(move)) {
+            score += 16 * PieceSquareTables.PIECE_VALUES[Bitboards.typeOf(Move.getCaptured(move))];
+        }
+        if (Move.isPromotion(move)) {
+            score += 16 * PieceSquareTables.PIECE_VALUES[Move.getPromotionType(move)];
+        }
+        return score - PieceSquareTables.PIECE_VALUES[Bitboards.typeOf(Move.getPiece(move))] / 10;
+    }
+
+    private static int historyIndex(int move) {
+        return Move.getPiece(move) * Bitboards.SQUARES + Move.getTo(move);
+    }
+
+    private void ageHistory() {
+        for (int i = 0; i < mHistory.length; i++) {
+            mHistory[i] >>= 1;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package net.alexblass.chess.engine;
+
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.bitboard.Move;
+import net.alexblass.chess.model.bitboard.MoveGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+
+/**
+ * A read-only opening book answering book positions without a search.
+ *
+ * The book is a flat file of 16 byte entries: the position's Zobrist key (8 bytes), a packed
+ * Move (4 bytes) and the move's weight (4 bytes), big-endian and sorted by key as an unsigned
+ * number, the moves of one position by descending weight. The file is memory-mapped and looked
+ * up with a binary search, so opening a book of any size reads nothing and keeps nothing on the
+ * heap. OpeningBookWriter writes the format.
+ *
+ * Keys and moves are this engine's own, so a book only works with the Zobrist keys it was
+ * written with. A book move that is not legal in the probed position, after a hash collision,
+ * is skipped.
+ *
+ * Lookups use absolute reads only and may run on several threads at once.
+ */
+public class OpeningBook {
+
+    public static final int BYTES_PER_ENTRY = 16;
+
+    static final int MOVE_OFFSET = 8;
+    static final int WEIGHT_OFFSET = 12;
+
+    private final ByteBuffer mBuffer;
+    private final int mEntryCount;
+
+    public OpeningBook(ByteBuffer buffer) {
+        if (buffer.capacity() % BYTES_PER_ENTRY != 0) {
+            throw new IllegalArgumentException("Opening book size is not a multiple of "
+                    + BYTES_PER_ENTRY + " bytes: " + buffer.capacity());
+        }
+        mBuffer = buffer;
+        mEntryCount = buffer.capacity() / BYTES_PER_ENTRY;
+    }
+
+    /**
+     * Maps a whole book file. The mapping stays valid after the file is closed.
+     */
+    public static OpeningBook open(File file) throws IOException {
+        RandomAccessFile bookFile = new RandomAccessFile(file, "r");
+        try {
+            return open(bookFile.getChannel(), 0L, bookFile.length());
+        } finally {
+            bookFile.close();
+        }
+    }
+
+    /**
+     * Maps a book stored in part of a file, for example an uncompressed asset inside an APK.
+     */
+    public static OpeningBook open(FileChannel channel, long offset, long length) throws IOException {
+        return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+    }
+
+    public int getEntryCount() {
+        return mEntryCount;
+    }
+
+    /**
+     * Copies the moves and weights stored for the key into the arrays, at most moves.length.
+     * @return the number of moves copied.
+     */
+    public int getMoves(long key, int[] moves, int[] weights) {
+        int count = 0;
+        for (int index = findFirst(key); index < mEntryCount && getKey(index) == key
+                && count < moves.length; index++) {
+            moves[count] = mBuffer.getInt(index * BYTES_PER_ENTRY + MOVE_OFFSET);
+            weights[count] = mBuffer.getInt(index * BYTES_PER_ENTRY + WEIGHT_OFFSET);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Picks one of the legal book moves of the position at random, in proportion to the weights.
+     * @return the move, or NO_MOVE when the position is not in the book.
+     */
+    public int chooseMove(BitboardPosition position, Random random) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int[] weights = new int[MoveGenerator.MAX_MOVES];
+        int count = getMoves(position.getZobristKey(), moves, weights);
+        if (count == 0) {
+            return Move.NO_MOVE;
+        }
+
+        int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+        int legalCount = MoveGenerator.generateLegalMoves(position, legalMoves, 0);
+        long totalWeight = 0L;
+        for (int i = 0; i < count; i++) {
+            if (!contains(legalMoves, legalCount, moves[i]) || weights[i] <= 0) {
+                weights[i] = 0;
+            }
+            totalWeight += weights[i];
+        }
+        if (totalWeight == 0L) {
+            return Move.NO_MOVE;
+        }
+
+        long pick = (long) (random.nextDouble() * totalWeight);
+        for (int i = 0; i < count; i++) {
+            pick -= weights[i];
+            if (pick < 0L) {
+                return moves[i];
+            }
+        }
+        return Move.NO_MOVE;
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private long getKey(int index) {
+        return mBuffer.getLong(index * BYTES_PER_ENTRY);
+    }
+
+    /**
+     * @return the index of the first entry whose key is not below the key, comparing unsigned.
+     */
+    private int findFirst(long key) {
+        // Flipping the sign bit makes the signed comparison order keys as unsigned numbers
+        long target = key ^ Long.MIN_VALUE;
+        int low = 0;
+        int high = mEntryCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if ((getKey(middle) ^ Long.MIN_VALUE) < target) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static boolean contains(int[] moves, int count, int move) {
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
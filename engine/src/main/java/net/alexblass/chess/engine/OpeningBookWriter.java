@@ -0,0 +1,150 @@
+package net.alexblass.chess.engine;
+
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Collects book moves and writes them in the sorted format OpeningBook maps.
+ *
+ * Adding the same move for the same position again adds up the weights, so a book built from a
+ * collection of games weighs each move by how often it was played.
+ */
+public class OpeningBookWriter {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] mKeys = new long[INITIAL_CAPACITY];
+    private int[] mMoves = new int[INITIAL_CAPACITY];
+    private int[] mWeights = new int[INITIAL_CAPACITY];
+    private int mSize;
+
+    public void add(long key, int move, int weight) {
+        if (mSize == mKeys.length) {
+            mKeys = Arrays.copyOf(mKeys, mSize * 2);
+            mMoves = Arrays.copyOf(mMoves, mSize * 2);
+            mWeights = Arrays.copyOf(mWeights, mSize * 2);
+        }
+        mKeys[mSize] = key;
+        mMoves[mSize] = move;
+        mWeights[mSize] = weight;
+        mSize++;
+    }
+
+    /**
+     * Adds the first maxPly moves of a line played from the position, each with weight 1. The
+     * position is left as it was.
+     */
+    public void addLine(BitboardPosition position, int[] moves, int maxPly) {
+        int plies = Math.min(moves.length, maxPly);
+        for (int i = 0; i < plies; i++) {
+            add(position.getZobristKey(), moves[i], 1);
+            position.makeMove(moves[i]);
+        }
+        for (int i = plies - 1; i >= 0; i--) {
+            position.unmakeMove();
+        }
+    }
+
+    /**
+     * Writes the book, replacing the file.
+     * @return the number of entries written.
+     */
+    public int write(File file) throws IOException {
+        // Flipping the sign bit makes the signed sort order keys as unsigned numbers
+        long[] keys = new long[mSize];
+        for (int i = 0; i < mSize; i++) {
+            keys[i] = mKeys[i] ^ Long.MIN_VALUE;
+        }
+        int positionCount = sortUnique(keys, mSize);
+
+        // Each entry as its position's rank and its move, so sorting orders by key, then by move
+        long[] entries = new long[mSize];
+        for (int i = 0; i < mSize; i++) {
+            long position = Arrays.binarySearch(keys, 0, positionCount, mKeys[i] ^ Long.MIN_VALUE);
+            entries[i] = position << 32 | (mMoves[i] & 0xFFFFFFFFL);
+        }
+        long[] sortedEntries = Arrays.copyOf(entries, mSize);
+        int count = sortUnique(sortedEntries, mSize);
+        // Adding the same move again adds up the weights
+        long[] weights = new long[count];
+        for (int i = 0; i < mSize; i++) {
+            weights[Arrays.binarySearch(sortedEntries, 0, count, entries[i])] += mWeights[i];
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(count * OpeningBook.BYTES_PER_ENTRY);
+        for (int i = 0; i < count; i++) {
+            buffer.putLong(keys[(int) (sortedEntries[i] >>> 32)] ^ Long.MIN_VALUE);
+            buffer.putInt((int) sortedEntries[i]);
+            buffer.putInt((int) Math.min(weights[i], Integer.MAX_VALUE));
+        }
+        buffer.flip();
+        sortMovesByWeight(buffer, count);
+
+        RandomAccessFile bookFile = new RandomAccessFile(file, "rw");
+        try {
+            bookFile.setLength(0L);
+            FileChannel channel = bookFile.getChannel();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } finally {
+            bookFile.close();
+        }
+        return count;
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    /**
+     * Sorts the first size values and moves each distinct one to the front, in order.
+     * @return the number of distinct values.
+     */
+    private static int sortUnique(long[] values, int size) {
+        Arrays.sort(values, 0, size);
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || values[i] != values[i - 1]) {
+                values[count++] = values[i];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reorders the merged moves of each position by descending weight, in place.
+     */
+    private static void sortMovesByWeight(ByteBuffer buffer, int count) {
+        for (int start = 0; start < count; ) {
+            long key = buffer.getLong(start * OpeningBook.BYTES_PER_ENTRY);
+            int end = start + 1;
+            while (end < count && buffer.getLong(end * OpeningBook.BYTES_PER_ENTRY) == key) {
+                end++;
+            }
+            // Positions rarely have more than a handful of book moves
+            for (int i = start + 1; i < end; i++) {
+                for (int j = i; j > start && getWeight(buffer, j) > getWeight(buffer, j - 1); j--) {
+                    swapEntries(buffer, j, j - 1);
+                }
+            }
+            start = end;
+        }
+    }
+
+    private static int getWeight(ByteBuffer buffer, int index) {
+        return buffer.getInt(index * OpeningBook.BYTES_PER_ENTRY + OpeningBook.WEIGHT_OFFSET);
+    }
+
+    private static void swapEntries(ByteBuffer buffer, int first, int second) {
+        int firstOffset = first * OpeningBook.BYTES_PER_ENTRY + OpeningBook.MOVE_OFFSET;
+        int secondOffset = second * OpeningBook.BYTES_PER_ENTRY + OpeningBook.MOVE_OFFSET;
+        // Entries of one position share the key, so only the move and weight are swapped
+        long firstValue = buffer.getLong(firstOffset);
+        buffer.putLong(firstOffset, buffer.getLong(secondOffset));
+        buffer.putLong(secondOffset, firstValue);
+    }
+}
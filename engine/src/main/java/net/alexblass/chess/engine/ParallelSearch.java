@@ -0,0 +1,190 @@
+package net.alexblass.chess.engine;
+
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Searches one position on several threads at once ("Lazy SMP").
+ *
+ * Every worker runs an ordinary Search on its own copy of the position. The workers share one
+ * transposition table, so each one profits from the subtrees the others have already searched.
+ * Half of the helpers start one ply deeper than the main worker, which spreads them over
+ * different parts of the tree. The calling thread is the main worker. Once its time or depth
+ * limit is reached it stops the helpers and answers with the deepest completed iteration of
+ * any worker.
+ *
+ * Helper threads are kept between searches, call shutdown() once the search is no longer needed.
+ */
+public class ParallelSearch {
+
+    private final BitboardPosition mPosition;
+    private final TranspositionTable mTranspositionTable;
+    private final int mThreadCount;
+    private final ExecutorService mHelperExecutor;
+
+    private SearchListener mSearchListener;
+    private Tablebase mTablebase;
+    private volatile boolean mIsStopped;
+    // Package-private so tests can compare the workers' statistics with their sum
+    volatile Search[] mWorkers = new Search[0];
+
+    /**
+     * @param threadCount the number of threads searching, including the calling one. It is
+     * capped at the number of available processors.
+     */
+    public ParallelSearch(BitboardPosition position, TranspositionTable transpositionTable, int threadCount) {
+        this(position, transpositionTable, threadCount, getMaxThreadCount());
+    }
+
+    /**
+     * @param maxThreadCount the cap on threadCount, which tests lift to run helpers on any machine.
+     */
+    ParallelSearch(BitboardPosition position, TranspositionTable transpositionTable, int threadCount,
+                   int maxThreadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("A search needs at least one thread: " + threadCount);
+        }
+        mPosition = position;
+        mTranspositionTable = transpositionTable;
+        mThreadCount = Math.min(threadCount, maxThreadCount);
+        mHelperExecutor = mThreadCount > 1 ? Executors.newFixedThreadPool(mThreadCount - 1, new ThreadFactory() {
+            private int mCreatedCount;
+
+            @Override
+            public synchronized Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "search-helper-" + ++mCreatedCount);
+                thread.setDaemon(true);
+                return thread;
+            }
+        }) : null;
+    }
+
+    public static int getMaxThreadCount() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Searches the position until the time runs out or maxDepth is completed, see Search.
+     * @return the deepest completed result of all workers, with the nodes of all workers.
+     */
+    public SearchResult search(long timeLimitMillis, final int maxDepth) {
+        mIsStopped = false;
+        mTranspositionTable.newSearch();
+
+        Search[] workers = new Search[mThreadCount];
+        for (int i = 0; i < mThreadCount; i++) {
+            workers[i] = new Search(new BitboardPosition(mPosition), mTranspositionTable);
+        }
+        for (Search worker : workers) {
+            worker.setTablebase(mTablebase);
+        }
+        workers[0].setSearchListener(mSearchListener);
+        mWorkers = workers;
+        // A stop() that came before the workers were published has to reach them too
+        if (mIsStopped) {
+            stopWorkers(workers);
+        }
+
+        List<Future<SearchResult>> helperResults = new ArrayList<>();
+        for (int i = 1; i < mThreadCount; i++) {
+            final Search helper = workers[i];
+            final int startDepth = 1 + i % 2;
+            helperResults.add(mHelperExecutor.submit(new Callable<SearchResult>() {
+                @Override
+                public SearchResult call() {
+                    return helper.iterate(Long.MAX_VALUE, startDepth, maxDepth);
+                }
+            }));
+        }
+
+        long startTime = System.currentTimeMillis();
+        SearchResult best = workers[0].iterate(timeLimitMillis, 1, maxDepth);
+        stopWorkers(workers);
+
+        long nodes = best.getNodes();
+        for (Future<SearchResult> helperResult : helperResults) {
+            SearchResult result = getResult(helperResult);
+            nodes += result.getNodes();
+            if (result.getDepth() > best.getDepth()) {
+                best = result;
+            }
+        }
+        return new SearchResult(best.getPrincipalVariation(), best.getScore(), best.getDepth(), nodes,
+                System.currentTimeMillis() - startTime);
+    }
+
+    public void stop() {
+        mIsStopped = true;
+        stopWorkers(mWorkers);
+    }
+
+    public boolean isStopped() {
+        return mIsStopped;
+    }
+
+    public int getThreadCount() {
+        return mThreadCount;
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return mTranspositionTable;
+    }
+
+    /**
+     * @return the transposition table probes of the last search, summed over its workers.
+     */
+    public TranspositionTable.Statistics getTableStatistics() {
+        TranspositionTable.Statistics statistics = new TranspositionTable.Statistics();
+        for (Search worker : mWorkers) {
+            statistics.add(worker.getTableStatistics());
+        }
+        return statistics;
+    }
+
+    /**
+     * Reports the iterations of the main worker, on the thread that called search().
+     */
+    public void setSearchListener(SearchListener searchListener) {
+        mSearchListener = searchListener;
+    }
+
+    /**
+     * Lets every worker score positions covered by the tablebase, see Search.
+     */
+    public void setTablebase(Tablebase tablebase) {
+        mTablebase = tablebase;
+    }
+
+    public void shutdown() {
+        stop();
+        if (mHelperExecutor != null) {
+            mHelperExecutor.shutdownNow();
+        }
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private static void stopWorkers(Search[] workers) {
+        for (Search worker : workers) {
+            worker.stop();
+        }
+    }
+
+    private static SearchResult getResult(Future<SearchResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new SearchResult(new int[0], Search.DRAW_SCORE, 0, 0L, 0L);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search helper failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package net.alexblass.chess.engine;
+
+/**
+ * A small fixed-size cache of pawn structure scores, keyed by the position's pawn key.
+ *
+ * Pawns move far less often than the other pieces, so most positions a search visits share
+ * their pawn structure with one it has already evaluated. A slot simply holds the last
+ * structure stored in it. The table is not thread-safe, every search owns its own.
+ */
+public class PawnHashTable {
+
+    public static final int DEFAULT_SIZE = 1 << 14;
+    // No packed score has the lowest possible middlegame half
+    public static final long MISSING = Long.MIN_VALUE;
+
+    private final long[] mKeys;
+    private final long[] mScores;
+    private final int mIndexMask;
+
+    private long mHits;
+    private long mMisses;
+
+    public PawnHashTable() {
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     * @param size the number of entries, rounded down to a power of two.
+     */
+    public PawnHashTable(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pawn hash table needs at least one entry: " + size);
+        }
+        int capacity = Integer.highestOneBit(size);
+        mKeys = new long[capacity];
+        mScores = new long[capacity];
+        mIndexMask = capacity - 1;
+        // An empty slot reads as key 0 with score 0, which is right for a position without pawns
+    }
+
+    /**
+     * @return the score stored for the pawn key, packed with PawnStructure.pack, or MISSING.
+     */
+    public long probe(long pawnKey) {
+        int index = index(pawnKey);
+        if (mKeys[index] == pawnKey) {
+            mHits++;
+            return mScores[index];
+        }
+        mMisses++;
+        return MISSING;
+    }
+
+    public void store(long pawnKey, long score) {
+        int index = index(pawnKey);
+        mKeys[index] = pawnKey;
+        mScores[index] = score;
+    }
+
+    public int getCapacity() {
+        return mIndexMask + 1;
+    }
+
+    public long getHits() {
+        return mHits;
+    }
+
+    public long getMisses() {
+        return mMisses;
+    }
+
+    /**
+     * @return the share of lookups answered from the cache, from 0 to 1.
+     */
+    public double getHitRate() {
+        long lookups = mHits + mMisses;
+        return lookups == 0 ? 0.0 : (double) mHits / lookups;
+    }
+
+    public void resetStatistics() {
+        mHits = 0L;
+        mMisses = 0L;
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private int index(long pawnKey) {
+        return (int) (pawnKey ^ (pawnKey >>> 32)) & mIndexMask;
+    }
+}
@@ -0,0 +1,127 @@
+package net.alexblass.chess.engine;
+
+import net.alexblass.chess.model.bitboard.Attacks;
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.bitboard.Bitboards;
+
+import static net.alexblass.chess.model.bitboard.Bitboards.BLACK;
+import static net.alexblass.chess.model.bitboard.Bitboards.FILE_A;
+import static net.alexblass.chess.model.bitboard.Bitboards.PAWN;
+import static net.alexblass.chess.model.bitboard.Bitboards.SQUARES;
+import static net.alexblass.chess.model.bitboard.Bitboards.WHITE;
+import static net.alexblass.chess.model.bitboard.Bitboards.bit;
+import static net.alexblass.chess.model.bitboard.Bitboards.colOf;
+import static net.alexblass.chess.model.bitboard.Bitboards.rowOf;
+
+/**
+ * Scores doubled, isolated, backward and passed pawns.
+ *
+ * The score depends on nothing but the pawns, so it is cached by pawn key in a PawnHashTable.
+ * Middlegame and endgame scores are packed into one long from white's point of view.
+ */
+public final class PawnStructure {
+
+    private static final int DOUBLED_MIDDLEGAME = -10;
+    private static final int DOUBLED_ENDGAME = -25;
+    private static final int ISOLATED_MIDDLEGAME = -10;
+    private static final int ISOLATED_ENDGAME = -15;
+    private static final int BACKWARD_MIDDLEGAME = -8;
+    private static final int BACKWARD_ENDGAME = -10;
+    // Indexed by the pawn's rank counted from its own side, its home row being rank 1
+    private static final int[] PASSED_MIDDLEGAME = {0, 5, 10, 15, 25, 40, 60, 0};
+    private static final int[] PASSED_ENDGAME = {0, 10, 15, 25, 45, 75, 120, 0};
+
+    // Indexed by (color * 64) + square
+    private static final long[] FORWARD_FILE = new long[2 * SQUARES];
+    private static final long[] PASSED_SPAN = new long[2 * SQUARES];
+    private static final long[] SUPPORT_SPAN = new long[2 * SQUARES];
+    private static final long[] ADJACENT_FILES = new long[8];
+
+    static {
+        for (int col = 0; col < 8; col++) {
+            ADJACENT_FILES[col] = (col > 0 ? FILE_A << (col - 1) : 0L) | (col < 7 ? FILE_A << (col + 1) : 0L);
+        }
+        for (int square = 0; square < SQUARES; square++) {
+            int row = rowOf(square);
+            int col = colOf(square);
+            long file = FILE_A << col;
+            // White pawns advance towards row 0, so the rows ahead of white hold the lower squares
+            long aheadOfWhite = row == 0 ? 0L : -1L >>> ((8 - row) * 8);
+            long aheadOfBlack = row == 7 ? 0L : -1L << ((row + 1) * 8);
+            long notAheadOfWhite = ~aheadOfWhite;
+            long notAheadOfBlack = ~aheadOfBlack;
+
+            FORWARD_FILE[square] = file & aheadOfWhite;
+            FORWARD_FILE[SQUARES + square] = file & aheadOfBlack;
+            PASSED_SPAN[square] = (file | ADJACENT_FILES[col]) & aheadOfWhite;
+            PASSED_SPAN[SQUARES + square] = (file | ADJACENT_FILES[col]) & aheadOfBlack;
+            SUPPORT_SPAN[square] = ADJACENT_FILES[col] & notAheadOfWhite;
+            SUPPORT_SPAN[SQUARES + square] = ADJACENT_FILES[col] & notAheadOfBlack;
+        }
+    }
+
+    private PawnStructure() {
+    }
+
+    /**
+     * @return the pawn structure score from white's point of view, packed with pack().
+     */
+    public static long evaluate(BitboardPosition position) {
+        long whitePawns = position.getPieces(WHITE, PAWN);
+        long blackPawns = position.getPieces(BLACK, PAWN);
+        long white = evaluate(WHITE, whitePawns, blackPawns);
+        long black = evaluate(BLACK, blackPawns, whitePawns);
+        return pack(middlegame(white) - middlegame(black), endgame(white) - endgame(black));
+    }
+
+    public static long pack(int middlegame, int endgame) {
+        return ((long) middlegame << 32) | (endgame & 0xFFFFFFFFL);
+    }
+
+    public static int middlegame(long score) {
+        return (int) (score >> 32);
+    }
+
+    public static int endgame(long score) {
+        return (int) score;
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private static long evaluate(int color, long ourPawns, long theirPawns) {
+        int offset = color * SQUARES;
+        long theirPawnAttacks = Attacks.pawnAttacks(color ^ 1, theirPawns);
+        int middlegame = 0;
+        int endgame = 0;
+
+        for (long pawns = ourPawns; pawns != 0L; pawns &= pawns - 1) {
+            int square = Bitboards.lowestSquare(pawns);
+            int row = rowOf(square);
+
+            if ((FORWARD_FILE[offset + square] & ourPawns) != 0L) {
+                middlegame += DOUBLED_MIDDLEGAME;
+                endgame += DOUBLED_ENDGAME;
+            }
+
+            if ((ADJACENT_FILES[colOf(square)] & ourPawns) == 0L) {
+                middlegame += ISOLATED_MIDDLEGAME;
+                endgame += ISOLATED_ENDGAME;
+            } else if ((SUPPORT_SPAN[offset + square] & ourPawns) == 0L) {
+                // No neighbour can come up to defend it and an enemy pawn guards the square ahead
+                int stopSquare = color == WHITE ? square - 8 : square + 8;
+                if ((theirPawnAttacks & bit(stopSquare)) != 0L) {
+                    middlegame += BACKWARD_MIDDLEGAME;
+                    endgame += BACKWARD_ENDGAME;
+                }
+            }
+
+            // The frontmost of doubled pawns is the one that can be passed
+            if ((PASSED_SPAN[offset + square] & theirPawns) == 0L
+                    && (FORWARD_FILE[offset + square] & ourPawns) == 0L) {
+                int rank = color == WHITE ? 7 - row : row;
+                middlegame += PASSED_MIDDLEGAME[rank];
+                endgame += PASSED_ENDGAME[rank];
+            }
+        }
+        return pack(middlegame, endgame);
+    }
+}
@@ -0,0 +1,54 @@
+package net.alexblass.chess.engine;
+
+/**
+ * How often a position was reached in a collection of games, how those games ended and the reply
+ * played most often from it.
+ */
+public class PositionStats {
+
+    private final int mGames;
+    private final int mWhiteWins;
+    private final int mDraws;
+    private final int mBlackWins;
+    private final int mReplyMove;
+    private final int mReplyGames;
+
+    public PositionStats(int games, int whiteWins, int draws, int blackWins, int replyMove, int replyGames) {
+        mGames = games;
+        mWhiteWins = whiteWins;
+        mDraws = draws;
+        mBlackWins = blackWins;
+        mReplyMove = replyMove;
+        mReplyGames = replyGames;
+    }
+
+    /**
+     * @return the number of games that reached the position, including those without a result.
+     */
+    public int getGames() {
+        return mGames;
+    }
+
+    public int getWhiteWins() {
+        return mWhiteWins;
+    }
+
+    public int getDraws() {
+        return mDraws;
+    }
+
+    public int getBlackWins() {
+        return mBlackWins;
+    }
+
+    /**
+     * @return the most common reply as a packed Move, or NO_MOVE when every game ended here.
+     */
+    public int getReplyMove() {
+        return mReplyMove;
+    }
+
+    public int getReplyGames() {
+        return mReplyGames;
+    }
+}
@@ -0,0 +1,445 @@
+package net.alexblass.chess.engine;
+
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.bitboard.Move;
+import net.alexblass.chess.model.bitboard.MoveGenerator;
+import net.alexblass.chess.model.bitboard.StaticExchange;
+
+import java.util.Arrays;
+
+/**
+ * Finds the best move for the side to move with a negamax alpha-beta search.
+ *
+ * The search deepens one ply at a time until the time limit or the maximum depth is reached and
+ * always answers with the best move of the deepest completed iteration. From the fourth
+ * iteration on it starts with a narrow window around the previous score and only widens it when
+ * the score falls outside.
+ *
+ * Searched positions are kept in a transposition table, which may be shared with other searches.
+ * Its entries cut off repeated subtrees and supply the move to try first, the MoveOrderer decides
+ * the order of the rest.
+ *
+ * A search started without a time limit can ponder, searching the position after the move the
+ * opponent is expected to play. ponderHit() then gives it its time limit once that move has been
+ * played, so the iterations completed so far count towards the answer.
+ *
+ * A Search owns its position and buffers and is used by one thread at a time, stop() and
+ * ponderHit() may be called from any thread.
+ */
+public class Search {
+
+    public static final int MAX_PLY = 64;
+    public static final int INFINITY = 30000;
+    public static final int MATE_SCORE = 29000;
+    public static final int DRAW_SCORE = 0;
+    // Below every mate score, so a tablebase win is never mistaken for a mate in so many moves
+    public static final int TABLEBASE_WIN_SCORE = MATE_SCORE - 2 * MAX_PLY;
+    public static final int DEFAULT_TRANSPOSITION_TABLE_SIZE_MB = 16;
+
+    private static final int ASPIRATION_WINDOW = 50;
+    private static final int ASPIRATION_MIN_DEPTH = 4;
+    // Checking the clock is comparatively slow, so only do it every 2048 nodes
+    private static final int TIME_CHECK_MASK = 2047;
+
+    private final BitboardPosition mPosition;
+    private final TranspositionTable mTranspositionTable;
+    private final TranspositionTable.Statistics mTableStatistics = new TranspositionTable.Statistics();
+    private final Evaluation mEvaluation = new Evaluation();
+    private final MoveOrderer mMoveOrderer = new MoveOrderer();
+    private final int[] mMoves = new int[MAX_PLY * MoveGenerator.MAX_MOVES];
+    private final int[][] mPrincipalVariation = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] mPrincipalVariationLength = new int[MAX_PLY + 1];
+
+    private SearchListener mSearchListener;
+    private Tablebase mTablebase;
+    private volatile boolean mIsStopped;
+    private long mNodes;
+    private long mStartTime;
+    private volatile long mDeadline = Long.MAX_VALUE;
+    // The first iteration always completes so there is a move to answer with
+    private volatile boolean mIsDeadlineActive;
+
+    public Search(BitboardPosition position) {
+        this(position, new TranspositionTable(DEFAULT_TRANSPOSITION_TABLE_SIZE_MB));
+    }
+
+    public Search(BitboardPosition position, TranspositionTable transpositionTable) {
+        mPosition = position;
+        mTranspositionTable = transpositionTable;
+    }
+
+    /**
+     * Searches the position until the time runs out or maxDepth is completed.
+     * @return the result of the deepest completed iteration, with no best move when the side to
+     * move has no legal moves.
+     */
+    public SearchResult search(long timeLimitMillis, int maxDepth) {
+        mIsStopped = false;
+        mTranspositionTable.newSearch();
+        return iterate(timeLimitMillis, 1, maxDepth);
+    }
+
+    /**
+     * Searches the position until stop() is called, or until the time given to ponderHit() runs
+     * out. Unlike search() it keeps a stop() or ponderHit() that came before it started, so a
+     * pondering search can be cancelled while it is still waiting for a thread. A Search
+     * ponders only once.
+     * @return the result of the deepest completed iteration.
+     */
+    public SearchResult ponder() {
+        mTranspositionTable.newSearch();
+        mStartTime = System.currentTimeMillis();
+        return deepen(1, MAX_PLY);
+    }
+
+    /**
+     * Runs the iterative deepening loop from startDepth. Unlike search() this neither clears the
+     * stop flag nor ages the transposition table, so a ParallelSearch can do both once for all
+     * of its workers.
+     */
+    SearchResult iterate(long timeLimitMillis, int startDepth, int maxDepth) {
+        mStartTime = System.currentTimeMillis();
+        mDeadline = getDeadline(mStartTime, timeLimitMillis);
+        return deepen(startDepth, maxDepth);
+    }
+
+    /**
+     * Ends pondering: the running search now stops timeLimitMillis from now instead of running
+     * until it is stopped.
+     */
+    public void ponderHit(long timeLimitMillis) {
+        mDeadline = getDeadline(System.currentTimeMillis(), timeLimitMillis);
+    }
+
+    public void stop() {
+        mIsStopped = true;
+    }
+
+    public boolean isStopped() {
+        return mIsStopped;
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return mTranspositionTable;
+    }
+
+    /**
+     * @return the transposition table probes of the last search, counted by this search alone.
+     */
+    public TranspositionTable.Statistics getTableStatistics() {
+        return mTableStatistics;
+    }
+
+    public Evaluation getEvaluation() {
+        return mEvaluation;
+    }
+
+    public void setSearchListener(SearchListener searchListener) {
+        mSearchListener = searchListener;
+    }
+
+    /**
+     * Lets the search score positions covered by the tablebase without searching them.
+     */
+    public void setTablebase(Tablebase tablebase) {
+        mTablebase = tablebase;
+    }
+
+    public static boolean isMateScore(int score) {
+        return Math.abs(score) > MATE_SCORE - MAX_PLY;
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private SearchResult deepen(int startDepth, int maxDepth) {
+        mNodes = 0L;
+        mTableStatistics.reset();
+        mMoveOrderer.newSearch();
+        mIsDeadlineActive = false;
+
+        SearchResult result = new SearchResult(new int[0], DRAW_SCORE, 0, 0L, 0L);
+        int score = DRAW_SCORE;
+        for (int depth = startDepth; depth <= Math.min(maxDepth, MAX_PLY); depth++) {
+            score = searchWithAspirationWindow(depth, score);
+            if (mIsStopped) {
+                break;
+            }
+
+            int[] principalVariation = getPrincipalVariation(depth);
+            result = new SearchResult(principalVariation, score, depth, mNodes,
+                    System.currentTimeMillis() - mStartTime);
+            if (mSearchListener != null) {
+                mSearchListener.onIterationComplete(result);
+            }
+            if (principalVariation.length == 0 || isMateScore(score)) {
+                break;
+            }
+            mIsDeadlineActive = true;
+        }
+        return result;
+    }
+
+    private int searchWithAspirationWindow(int depth, int previousScore) {
+        if (depth < ASPIRATION_MIN_DEPTH || isMateScore(previousScore)) {
+            return negamax(depth, -INFINITY, INFINITY, 0, 0);
+        }
+
+        int delta = ASPIRATION_WINDOW;
+        int alpha = Math.max(previousScore - delta, -INFINITY);
+        int beta = Math.min(previousScore + delta, INFINITY);
+        while (true) {
+            int score = negamax(depth, alpha, beta, 0, 0);
+            if (mIsStopped) {
+                return score;
+            }
+            if (score <= alpha) {
+                alpha = Math.max(score - delta, -INFINITY);
+            } else if (score >= beta) {
+                beta = Math.min(score + delta, INFINITY);
+            } else {
+                return score;
+            }
+            delta *= 2;
+        }
+    }
+
+    private int negamax(int depth, int alpha, int beta, int ply, int moveStart) {
+        mPrincipalVariationLength[ply] = ply;
+        boolean isInCheck = mPosition.isInCheck();
+        if (depth <= 0 && !isInCheck) {
+            return quiescence(alpha, beta, ply, moveStart);
+        }
+
+        if (countNode()) {
+            return 0;
+        }
+        if (ply > 0 && (mPosition.isRepetition() || mPosition.getHalfmoveClock() >= 100)) {
+            return DRAW_SCORE;
+        }
+        if (ply > 0 && mTablebase != null) {
+            int wdl = mTablebase.probeWdl(mPosition);
+            if (wdl != Tablebase.UNKNOWN) {
+                return getTablebaseScore(wdl, ply);
+            }
+        }
+        if (isInCheck) {
+            // Look one ply further so a check at the horizon can't hide a mate
+            depth++;
+        }
+        if (ply >= MAX_PLY - 1) {
+            return mEvaluation.evaluate(mPosition);
+        }
+
+        long key = mPosition.getZobristKey();
+        long entry = mTranspositionTable.probe(key, mTableStatistics);
+        int hashMove = Move.NO_MOVE;
+        if (entry != TranspositionTable.EMPTY) {
+            hashMove = TranspositionTable.getMove(entry);
+            // The root always searches so that it has a best move to answer with
+            if (ply > 0 && TranspositionTable.getDepth(entry) >= depth) {
+                int hashScore = scoreFromTable(TranspositionTable.getScore(entry), ply);
+                int bound = TranspositionTable.getBound(entry);
+                if (bound == TranspositionTable.BOUND_EXACT
+                        || (bound == TranspositionTable.BOUND_LOWER && hashScore >= beta)
+                        || (bound == TranspositionTable.BOUND_UPPER && hashScore <= alpha)) {
+                    return hashScore;
+                }
+            }
+        }
+
+        int moveCount = MoveGenerator.generateLegalMoves(mPosition, mMoves, moveStart);
+        if (moveCount == 0) {
+            return isInCheck ? -MATE_SCORE + ply : DRAW_SCORE;
+        }
+        int moveEnd = moveStart + moveCount;
+        if (hashMove == Move.NO_MOVE && mPrincipalVariationLength[0] > ply) {
+            hashMove = mPrincipalVariation[0][ply];
+        }
+        mMoveOrderer.scoreMoves(mPosition, mMoves, moveStart, moveEnd, hashMove, ply);
+
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = Move.NO_MOVE;
+        for (int i = moveStart; i < moveEnd; i++) {
+            int move = mMoveOrderer.selectNext(mMoves, i, moveEnd);
+            mPosition.makeMove(move);
+            int score = -negamax(depth - 1, -beta, -alpha, ply + 1, moveEnd);
+            mPosition.unmakeMove();
+            if (mIsStopped) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    if (score >= beta) {
+                        mMoveOrderer.onCutoff(move, ply, depth);
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = bestScore >= beta ? TranspositionTable.BOUND_LOWER
+                : bestScore > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+        mTranspositionTable.store(key, bound == TranspositionTable.BOUND_UPPER ? Move.NO_MOVE : bestMove,
+                scoreToTable(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    /**
+     * Plays out captures and promotions until the position is quiet, so the evaluation is never
+     * taken in the middle of an exchange. The side to move may stand pat on the static evaluation
+     * instead of capturing, and captures that lose material by static exchange are skipped. In
+     * check every evasion is searched since standing pat isn't an option.
+     */
+    private int quiescence(int alpha, int beta, int ply, int moveStart) {
+        mPrincipalVariationLength[ply] = ply;
+        if (countNode()) {
+            return 0;
+        }
+        if (ply >= MAX_PLY - 1) {
+            return mEvaluation.evaluate(mPosition);
+        }
+
+        boolean isInCheck = mPosition.isInCheck();
+        int bestScore = -INFINITY;
+        int moveCount;
+        if (isInCheck) {
+            moveCount = MoveGenerator.generateLegalMoves(mPosition, mMoves, moveStart);
+            if (moveCount == 0) {
+                return -MATE_SCORE + ply;
+            }
+        } else {
+            bestScore = mEvaluation.evaluate(mPosition);
+            if (bestScore >= beta) {
+                return bestScore;
+            }
+            alpha = Math.max(alpha, bestScore);
+            moveCount = MoveGenerator.generateLegalCaptures(mPosition, mMoves, moveStart);
+        }
+        int moveEnd = moveStart + moveCount;
+        mMoveOrderer.scoreMoves(mPosition, mMoves, moveStart, moveEnd, Move.NO_MOVE, ply);
+
+        for (int i = moveStart; i < moveEnd; i++) {
+            int move = mMoveOrderer.selectNext(mMoves, i, moveEnd);
+            if (!isInCheck && !StaticExchange.isAtLeast(mPosition, move, 0)) {
+                continue;
+            }
+
+            mPosition.makeMove(move);
+            int score = -quiescence(-beta, -alpha, ply + 1, moveEnd);
+            mPosition.unmakeMove();
+            if (mIsStopped) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    if (score >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    /**
+     * Counts a visited node and checks the clock every few thousand nodes.
+     * @return true when the search has been stopped.
+     */
+    private boolean countNode() {
+        if ((++mNodes & TIME_CHECK_MASK) == 0 && mIsDeadlineActive && System.currentTimeMillis() >= mDeadline) {
+            mIsStopped = true;
+        }
+        return mIsStopped;
+    }
+
+    /**
+     * Prefers the quickest win and the slowest loss, like mate scores. A result the fifty-move
+     * rule turns into a draw scores as one.
+     */
+    private static int getTablebaseScore(int wdl, int ply) {
+        if (wdl == Tablebase.WDL_WIN) {
+            return TABLEBASE_WIN_SCORE - ply;
+        }
+        if (wdl == Tablebase.WDL_LOSS) {
+            return -TABLEBASE_WIN_SCORE + ply;
+        }
+        return DRAW_SCORE;
+    }
+
+    private static long getDeadline(long startTime, long timeLimitMillis) {
+        // Long.MAX_VALUE means no time limit and must not overflow
+        return timeLimitMillis > Long.MAX_VALUE - startTime ? Long.MAX_VALUE : startTime + timeLimitMillis;
+    }
+
+    /**
+     * Mate scores are stored relative to the position rather than the root, so that the entry
+     * stays correct when the position is reached at another ply.
+     */
+    private static int scoreToTable(int score, int ply) {
+        if (isMateScore(score)) {
+            return score > 0 ? score + ply : score - ply;
+        }
+        return score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        if (isMateScore(score)) {
+            return score > 0 ? score - ply : score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * Returns the searched line, followed further through the hash moves when a table cutoff
+     * ended it early. This keeps a ponder move available after shallow cutoffs.
+     */
+    private int[] getPrincipalVariation(int depth) {
+        int length = mPrincipalVariationLength[0];
+        int[] line = Arrays.copyOf(mPrincipalVariation[0], Math.max(length, Math.min(depth, MAX_PLY)));
+        for (int i = 0; i < length; i++) {
+            mPosition.makeMove(line[i]);
+        }
+        while (length < line.length && length > 0) {
+            long entry = mTranspositionTable.probe(mPosition.getZobristKey());
+            int move = entry == TranspositionTable.EMPTY ? Move.NO_MOVE : TranspositionTable.getMove(entry);
+            if (move == Move.NO_MOVE || !isLegalMove(move, length)) {
+                break;
+            }
+            mPosition.makeMove(move);
+            line[length++] = move;
+        }
+        for (int i = 0; i < length; i++) {
+            mPosition.unmakeMove();
+        }
+        return Arrays.copyOf(line, length);
+    }
+
+    private boolean isLegalMove(int move, int ply) {
+        int start = ply * MoveGenerator.MAX_MOVES;
+        int end = start + MoveGenerator.generateLegalMoves(mPosition, mMoves, start);
+        for (int i = start; i < end; i++) {
+            if (mMoves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void updatePrincipalVariation(int ply, int move) {
+        int[] line = mPrincipalVariation[ply];
+        int[] childLine = mPrincipalVariation[ply + 1];
+        line[ply] = move;
+        int childLength = mPrincipalVariationLength[ply + 1];
+        System.arraycopy(childLine, ply + 1, line, ply + 1, childLength - ply - 1);
+        mPrincipalVariationLength[ply] = Math.max(childLength, ply + 1);
+    }
+}
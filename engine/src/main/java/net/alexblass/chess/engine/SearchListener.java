@@ -0,0 +1,12 @@
+package net.alexblass.chess.engine;
+
+/**
+ * Receives progress from a running search.
+ */
+public interface SearchListener {
+
+    /**
+     * Called from the searching thread each time another depth has been fully searched.
+     */
+    void onIterationComplete(SearchResult result);
+}
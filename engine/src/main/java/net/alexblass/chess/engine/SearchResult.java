@@ -0,0 +1,69 @@
+package net.alexblass.chess.engine;
+
+import net.alexblass.chess.model.bitboard.Move;
+
+/**
+ * The outcome of a completed search iteration: the best move, its score and how much work
+ * it took to find.
+ */
+public class SearchResult {
+
+    private final int[] mPrincipalVariation;
+    private final int mScore;
+    private final int mDepth;
+    private final long mNodes;
+    private final long mElapsedMillis;
+
+    public SearchResult(int[] principalVariation, int score, int depth, long nodes, long elapsedMillis) {
+        mPrincipalVariation = principalVariation;
+        mScore = score;
+        mDepth = depth;
+        mNodes = nodes;
+        mElapsedMillis = elapsedMillis;
+    }
+
+    public int getBestMove() {
+        return mPrincipalVariation.length > 0 ? mPrincipalVariation[0] : Move.NO_MOVE;
+    }
+
+    /**
+     * The reply the search expects from the opponent, or NO_MOVE when it doesn't know one.
+     */
+    public int getPonderMove() {
+        return mPrincipalVariation.length > 1 ? mPrincipalVariation[1] : Move.NO_MOVE;
+    }
+
+    public int[] getPrincipalVariation() {
+        return mPrincipalVariation.clone();
+    }
+
+    public int getScore() {
+        return mScore;
+    }
+
+    public int getDepth() {
+        return mDepth;
+    }
+
+    public long getNodes() {
+        return mNodes;
+    }
+
+    public long getElapsedMillis() {
+        return mElapsedMillis;
+    }
+
+    public long getNodesPerSecond() {
+        return mNodes * 1000L / Math.max(1L, mElapsedMillis);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder pv = new StringBuilder();
+        for (int move : mPrincipalVariation) {
+            pv.append(' ').append(Move.toNotation(move));
+        }
+        return "depth " + mDepth + " score " + mScore + " nodes " + mNodes
+                + " nps " + getNodesPerSecond() + " time " + mElapsedMillis + " pv" + pv;
+    }
+}
@@ -0,0 +1,358 @@
+package net.alexblass.chess.engine;
+
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.bitboard.Bitboards;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Inflater;
+
+import static net.alexblass.chess.model.bitboard.Bitboards.BLACK;
+import static net.alexblass.chess.model.bitboard.Bitboards.KING;
+import static net.alexblass.chess.model.bitboard.Bitboards.PAWN;
+import static net.alexblass.chess.model.bitboard.Bitboards.WHITE;
+
+/**
+ * Looks up the game theoretical result of positions with few pieces in endgame tablebase files,
+ * from a local directory or mapped by the caller, for example from uncompressed assets.
+ *
+ * Every material signature has a WDL file, named like KQvK.wdl, and may have a DTZ file,
+ * KQvK.dtz, with one value for every placement of its pieces with either side to move. A
+ * position is indexed by the side to move and then the square of each piece, in the order of the
+ * signature and lowest square first among equal pieces. Positions where black has the stronger
+ * material are looked up in the file of the colour flipped signature. Tables assume no castling
+ * rights and no en passant square, other positions are not probed.
+ *
+ * The files are mapped when the Tablebase is created and their blocks inflated on demand.
+ * The search probes at every node of an endgame, so a probe allocates nothing: files are found
+ * by a material key packed from the piece counts, and every thread keeps its own most recently
+ * used blocks and inflater, so the threads of a parallel search never wait for one another.
+ */
+public class Tablebase {
+
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+
+    /** Results from the point of view of the side to move. */
+    public static final int WDL_LOSS = -2;
+    /** Lost, but drawn by the fifty-move rule. */
+    public static final int WDL_BLESSED_LOSS = -1;
+    public static final int WDL_DRAW = 0;
+    /** Won, but drawn by the fifty-move rule. */
+    public static final int WDL_CURSED_WIN = 1;
+    public static final int WDL_WIN = 2;
+
+    public static final int DEFAULT_CACHE_BLOCKS = 64;
+
+    static final String WDL_EXTENSION = ".wdl";
+    static final String DTZ_EXTENSION = ".dtz";
+    // Stored DTZ values are unsigned bytes and this one means the distance didn't fit
+    static final int DTZ_OVERFLOW = 255;
+
+    private static final String PIECE_LETTERS = "PNBRQK";
+    // Piece counts take four bits each, the stronger side's pawns to queens first
+    private static final int COUNT_BITS = 4;
+    private static final long NO_MATERIAL = -1L;
+
+    private final int mMaxPieces;
+    // Open addressing by material key, with the files of each signature at the same slot
+    private final long[] mMaterialKeys;
+    private final TablebaseFile[] mWdlFiles;
+    private final TablebaseFile[] mDtzFiles;
+    private final ThreadLocal<BlockCache> mBlockCaches;
+
+    public Tablebase(File directory) {
+        this(directory, DEFAULT_CACHE_BLOCKS);
+    }
+
+    /**
+     * Maps every readable WDL file of the directory and the DTZ files next to them.
+     * @param cacheBlocks the number of inflated blocks to keep.
+     */
+    public Tablebase(File directory, int cacheBlocks) {
+        this(mapFiles(directory), cacheBlocks);
+    }
+
+    /**
+     * Uses the readable WDL files among the buffers and the DTZ files next to them.
+     * @param files the whole content of each file, keyed by its name like KQvK.wdl.
+     * @param cacheBlocks the number of inflated blocks to keep.
+     */
+    public Tablebase(Map<String, ByteBuffer> files, final int cacheBlocks) {
+        Set<String> names = files.keySet();
+        int slotCount = Integer.highestOneBit(Math.max(names.size(), 4) * 4);
+        mMaterialKeys = new long[slotCount];
+        Arrays.fill(mMaterialKeys, NO_MATERIAL);
+        mWdlFiles = new TablebaseFile[slotCount];
+        mDtzFiles = new TablebaseFile[slotCount];
+
+        int maxPieces = 0;
+        int fileCount = 0;
+        for (String name : names) {
+            if (!name.endsWith(WDL_EXTENSION)) {
+                continue;
+            }
+            String signature = name.substring(0, name.length() - WDL_EXTENSION.length());
+            long materialKey = parseMaterialKey(signature);
+            TablebaseFile wdlFile = materialKey == NO_MATERIAL ? null
+                    : openFile(files, name, fileCount++);
+            if (wdlFile == null) {
+                continue;
+            }
+            int slot = findSlot(materialKey);
+            mMaterialKeys[slot] = materialKey;
+            mWdlFiles[slot] = wdlFile;
+            mDtzFiles[slot] = openFile(files, signature + DTZ_EXTENSION, fileCount++);
+            // Every letter of the signature but the separator is a piece
+            maxPieces = Math.max(maxPieces, signature.length() - 1);
+        }
+        mMaxPieces = maxPieces;
+
+        mBlockCaches = new ThreadLocal<BlockCache>() {
+            @Override
+            protected BlockCache initialValue() {
+                return new BlockCache(cacheBlocks);
+            }
+        };
+    }
+
+    /**
+     * @return the most pieces of any WDL file in the directory, 0 when there are none.
+     */
+    public int getMaxPieces() {
+        return mMaxPieces;
+    }
+
+    /**
+     * @return one of the WDL results for the side to move, or UNKNOWN when the position isn't
+     * covered by the files.
+     */
+    public int probeWdl(BitboardPosition position) {
+        if (!isProbeable(position)) {
+            return UNKNOWN;
+        }
+        int value = probe(position, mWdlFiles);
+        return value == UNKNOWN ? UNKNOWN : value + WDL_LOSS;
+    }
+
+    /**
+     * @return the number of plies to the next capture, pawn move or mate with best play, positive
+     * when the side to move wins and negative when it loses, 0 for a draw, or UNKNOWN when the
+     * position isn't covered by the files.
+     */
+    public int probeDtz(BitboardPosition position) {
+        int wdl = probeWdl(position);
+        if (wdl == UNKNOWN || wdl == WDL_DRAW) {
+            return wdl == WDL_DRAW ? 0 : UNKNOWN;
+        }
+        int distance = probe(position, mDtzFiles);
+        if (distance == UNKNOWN || distance == DTZ_OVERFLOW) {
+            return UNKNOWN;
+        }
+        return wdl > 0 ? distance : -distance;
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private boolean isProbeable(BitboardPosition position) {
+        return Bitboards.count(position.getOccupancy()) <= mMaxPieces
+                && position.getCastlingRights() == 0
+                && position.getEnPassantSquare() == Bitboards.NO_SQUARE;
+    }
+
+    /**
+     * @return the stored byte for the position, or UNKNOWN when there is no file for it.
+     */
+    private int probe(BitboardPosition position, TablebaseFile[] files) {
+        boolean isFlipped = false;
+        int slot = findSlot(getMaterialKey(position, WHITE));
+        if (mMaterialKeys[slot] == NO_MATERIAL) {
+            isFlipped = true;
+            slot = findSlot(getMaterialKey(position, BLACK));
+        }
+        TablebaseFile file = files[slot];
+        if (file == null) {
+            return UNKNOWN;
+        }
+
+        long index = getIndex(position, isFlipped);
+        if (index >= file.getValueCount()) {
+            return UNKNOWN;
+        }
+        byte[] values = mBlockCaches.get().getBlock(file, (int) (index / file.getBlockSize()));
+        return values == null ? UNKNOWN : values[(int) (index % file.getBlockSize())] & 0xFF;
+    }
+
+    /**
+     * @return the slot holding the material key, or the empty slot where it would go.
+     */
+    private int findSlot(long materialKey) {
+        int mask = mMaterialKeys.length - 1;
+        // Less than half of the slots are used, so there is always an empty one to stop at
+        int slot = (int) ((materialKey * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+        while (mMaterialKeys[slot] != materialKey && mMaterialKeys[slot] != NO_MATERIAL) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * @return the piece counts other than the kings packed into a key, those of the first color
+     * first.
+     */
+    private static long getMaterialKey(BitboardPosition position, int firstColor) {
+        long key = 0L;
+        for (int type = PAWN; type < KING; type++) {
+            key |= (long) Bitboards.count(position.getPieces(firstColor, type)) << (type * COUNT_BITS);
+            key |= (long) Bitboards.count(position.getPieces(firstColor ^ 1, type)) << ((KING + type) * COUNT_BITS);
+        }
+        return key;
+    }
+
+    /**
+     * @return the material key of a signature like KRvKP, or NO_MATERIAL when it isn't one.
+     */
+    private static long parseMaterialKey(String signature) {
+        int separator = signature.indexOf('v');
+        if (separator < 0 || signature.indexOf('v', separator + 1) >= 0) {
+            return NO_MATERIAL;
+        }
+        long key = 0L;
+        int[] kings = new int[2];
+        for (int i = 0; i < signature.length(); i++) {
+            if (i == separator) {
+                continue;
+            }
+            int color = i < separator ? WHITE : BLACK;
+            int type = PIECE_LETTERS.indexOf(signature.charAt(i));
+            if (type < 0) {
+                return NO_MATERIAL;
+            }
+            if (type == KING) {
+                kings[color]++;
+            } else {
+                key += 1L << ((color * KING + type) * COUNT_BITS);
+            }
+        }
+        return kings[WHITE] == 1 && kings[BLACK] == 1 ? key : NO_MATERIAL;
+    }
+
+    /**
+     * @return the tablebase files of the directory that could be mapped, by name.
+     */
+    private static Map<String, ByteBuffer> mapFiles(File directory) {
+        Map<String, ByteBuffer> files = new HashMap<>();
+        String[] names = directory.list();
+        if (names == null) {
+            return files;
+        }
+        for (String name : names) {
+            if (name.endsWith(WDL_EXTENSION) || name.endsWith(DTZ_EXTENSION)) {
+                try {
+                    files.put(name, TablebaseFile.map(new File(directory, name)));
+                } catch (IOException e) {
+                    // Probed as missing
+                }
+            }
+        }
+        return files;
+    }
+
+    /**
+     * @return the file, or null when there is none by that name or it can't be read.
+     */
+    private static TablebaseFile openFile(Map<String, ByteBuffer> files, String name, int id) {
+        ByteBuffer buffer = files.get(name);
+        if (buffer == null) {
+            return null;
+        }
+        try {
+            return new TablebaseFile(buffer, name, id);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Indexes the position as seen by the file. A flipped file sees black as white, on the board
+     * turned upside down.
+     */
+    static long getIndex(BitboardPosition position, boolean isFlipped) {
+        int firstColor = isFlipped ? BLACK : WHITE;
+        int mirror = isFlipped ? 56 : 0;
+        long index = position.getSideToMove() ^ (isFlipped ? 1 : 0);
+        for (int color = firstColor, i = 0; i < 2; color ^= 1, i++) {
+            for (int type = KING; type >= PAWN; type--) {
+                // Mirroring can change the order of equal pieces, so they are sorted again
+                long pieces = position.getPieces(color, type);
+                long mirrored = 0L;
+                for (; pieces != 0L; pieces &= pieces - 1) {
+                    mirrored |= Bitboards.bit(Bitboards.lowestSquare(pieces) ^ mirror);
+                }
+                for (; mirrored != 0L; mirrored &= mirrored - 1) {
+                    index = index * Bitboards.SQUARES + Bitboards.lowestSquare(mirrored);
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * One thread's most recently used blocks, keyed by file id and block, with the buffers to
+     * inflate them. Least recently used blocks are replaced and their arrays reused.
+     */
+    private static class BlockCache {
+        private static final long NO_BLOCK = -1L;
+        private static final int INPUT_BYTES = 4096;
+
+        private final long[] mKeys;
+        private final byte[][] mBlocks;
+        private final long[] mLastUses;
+        private long mClock;
+        private final Inflater mInflater = new Inflater();
+        private final byte[] mInput = new byte[INPUT_BYTES];
+
+        BlockCache(int capacity) {
+            mKeys = new long[capacity];
+            Arrays.fill(mKeys, NO_BLOCK);
+            mBlocks = new byte[capacity][];
+            mLastUses = new long[capacity];
+        }
+
+        /**
+         * @return the values of the block, or null when it can't be read.
+         */
+        byte[] getBlock(TablebaseFile file, int block) {
+            long key = ((long) file.getId() << 32) | block;
+            int oldest = 0;
+            for (int i = 0; i < mKeys.length; i++) {
+                if (mKeys[i] == key) {
+                    mLastUses[i] = ++mClock;
+                    return mBlocks[i];
+                }
+                if (mLastUses[i] < mLastUses[oldest]) {
+                    oldest = i;
+                }
+            }
+
+            byte[] values = mBlocks[oldest];
+            if (values == null || values.length < file.getBlockSize()) {
+                values = new byte[file.getBlockSize()];
+                mBlocks[oldest] = values;
+            }
+            // A block that failed to read must not be found half overwritten
+            mKeys[oldest] = NO_BLOCK;
+            try {
+                file.readBlock(block, mInflater, mInput, values);
+            } catch (IOException e) {
+                return null;
+            }
+            mKeys[oldest] = key;
+            mLastUses[oldest] = ++mClock;
+            return values;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package net.alexblass.chess.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * One memory-mapped tablebase file: a value of one byte for every position of one material
+ * signature, deflated in fixed-size blocks so a probe only inflates the block it needs.
+ *
+ * Layout, big-endian: the magic number, the piece count, the number of values per block, the
+ * block count and the value count, followed by blockCount + 1 file offsets whose neighbours
+ * bound each compressed block, followed by the blocks themselves.
+ */
+class TablebaseFile {
+
+    static final int MAGIC = 0x43544231;
+
+    static final int HEADER_BYTES = 24;
+
+    private final ByteBuffer mBuffer;
+    private final int mId;
+    private final int mPieceCount;
+    private final int mBlockSize;
+    private final int mBlockCount;
+    private final long mValueCount;
+
+    /**
+     * @param buffer the whole file, read with absolute gets only so threads can share it.
+     * @param name the file name, for error messages.
+     */
+    TablebaseFile(ByteBuffer buffer, String name, int id) throws IOException {
+        mBuffer = buffer;
+        if (mBuffer.capacity() < HEADER_BYTES || mBuffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a tablebase file: " + name);
+        }
+        mId = id;
+        mPieceCount = mBuffer.getInt(4);
+        mBlockSize = mBuffer.getInt(8);
+        mBlockCount = mBuffer.getInt(12);
+        mValueCount = mBuffer.getLong(16);
+        if (mBlockSize <= 0 || mBlockCount < 0 || mValueCount < 0L || (long) mBlockCount * mBlockSize < mValueCount
+                || getDataOffset() > mBuffer.capacity()
+                || getBlockOffset(mBlockCount) > mBuffer.capacity()) {
+            throw new IOException("Corrupt tablebase file: " + name);
+        }
+    }
+
+    /**
+     * Maps the whole file read-only.
+     */
+    static ByteBuffer map(File file) throws IOException {
+        RandomAccessFile tablebaseFile = new RandomAccessFile(file, "r");
+        try {
+            return tablebaseFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0L, tablebaseFile.length());
+        } finally {
+            tablebaseFile.close();
+        }
+    }
+
+    int getId() {
+        return mId;
+    }
+
+    int getPieceCount() {
+        return mPieceCount;
+    }
+
+    int getBlockSize() {
+        return mBlockSize;
+    }
+
+    long getValueCount() {
+        return mValueCount;
+    }
+
+    /**
+     * Inflates one block into values, which must hold getBlockSize() values. The compressed bytes
+     * are passed to the inflater through input, as much at a time as it holds.
+     * @return the number of values in the block, only the last one may have fewer than
+     * getBlockSize().
+     */
+    int readBlock(int block, Inflater inflater, byte[] input, byte[] values) throws IOException {
+        long start = getBlockOffset(block);
+        long end = getBlockOffset(block + 1);
+        // Offsets of a damaged file would otherwise fail with runtime exceptions in the search
+        if (start < getDataOffset() || end < start || end > mBuffer.capacity()) {
+            throw new IOException("Corrupt tablebase block offsets " + start + " to " + end + " of block " + block);
+        }
+
+        int length = (int) Math.min(mBlockSize, mValueCount - (long) block * mBlockSize);
+        int position = (int) start;
+        int inflated = 0;
+        inflater.reset();
+        try {
+            while (inflated < length && !inflater.finished()) {
+                if (inflater.needsInput()) {
+                    if (position == end) {
+                        break;
+                    }
+                    int count = (int) Math.min(input.length, end - position);
+                    for (int i = 0; i < count; i++) {
+                        input[i] = mBuffer.get(position + i);
+                    }
+                    inflater.setInput(input, 0, count);
+                    position += count;
+                } else if (inflater.needsDictionary()) {
+                    break;
+                }
+                inflated += inflater.inflate(values, inflated, length - inflated);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt tablebase block " + block, e);
+        }
+        if (inflated != length) {
+            throw new IOException("Truncated tablebase block " + block);
+        }
+        return length;
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private long getBlockOffset(int block) {
+        return mBuffer.getLong(HEADER_BYTES + block * 8);
+    }
+
+    /**
+     * @return where the blocks start, right after the offsets table.
+     */
+    private long getDataOffset() {
+        return HEADER_BYTES + (mBlockCount + 1L) * 8;
+    }
+}
@@ -0,0 +1,218 @@
+package net.alexblass.chess.engine;
+
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.bitboard.Bitboards;
+import net.alexblass.chess.model.bitboard.Move;
+import net.alexblass.chess.model.bitboard.MoveGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static net.alexblass.chess.model.bitboard.Bitboards.BLACK;
+import static net.alexblass.chess.model.bitboard.Bitboards.KING;
+import static net.alexblass.chess.model.bitboard.Bitboards.NO_SQUARE;
+import static net.alexblass.chess.model.bitboard.Bitboards.WHITE;
+
+/**
+ * Solves the three piece endgames of a king and one piece against a lone king, KQvK, KRvK,
+ * KBvK and KNvK, and writes their WDL and DTZ files for Tablebase.
+ *
+ * Works backwards from the mates: the moves of every position are generated once, then each
+ * round marks the positions won by a move to a position lost in an earlier round, and the
+ * positions lost because every move leads to one already won.
+ * Any capture takes the only piece there is to take and draws, so these endgames have no zeroing
+ * moves but captures and the distance to zeroing is the distance to mate.
+ *
+ * Run with ./gradlew :engine:generateTablebases, or run the class with the directory and the
+ * signatures as its arguments.
+ */
+public final class TablebaseGenerator {
+
+    public static final String[] THREE_PIECE_SIGNATURES = {"KQvK", "KRvK", "KBvK", "KNvK"};
+
+    private static final int PIECE_COUNT = 3;
+    private static final String PIECE_LETTERS = "PNBRQK";
+    // A win further away than this is drawn by the fifty-move rule
+    private static final int FIFTY_MOVE_PLIES = 100;
+
+    private static final byte ILLEGAL = 0;
+    private static final byte UNRESOLVED = 1;
+    private static final byte WIN = 2;
+    private static final byte LOSS = 3;
+    private static final byte DRAW = 4;
+
+    private TablebaseGenerator() {
+    }
+
+    /**
+     * Writes the signature's .wdl and .dtz files into the directory.
+     * @throws IllegalArgumentException for a signature other than THREE_PIECE_SIGNATURES.
+     */
+    public static void generate(String signature, File directory) throws IOException {
+        int pieceType = getPieceType(signature);
+        int valueCount = 2 * Bitboards.SQUARES * Bitboards.SQUARES * Bitboards.SQUARES;
+        byte[] states = new byte[valueCount];
+        int[] distances = new int[valueCount];
+
+        // Moves are generated once, rounds then only walk the indices of the positions they lead to
+        int[] firstSuccessors = new int[valueCount + 1];
+        int[] successors = new int[valueCount * 4];
+        int successorCount = 0;
+        BitboardPosition position = new BitboardPosition();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int index = 0; index < valueCount; index++) {
+            firstSuccessors[index] = successorCount;
+            if (!setUp(position, index, pieceType)) {
+                states[index] = ILLEGAL;
+                continue;
+            }
+            int moveCount = MoveGenerator.generateLegalMoves(position, moves, 0);
+            states[index] = getTerminalState(position, moves, moveCount);
+            if (states[index] != UNRESOLVED) {
+                continue;
+            }
+            if (successorCount + moveCount > successors.length) {
+                successors = Arrays.copyOf(successors, successors.length * 2);
+            }
+            for (int i = 0; i < moveCount; i++) {
+                position.makeMove(moves[i]);
+                successors[successorCount++] = (int) Tablebase.getIndex(position, false);
+                position.unmakeMove();
+            }
+        }
+        firstSuccessors[valueCount] = successorCount;
+
+        // Each round only looks at positions resolved in the ones before, so distances are exact
+        for (int round = 1; ; round++) {
+            boolean isChanged = false;
+            for (int index = 0; index < valueCount; index++) {
+                if (states[index] != UNRESOLVED) {
+                    continue;
+                }
+                byte state = resolve(successors, firstSuccessors[index], firstSuccessors[index + 1],
+                        states, distances, round);
+                if (state != UNRESOLVED) {
+                    states[index] = state;
+                    distances[index] = round;
+                    isChanged = true;
+                }
+            }
+            if (!isChanged) {
+                break;
+            }
+        }
+
+        byte[] wdl = new byte[valueCount];
+        byte[] dtz = new byte[valueCount];
+        for (int index = 0; index < valueCount; index++) {
+            int result = Tablebase.WDL_DRAW;
+            if (states[index] == WIN) {
+                result = distances[index] > FIFTY_MOVE_PLIES ? Tablebase.WDL_CURSED_WIN : Tablebase.WDL_WIN;
+            } else if (states[index] == LOSS) {
+                result = distances[index] > FIFTY_MOVE_PLIES ? Tablebase.WDL_BLESSED_LOSS : Tablebase.WDL_LOSS;
+            }
+            wdl[index] = (byte) (result - Tablebase.WDL_LOSS);
+            if (result != Tablebase.WDL_DRAW) {
+                dtz[index] = (byte) Math.min(distances[index], Tablebase.DTZ_OVERFLOW);
+            }
+        }
+        TablebaseWriter.write(new File(directory, signature + Tablebase.WDL_EXTENSION), PIECE_COUNT, wdl,
+                TablebaseWriter.DEFAULT_BLOCK_SIZE);
+        TablebaseWriter.write(new File(directory, signature + Tablebase.DTZ_EXTENSION), PIECE_COUNT, dtz,
+                TablebaseWriter.DEFAULT_BLOCK_SIZE);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: TablebaseGenerator directory [signature...]");
+            System.exit(1);
+        }
+        File directory = new File(args[0]);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        String[] signatures = THREE_PIECE_SIGNATURES;
+        if (args.length > 1) {
+            signatures = new String[args.length - 1];
+            System.arraycopy(args, 1, signatures, 0, signatures.length);
+        }
+        for (String signature : signatures) {
+            long startTime = System.currentTimeMillis();
+            generate(signature, directory);
+            System.out.println(signature + ": " + (System.currentTimeMillis() - startTime) + " ms");
+        }
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private static int getPieceType(String signature) {
+        for (String supported : THREE_PIECE_SIGNATURES) {
+            if (supported.equals(signature)) {
+                return PIECE_LETTERS.indexOf(signature.charAt(1));
+            }
+        }
+        throw new IllegalArgumentException("Unsupported tablebase signature: " + signature);
+    }
+
+    /**
+     * Places the pieces of the index, in the order Tablebase indexes them: the side to move, then
+     * the white king, the white piece and the black king.
+     * @return false when the index isn't a legal position.
+     */
+    private static boolean setUp(BitboardPosition position, int index, int pieceType) {
+        int blackKing = index % Bitboards.SQUARES;
+        int whitePiece = index / Bitboards.SQUARES % Bitboards.SQUARES;
+        int whiteKing = index / (Bitboards.SQUARES * Bitboards.SQUARES) % Bitboards.SQUARES;
+        int sideToMove = index / (Bitboards.SQUARES * Bitboards.SQUARES * Bitboards.SQUARES);
+        if (whiteKing == whitePiece || whiteKing == blackKing || whitePiece == blackKing) {
+            return false;
+        }
+
+        position.clear();
+        position.putPiece(Bitboards.pieceCode(WHITE, KING), whiteKing);
+        position.putPiece(Bitboards.pieceCode(WHITE, pieceType), whitePiece);
+        position.putPiece(Bitboards.pieceCode(BLACK, KING), blackKing);
+        position.setSideToMove(sideToMove);
+        position.setCastlingRights(0);
+        position.setEnPassantSquare(NO_SQUARE);
+        // The side that just moved can't have left its king in check
+        return !position.isInCheck(sideToMove ^ 1);
+    }
+
+    /**
+     * @return LOSS for a mate, DRAW for a stalemate or when the last piece can be taken,
+     * UNRESOLVED otherwise.
+     */
+    private static byte getTerminalState(BitboardPosition position, int[] moves, int moveCount) {
+        if (moveCount == 0) {
+            return position.isInCheck() ? LOSS : DRAW;
+        }
+        for (int i = 0; i < moveCount; i++) {
+            // Only the lone king can capture, and taking the last piece draws
+            if (Move.isCapture(moves[i])) {
+                return DRAW;
+            }
+        }
+        return UNRESOLVED;
+    }
+
+    /**
+     * @return WIN when a move leads to a position lost in an earlier round, LOSS when every move
+     * leads to one won in an earlier round, UNRESOLVED otherwise.
+     */
+    private static byte resolve(int[] successors, int first, int end, byte[] states, int[] distances,
+                                int round) {
+        boolean isEveryMoveLost = true;
+        for (int i = first; i < end; i++) {
+            int next = successors[i];
+            boolean isResolved = states[next] != UNRESOLVED && distances[next] < round;
+            if (isResolved && states[next] == LOSS) {
+                return WIN;
+            }
+            if (!isResolved || states[next] != WIN) {
+                isEveryMoveLost = false;
+            }
+        }
+        return isEveryMoveLost ? LOSS : UNRESOLVED;
+    }
+}
@@ -0,0 +1,66 @@
+package net.alexblass.chess.engine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+
+/**
+ * Writes tablebase values in the block-deflated format TablebaseFile maps.
+ */
+public final class TablebaseWriter {
+
+    public static final int DEFAULT_BLOCK_SIZE = 32 * 1024;
+
+    private TablebaseWriter() {
+    }
+
+    /**
+     * Writes one value per index, replacing the file.
+     * @param blockSize the number of values per block, a probe inflates one whole block.
+     */
+    public static void write(File file, int pieceCount, byte[] values, int blockSize) throws IOException {
+        int blockCount = (values.length + blockSize - 1) / blockSize;
+        ByteArrayOutputStream blocks = new ByteArrayOutputStream();
+        long[] offsets = new long[blockCount + 1];
+        long dataOffset = TablebaseFile.HEADER_BYTES + (blockCount + 1L) * 8;
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        byte[] chunk = new byte[blockSize];
+        try {
+            for (int block = 0; block < blockCount; block++) {
+                offsets[block] = dataOffset + blocks.size();
+                int start = block * blockSize;
+                deflater.reset();
+                deflater.setInput(values, start, Math.min(blockSize, values.length - start));
+                deflater.finish();
+                while (!deflater.finished()) {
+                    blocks.write(chunk, 0, deflater.deflate(chunk));
+                }
+            }
+        } finally {
+            deflater.end();
+        }
+        offsets[blockCount] = dataOffset + blocks.size();
+
+        ByteBuffer header = ByteBuffer.allocate((int) dataOffset);
+        header.putInt(TablebaseFile.MAGIC);
+        header.putInt(pieceCount);
+        header.putInt(blockSize);
+        header.putInt(blockCount);
+        header.putLong(values.length);
+        for (long offset : offsets) {
+            header.putLong(offset);
+        }
+
+        FileOutputStream output = new FileOutputStream(file);
+        try {
+            output.write(header.array());
+            blocks.writeTo(output);
+        } finally {
+            output.close();
+        }
+    }
+}
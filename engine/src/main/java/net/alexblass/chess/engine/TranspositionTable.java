@@ -0,0 +1,219 @@
+package net.alexblass.chess.engine;
+
+import net.alexblass.chess.model.bitboard.Move;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size hash table of searched positions, keyed by Zobrist key.
+ *
+ * Each slot is two longs: the packed entry and the key XORed with it. A reader only accepts an
+ * entry when both halves XOR back to its key, so a slot torn by two threads writing at once is
+ * seen as a miss instead of a wrong result. That lets several searches share one table without
+ * locks.
+ *
+ * Entry layout: bits 0-24 move, 25-40 score + 32768, 41-47 depth, 48-49 bound, 50-57 generation.
+ * A stored entry always has a bound, so 0 is never a valid entry.
+ *
+ * The table itself keeps no counters, since every probe writing to a shared one would bounce its
+ * cache line between the searching threads. Each thread counts its own probes in Statistics
+ * instead, which are summed when asked for.
+ */
+public class TranspositionTable {
+
+    public static final long EMPTY = 0L;
+
+    /** The stored score is at most the true score. */
+    public static final int BOUND_UPPER = 1;
+    /** The stored score is at least the true score. */
+    public static final int BOUND_LOWER = 2;
+    public static final int BOUND_EXACT = 3;
+
+    private static final int BYTES_PER_ENTRY = 16;
+
+    private static final int MOVE_BITS = 25;
+    private static final long MOVE_MASK = (1L << MOVE_BITS) - 1;
+    private static final int SCORE_SHIFT = 25;
+    private static final int SCORE_OFFSET = 32768;
+    private static final int DEPTH_SHIFT = 41;
+    private static final int DEPTH_MASK = 0x7F;
+    private static final int BOUND_SHIFT = 48;
+    private static final int GENERATION_SHIFT = 50;
+    private static final int GENERATION_MASK = 0xFF;
+
+    // Package-private so tests can tear a slot the way two racing writers would
+    final long[] mTable;
+    private final int mIndexMask;
+    private final int mSizeMb;
+    private int mGeneration;
+
+    /**
+     * @param sizeMb the memory to use, rounded down to a power of two number of entries.
+     */
+    public TranspositionTable(int sizeMb) {
+        if (sizeMb < 1) {
+            throw new IllegalArgumentException("Transposition table size must be at least 1 MB: " + sizeMb);
+        }
+        long entries = Long.highestOneBit((long) sizeMb * 1024 * 1024 / BYTES_PER_ENTRY);
+        // Two longs per entry have to fit in one Java array
+        entries = Math.min(entries, 1 << 29);
+
+        mTable = new long[(int) entries * 2];
+        mIndexMask = (int) entries - 1;
+        mSizeMb = sizeMb;
+    }
+
+    /**
+     * @return the entry stored for this key, or EMPTY.
+     */
+    public long probe(long key) {
+        int index = index(key);
+        long entry = mTable[index + 1];
+        return (mTable[index] ^ entry) == key ? entry : EMPTY;
+    }
+
+    /**
+     * Probes like probe(key) and counts the outcome in the prober's own statistics.
+     * @return the entry stored for this key, or EMPTY.
+     */
+    public long probe(long key, Statistics statistics) {
+        int index = index(key);
+        long check = mTable[index];
+        long entry = mTable[index + 1];
+        if (entry == EMPTY) {
+            statistics.mMisses++;
+            return EMPTY;
+        }
+        if ((check ^ entry) != key) {
+            statistics.mCollisions++;
+            return EMPTY;
+        }
+        statistics.mHits++;
+        return entry;
+    }
+
+    /**
+     * Stores a search result, replacing the slot's entry unless that one is from the current
+     * search and was searched deeper for a different position.
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = index(key);
+        long check = mTable[index];
+        long oldEntry = mTable[index + 1];
+
+        if (oldEntry != EMPTY && (check ^ oldEntry) != key
+                && getGeneration(oldEntry) == mGeneration && getDepth(oldEntry) > depth) {
+            return;
+        }
+        // Keep the old best move when a search of the same position didn't find one
+        if (move == Move.NO_MOVE && (check ^ oldEntry) == key) {
+            move = getMove(oldEntry);
+        }
+
+        long entry = (move & MOVE_MASK)
+                | (long) (score + SCORE_OFFSET) << SCORE_SHIFT
+                | (long) (Math.max(depth, 0) & DEPTH_MASK) << DEPTH_SHIFT
+                | (long) bound << BOUND_SHIFT
+                | (long) mGeneration << GENERATION_SHIFT;
+        mTable[index] = key ^ entry;
+        mTable[index + 1] = entry;
+    }
+
+    /**
+     * Marks the entries stored so far as old, so the next search prefers to replace them.
+     */
+    public void newSearch() {
+        mGeneration = (mGeneration + 1) & GENERATION_MASK;
+    }
+
+    public void clear() {
+        Arrays.fill(mTable, 0L);
+        mGeneration = 0;
+    }
+
+    public int getSizeMb() {
+        return mSizeMb;
+    }
+
+    public int getCapacity() {
+        return mIndexMask + 1;
+    }
+
+    /**
+     * @return the share of the first thousand slots holding an entry from the current search.
+     */
+    public int getUsagePermille() {
+        int sampleSize = Math.min(1000, getCapacity());
+        int used = 0;
+        for (int i = 0; i < sampleSize; i++) {
+            long entry = mTable[i * 2 + 1];
+            if (entry != EMPTY && getGeneration(entry) == mGeneration) {
+                used++;
+            }
+        }
+        return used * 1000 / sampleSize;
+    }
+
+    // Entry accessors ////////////////////////////////////////////////////////////////////////////
+    public static int getMove(long entry) {
+        return (int) (entry & MOVE_MASK);
+    }
+
+    public static int getScore(long entry) {
+        return (int) ((entry >>> SCORE_SHIFT) & 0xFFFF) - SCORE_OFFSET;
+    }
+
+    public static int getDepth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & DEPTH_MASK;
+    }
+
+    public static int getBound(long entry) {
+        return (int) (entry >>> BOUND_SHIFT) & 3;
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private static int getGeneration(long entry) {
+        return (int) (entry >>> GENERATION_SHIFT) & GENERATION_MASK;
+    }
+
+    private int index(long key) {
+        return ((int) (key ^ (key >>> 32)) & mIndexMask) * 2;
+    }
+
+    /**
+     * The probe counts of one thread, or the sum of several threads' counts.
+     */
+    public static final class Statistics {
+
+        private long mHits;
+        private long mMisses;
+        private long mCollisions;
+
+        public long getHits() {
+            return mHits;
+        }
+
+        public long getMisses() {
+            return mMisses;
+        }
+
+        /**
+         * @return the probes that found another position's entry in the slot.
+         */
+        public long getCollisions() {
+            return mCollisions;
+        }
+
+        public void add(Statistics statistics) {
+            mHits += statistics.mHits;
+            mMisses += statistics.mMisses;
+            mCollisions += statistics.mCollisions;
+        }
+
+        public void reset() {
+            mHits = 0L;
+            mMisses = 0L;
+            mCollisions = 0L;
+        }
+    }
+}
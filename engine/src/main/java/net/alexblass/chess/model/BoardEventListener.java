@@ -0,0 +1,19 @@
+package net.alexblass.chess.model;
+
+import net.alexblass.chess.model.piece.AbstractPiece;
+
+/**
+ * Notified by the GameBoard about moves that need a follow up from whoever displays the board.
+ */
+public interface BoardEventListener {
+
+    /**
+     * A King has successfully completed a castling move and the rook still has to move.
+     */
+    void onCastling();
+
+    /**
+     * A Pawn reached the enemy's home row and has to be promoted.
+     */
+    void onPawnEligibleForPromotion(AbstractPiece pawn);
+}
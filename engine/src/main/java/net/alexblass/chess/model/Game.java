@@ -0,0 +1,36 @@
+package net.alexblass.chess.model;
+
+public class Game {
+    private String mId;
+    private PieceColor mActiveTurn;
+    private PieceColor mComputerColor;
+
+    public Game(String id) {
+        this(id, null);
+    }
+
+    /**
+     * A game against the device, which plays the computerColor pieces.
+     */
+    public Game(String id, PieceColor computerColor) {
+        mId = id;
+        mActiveTurn = PieceColor.WHITE;
+        mComputerColor = computerColor;
+    }
+
+    public String getId() {
+        return mId;
+    }
+
+    public PieceColor getActiveTurn() {
+        return mActiveTurn;
+    }
+
+    public boolean isComputerTurn() {
+        return mActiveTurn.equals(mComputerColor);
+    }
+
+    public void nextTurn() {
+        mActiveTurn = mActiveTurn.equals(PieceColor.WHITE) ? PieceColor.BLACK : PieceColor.WHITE;
+    }
+}
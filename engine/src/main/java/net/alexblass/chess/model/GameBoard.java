@@ -0,0 +1,259 @@
+package net.alexblass.chess.model;
+
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.bitboard.Bitboards;
+import net.alexblass.chess.model.bitboard.Move;
+import net.alexblass.chess.model.bitboard.MoveGenerator;
+import net.alexblass.chess.model.bitboard.StaticExchange;
+import net.alexblass.chess.model.piece.AbstractPiece;
+import net.alexblass.chess.model.piece.BishopPiece;
+import net.alexblass.chess.model.piece.KingPiece;
+import net.alexblass.chess.model.piece.KnightPiece;
+import net.alexblass.chess.model.piece.PawnPiece;
+import net.alexblass.chess.model.piece.QueenPiece;
+import net.alexblass.chess.model.piece.RookPiece;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static net.alexblass.chess.constant.Constants.BOARD_LENGTH;
+import static net.alexblass.chess.constant.Constants.CASTLING_ROOK_MOVE_LEFT;
+import static net.alexblass.chess.constant.Constants.CASTLING_ROOK_MOVE_RIGHT;
+import static net.alexblass.chess.constant.Constants.HOME_ROW_BLACK;
+import static net.alexblass.chess.constant.Constants.HOME_ROW_WHITE;
+import static net.alexblass.chess.constant.Constants.LEFT_ROOK_START_COL;
+import static net.alexblass.chess.constant.Constants.RIGHT_ROOK_START_COL;
+import static net.alexblass.chess.model.PieceColor.BLACK;
+import static net.alexblass.chess.model.PieceColor.WHITE;
+
+/**
+ * The GameBoard keeps track of the available spaces and what pieces are on what space.
+ */
+public class GameBoard {
+
+    private AbstractPiece[][] mPiecePlacementArray = new AbstractPiece[BOARD_LENGTH][BOARD_LENGTH];
+
+    private List<AbstractPiece> mWhitePieces;
+    private List<AbstractPiece> mBlackPieces;
+
+    // Mirrors mPiecePlacementArray so occupancy questions don't need to walk the piece objects
+    private BitboardPosition mPosition = new BitboardPosition();
+
+    private BoardEventListener mBoardEventListener;
+
+    private final int[] mLegalMoves = new int[MoveGenerator.MAX_MOVES];
+
+    public GameBoard() {
+        // Initialize the black chess pieces //////////////////////////////////////////////////////
+        mBlackPieces = new ArrayList<>();
+        int row = HOME_ROW_BLACK;
+        int col = 0;
+
+        placeNewPiece(mBlackPieces, new RookPiece(BLACK, row, col), row, col++);
+        placeNewPiece(mBlackPieces, new KnightPiece(BLACK, row, col), row, col++);
+        placeNewPiece(mBlackPieces, new BishopPiece(BLACK, row, col), row, col++);
+        placeNewPiece(mBlackPieces, new QueenPiece(BLACK, row, col), row, col++);
+        placeNewPiece(mBlackPieces, new KingPiece(BLACK, row, col), row, col++);
+        placeNewPiece(mBlackPieces, new BishopPiece(BLACK, row, col), row, col++);
+        placeNewPiece(mBlackPieces, new KnightPiece(BLACK, row, col), row, col++);
+        placeNewPiece(mBlackPieces, new RookPiece(BLACK, row, col), row, col);
+
+        row++;
+        for (col = 0; col < BOARD_LENGTH; col++) {
+            placeNewPiece(mBlackPieces, new PawnPiece(BLACK, row, col), row, col);
+        }
+
+        // Initialize the white chess pieces //////////////////////////////////////////////////////
+        mWhitePieces = new ArrayList<>();
+
+        row = HOME_ROW_WHITE - 1;
+        for (col = 0; col < BOARD_LENGTH; col++) {
+            placeNewPiece(mWhitePieces, new PawnPiece(WHITE, row, col), row, col);
+        }
+
+        row = HOME_ROW_WHITE;
+        col = 0;
+
+        placeNewPiece(mWhitePieces, new RookPiece(WHITE, row, col), row, col++);
+        placeNewPiece(mWhitePieces, new KnightPiece(WHITE, row, col), row, col++);
+        placeNewPiece(mWhitePieces, new BishopPiece(WHITE, row, col), row, col++);
+        placeNewPiece(mWhitePieces, new QueenPiece(WHITE, row, col), row, col++);
+        placeNewPiece(mWhitePieces, new KingPiece(WHITE, row, col), row, col++);
+        placeNewPiece(mWhitePieces, new BishopPiece(WHITE, row, col), row, col++);
+        placeNewPiece(mWhitePieces, new KnightPiece(WHITE, row, col), row, col++);
+        placeNewPiece(mWhitePieces, new RookPiece(WHITE, row, col), row, col);
+
+        mPosition.setCastlingRights(BitboardPosition.CASTLING_ALL);
+    }
+
+    public void movePiece(AbstractPiece piece, int newRow, int newCol) {
+        movePiece(piece, newRow, newCol, true);
+    }
+
+    private void movePiece(AbstractPiece piece, int newRow, int newCol, boolean shouldNotify) {
+        int oldRow = piece.getRow();
+        int oldCol = piece.getCol();
+
+        // An en passant capture lands behind the enemy pawn, so that pawn is taken off separately
+        if (piece instanceof PawnPiece && oldCol != newCol && mPiecePlacementArray[newRow][newCol] == null) {
+            mPiecePlacementArray[oldRow][newCol] = null;
+            mPosition.removePiece(Bitboards.square(oldRow, newCol));
+        }
+
+        mPiecePlacementArray[oldRow][oldCol] = null;
+
+        piece.setCoordinates(newRow, newCol);
+        piece.setHasMovedFromStart(true);
+        mPiecePlacementArray[newRow][newCol] = piece;
+
+        // The new square may hold a captured piece or, on promotion, the pawn being replaced
+        int oldSquare = Bitboards.square(oldRow, oldCol);
+        int newSquare = Bitboards.square(newRow, newCol);
+        mPosition.removePiece(oldSquare);
+        mPosition.removePiece(newSquare);
+        mPosition.putPiece(getPieceCode(piece), newSquare);
+        mPosition.updateCastlingRights(oldSquare, newSquare);
+
+        boolean isTwoSpacePawnMove = piece instanceof PawnPiece && ((PawnPiece) piece).getJustMoved2Spaces();
+        mPosition.setEnPassantSquare(isTwoSpacePawnMove ?
+                Bitboards.square((oldRow + newRow) / 2, newCol) : Bitboards.NO_SQUARE);
+
+        if (piece instanceof PawnPiece && ((PawnPiece) piece).isPawnEligibleForPromotion()
+                && shouldNotify && mBoardEventListener != null) {
+            mBoardEventListener.onPawnEligibleForPromotion(piece);
+        }
+    }
+
+    /**
+     * Plays a move chosen by the engine rather than tapped on the board. The castling rook and
+     * the promoted piece are placed here so the UI doesn't have to follow up on them.
+     */
+    public void applyMove(int move) {
+        int from = Move.getFrom(move);
+        int to = Move.getTo(move);
+        int row = Bitboards.rowOf(to);
+        int col = Bitboards.colOf(to);
+        AbstractPiece piece = getPieceAtPosition(from);
+
+        if (piece instanceof PawnPiece) {
+            ((PawnPiece) piece).setJustMoved2Spaces(Move.getFlag(move) == Move.FLAG_DOUBLE_PAWN_PUSH);
+        }
+        if (Move.getFlag(move) == Move.FLAG_CASTLING) {
+            boolean isKingSide = to > from;
+            AbstractPiece rook = getPieceAtCoordinates(row, isKingSide ? RIGHT_ROOK_START_COL : LEFT_ROOK_START_COL);
+            movePiece(rook, row, col + (isKingSide ? CASTLING_ROOK_MOVE_LEFT : CASTLING_ROOK_MOVE_RIGHT), false);
+        }
+
+        movePiece(piece, row, col, false);
+        if (Move.isPromotion(move)) {
+            movePiece(createPiece(Move.getPromotionType(move), piece.getColor(), row, col), row, col, false);
+        }
+    }
+
+    /**
+     * Checks that moving the piece doesn't leave its own king in check, using the attack and pin
+     * masks of the bitboard position. The piece's own isValidMove still has to agree.
+     */
+    public boolean isLegalMove(AbstractPiece piece, int newRow, int newCol) {
+        int from = Bitboards.square(piece.getRow(), piece.getCol());
+        int to = Bitboards.square(newRow, newCol);
+        int moveCount = MoveGenerator.generateLegalMoves(mPosition, mLegalMoves, 0);
+        for (int i = 0; i < moveCount; i++) {
+            if (Move.getFrom(mLegalMoves[i]) == from && Move.getTo(mLegalMoves[i]) == to) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public GameState getGameState() {
+        boolean isInCheck = mPosition.isInCheck();
+        if (MoveGenerator.generateLegalMoves(mPosition, mLegalMoves, 0) == 0) {
+            return isInCheck ? GameState.CHECKMATE : GameState.STALEMATE;
+        }
+        return isInCheck ? GameState.CHECK : GameState.IN_PROGRESS;
+    }
+
+    /**
+     * Finds the pieces of both colors that the opponent could win material from by capturing
+     * them, judged by static exchange.
+     * @return a bitboard of those pieces, indexed like the board positions.
+     */
+    public long getHangingPieces() {
+        return StaticExchange.getHangingPieces(mPosition, Bitboards.WHITE)
+                | StaticExchange.getHangingPieces(mPosition, Bitboards.BLACK);
+    }
+
+    public void notifyCastling() {
+        if (mBoardEventListener != null) {
+            mBoardEventListener.onCastling();
+        }
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private void placeNewPiece(List<AbstractPiece> coloredPiecesList, AbstractPiece piece, int row, int col) {
+        coloredPiecesList.add(piece);
+        mPiecePlacementArray[row][col] = piece;
+        mPosition.putPiece(getPieceCode(piece), Bitboards.square(row, col));
+    }
+
+    private static AbstractPiece createPiece(int type, PieceColor color, int row, int col) {
+        switch (type) {
+            case Bitboards.KNIGHT:
+                return new KnightPiece(color, row, col);
+            case Bitboards.BISHOP:
+                return new BishopPiece(color, row, col);
+            case Bitboards.ROOK:
+                return new RookPiece(color, row, col);
+            case Bitboards.QUEEN:
+                return new QueenPiece(color, row, col);
+            case Bitboards.KING:
+                return new KingPiece(color, row, col);
+            default:
+                return new PawnPiece(color, row, col);
+        }
+    }
+
+    private static int getPieceCode(AbstractPiece piece) {
+        int color = piece.getColor().equals(WHITE) ? Bitboards.WHITE : Bitboards.BLACK;
+        return Bitboards.pieceCode(color, piece.getPieceType());
+    }
+
+    // Getters and setters ////////////////////////////////////////////////////////////////////////
+
+    public AbstractPiece[][] getPiecePlacementArray() {
+        return mPiecePlacementArray;
+    }
+
+    public int getSize() {
+        return BOARD_LENGTH * BOARD_LENGTH;
+    }
+
+    public AbstractPiece getPieceAtCoordinates(int row, int col) {
+        return mPiecePlacementArray[row][col];
+    }
+
+    public boolean isSquareOccupied(int row, int col) {
+        return mPosition.isOccupied(Bitboards.square(row, col));
+    }
+
+    public void setActiveTurn(PieceColor activeTurn) {
+        mPosition.setSideToMove(activeTurn.equals(WHITE) ? Bitboards.WHITE : Bitboards.BLACK);
+    }
+
+    public long getZobristKey() {
+        return mPosition.getZobristKey();
+    }
+
+    public void setBoardEventListener(BoardEventListener boardEventListener) {
+        mBoardEventListener = boardEventListener;
+    }
+
+    public BitboardPosition getPosition() {
+        return mPosition;
+    }
+
+    public AbstractPiece getPieceAtPosition(int position) {
+        return getPieceAtCoordinates(Bitboards.rowOf(position), Bitboards.colOf(position));
+    }
+}
@@ -0,0 +1,11 @@
+package net.alexblass.chess.model;
+
+/**
+ * The state of the game from the point of view of the player whose turn it is.
+ */
+public enum GameState {
+    IN_PROGRESS,
+    CHECK,
+    CHECKMATE,
+    STALEMATE
+}
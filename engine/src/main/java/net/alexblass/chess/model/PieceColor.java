@@ -0,0 +1,6 @@
+package net.alexblass.chess.model;
+
+public enum PieceColor {
+    BLACK,
+    WHITE
+}
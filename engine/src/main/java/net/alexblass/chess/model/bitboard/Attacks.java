@@ -0,0 +1,162 @@
+package net.alexblass.chess.model.bitboard;
+
+import static net.alexblass.chess.model.bitboard.Bitboards.FILE_A;
+import static net.alexblass.chess.model.bitboard.Bitboards.FILE_H;
+import static net.alexblass.chess.model.bitboard.Bitboards.SQUARES;
+import static net.alexblass.chess.model.bitboard.Bitboards.WHITE;
+import static net.alexblass.chess.model.bitboard.Bitboards.bit;
+import static net.alexblass.chess.model.bitboard.Bitboards.colOf;
+import static net.alexblass.chess.model.bitboard.Bitboards.rowOf;
+import static net.alexblass.chess.model.bitboard.Bitboards.square;
+
+/**
+ * Attack sets for every piece type. Each method returns the bitboard of squares a piece
+ * standing on the given square attacks, whether those squares are empty or occupied.
+ * Pawns, knights and kings are answered from 64 entry tables filled when the class loads and
+ * sliding pieces from the magic tables, so every query is a lookup without branches.
+ */
+public final class Attacks {
+
+    private static final long FILE_B = FILE_A << 1;
+    private static final long FILE_G = FILE_A << 6;
+
+    // {row step, col step} pairs for the sliding pieces
+    static final int[][] ROOK_DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+    static final int[][] BISHOP_DIRECTIONS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+
+    private static final long[] KNIGHT_ATTACKS = new long[SQUARES];
+    private static final long[] KING_ATTACKS = new long[SQUARES];
+    private static final long[] PAWN_ATTACKS = new long[2 * SQUARES];
+
+    static {
+        for (int square = 0; square < SQUARES; square++) {
+            KNIGHT_ATTACKS[square] = knightAttacks(bit(square));
+            KING_ATTACKS[square] = kingAttacks(bit(square));
+            PAWN_ATTACKS[square] = pawnAttacks(WHITE, bit(square));
+            PAWN_ATTACKS[SQUARES + square] = pawnAttacks(WHITE ^ 1, bit(square));
+        }
+    }
+
+    // Squares strictly between two aligned squares, and the whole line through them
+    private static final long[] BETWEEN = new long[SQUARES * SQUARES];
+    private static final long[] LINE = new long[SQUARES * SQUARES];
+
+    static {
+        for (int from = 0; from < SQUARES; from++) {
+            for (int to = 0; to < SQUARES; to++) {
+                if (from == to) {
+                    continue;
+                }
+                long toBit = bit(to);
+                long fromBit = bit(from);
+                int[][] directions = null;
+                if ((slidingAttacks(from, 0L, ROOK_DIRECTIONS) & toBit) != 0) {
+                    directions = ROOK_DIRECTIONS;
+                } else if ((slidingAttacks(from, 0L, BISHOP_DIRECTIONS) & toBit) != 0) {
+                    directions = BISHOP_DIRECTIONS;
+                }
+                if (directions != null) {
+                    BETWEEN[from * SQUARES + to] = slidingAttacks(from, toBit, directions)
+                            & slidingAttacks(to, fromBit, directions);
+                    LINE[from * SQUARES + to] = (slidingAttacks(from, 0L, directions)
+                            & slidingAttacks(to, 0L, directions)) | fromBit | toBit;
+                }
+            }
+        }
+    }
+
+    private Attacks() {
+    }
+
+    /**
+     * The squares strictly between two squares on the same row, column or diagonal, or no
+     * squares when they aren't aligned.
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from * SQUARES + to];
+    }
+
+    /**
+     * The full row, column or diagonal running through both squares, or no squares when they
+     * aren't aligned.
+     */
+    public static long line(int from, int to) {
+        return LINE[from * SQUARES + to];
+    }
+
+    /**
+     * Squares attacked by a pawn of the given color. White pawns attack towards row 0,
+     * black pawns towards row 7.
+     */
+    public static long pawnAttacks(int color, long pawns) {
+        if (color == WHITE) {
+            return ((pawns >>> 9) & ~FILE_H) | ((pawns >>> 7) & ~FILE_A);
+        }
+        return ((pawns << 7) & ~FILE_H) | ((pawns << 9) & ~FILE_A);
+    }
+
+    public static long pawnAttacks(int color, int square) {
+        return PAWN_ATTACKS[(color << 6) + square];
+    }
+
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * Squares attacked by any of the knights in the set, all at once.
+     */
+    public static long knightAttacks(long knight) {
+        return ((knight << 17) & ~FILE_A) | ((knight << 15) & ~FILE_H)
+                | ((knight << 10) & ~(FILE_A | FILE_B)) | ((knight << 6) & ~(FILE_G | FILE_H))
+                | ((knight >>> 6) & ~(FILE_A | FILE_B)) | ((knight >>> 10) & ~(FILE_G | FILE_H))
+                | ((knight >>> 15) & ~FILE_A) | ((knight >>> 17) & ~FILE_H);
+    }
+
+    /**
+     * Squares attacked by any of the kings in the set, all at once.
+     */
+    public static long kingAttacks(long king) {
+        long sideways = ((king << 1) & ~FILE_A) | ((king >>> 1) & ~FILE_H);
+        long row = king | sideways;
+        return sideways | (row << 8) | (row >>> 8);
+    }
+
+    public static long rookAttacks(int square, long occupancy) {
+        return MagicAttacks.rookAttacks(square, occupancy);
+    }
+
+    public static long bishopAttacks(int square, long occupancy) {
+        return MagicAttacks.bishopAttacks(square, occupancy);
+    }
+
+    public static long queenAttacks(int square, long occupancy) {
+        return MagicAttacks.rookAttacks(square, occupancy) | MagicAttacks.bishopAttacks(square, occupancy);
+    }
+
+    /**
+     * Walks each ray out from the square until it leaves the board or hits an occupied
+     * square, which is included in the result. Only used to build the magic tables.
+     */
+    static long slidingAttacks(int square, long occupancy, int[][] directions) {
+        long attacks = 0L;
+        for (int[] direction : directions) {
+            int row = rowOf(square) + direction[0];
+            int col = colOf(square) + direction[1];
+            while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+                long target = bit(square(row, col));
+                attacks |= target;
+                if ((occupancy & target) != 0) {
+                    break;
+                }
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return attacks;
+    }
+}
@@ -0,0 +1,465 @@
+package net.alexblass.chess.model.bitboard;
+
+import java.util.Arrays;
+
+import static net.alexblass.chess.model.bitboard.Bitboards.BISHOP;
+import static net.alexblass.chess.model.bitboard.Bitboards.KING;
+import static net.alexblass.chess.model.bitboard.Bitboards.KNIGHT;
+import static net.alexblass.chess.model.bitboard.Bitboards.NO_PIECE;
+import static net.alexblass.chess.model.bitboard.Bitboards.NO_SQUARE;
+import static net.alexblass.chess.model.bitboard.Bitboards.PAWN;
+import static net.alexblass.chess.model.bitboard.Bitboards.QUEEN;
+import static net.alexblass.chess.model.bitboard.Bitboards.ROOK;
+import static net.alexblass.chess.model.bitboard.Bitboards.SQUARES;
+import static net.alexblass.chess.model.bitboard.Bitboards.WHITE;
+import static net.alexblass.chess.model.bitboard.Bitboards.bit;
+import static net.alexblass.chess.model.bitboard.Bitboards.colorOf;
+import static net.alexblass.chess.model.bitboard.Bitboards.pieceCode;
+import static net.alexblass.chess.model.bitboard.Bitboards.typeOf;
+
+/**
+ * A compact position made of one bitboard per colored piece type plus occupancy masks.
+ * A small square to piece lookup is kept alongside so the piece on a square can be found
+ * without testing all twelve sets.
+ */
+public class BitboardPosition {
+
+    public static final int CASTLING_WHITE_KING_SIDE = 1;
+    public static final int CASTLING_WHITE_QUEEN_SIDE = 1 << 1;
+    public static final int CASTLING_BLACK_KING_SIDE = 1 << 2;
+    public static final int CASTLING_BLACK_QUEEN_SIDE = 1 << 3;
+    public static final int CASTLING_ALL = 0xF;
+
+    public static final int WHITE_KING_START = 60;
+    public static final int BLACK_KING_START = 4;
+
+    // Enough for a long game plus a deep search on top of it
+    public static final int MAX_HISTORY = 1024;
+
+    private static final int STATE_EN_PASSANT_SHIFT = 4;
+    private static final int STATE_HALFMOVE_SHIFT = 11;
+
+    // The castling rights that survive a move touching each square
+    private static final int[] CASTLING_RIGHTS_MASK = new int[SQUARES];
+
+    static {
+        Arrays.fill(CASTLING_RIGHTS_MASK, CASTLING_ALL);
+        CASTLING_RIGHTS_MASK[BLACK_KING_START] &= ~(CASTLING_BLACK_KING_SIDE | CASTLING_BLACK_QUEEN_SIDE);
+        CASTLING_RIGHTS_MASK[0] &= ~CASTLING_BLACK_QUEEN_SIDE;
+        CASTLING_RIGHTS_MASK[7] &= ~CASTLING_BLACK_KING_SIDE;
+        CASTLING_RIGHTS_MASK[WHITE_KING_START] &= ~(CASTLING_WHITE_KING_SIDE | CASTLING_WHITE_QUEEN_SIDE);
+        CASTLING_RIGHTS_MASK[56] &= ~CASTLING_WHITE_QUEEN_SIDE;
+        CASTLING_RIGHTS_MASK[63] &= ~CASTLING_WHITE_KING_SIDE;
+    }
+
+    private final long[] mPieces = new long[NO_PIECE];
+    private final long[] mOccupancy = new long[2];
+    private long mAllOccupancy;
+    private final byte[] mBoard = new byte[SQUARES];
+
+    private int mSideToMove;
+    private int mCastlingRights;
+    private int mEnPassantSquare;
+    private long mZobristKey;
+    // Hashes only the pawns, so pawn structure evaluations can be cached
+    private long mPawnKey;
+    private int mHalfmoveClock;
+    private int mFullmoveNumber;
+
+    // Kept up to date as pieces are placed and removed so evaluating a position is O(1)
+    private int mMiddlegameScore;
+    private int mEndgameScore;
+    private int mPhase;
+
+    // Undo stack, preallocated so making and taking back moves never allocates
+    private final int[] mUndoMoves = new int[MAX_HISTORY];
+    private final int[] mUndoStates = new int[MAX_HISTORY];
+    private final long[] mUndoKeys = new long[MAX_HISTORY];
+    private int mHistorySize;
+
+    public BitboardPosition() {
+        Arrays.fill(mBoard, (byte) NO_PIECE);
+        mSideToMove = WHITE;
+        mEnPassantSquare = NO_SQUARE;
+        mFullmoveNumber = 1;
+    }
+
+    /**
+     * Creates an independent copy, including the undo stack, e.g. for a search running on a
+     * background thread.
+     */
+    public BitboardPosition(BitboardPosition other) {
+        copyFrom(other);
+    }
+
+    public void copyFrom(BitboardPosition other) {
+        System.arraycopy(other.mPieces, 0, mPieces, 0, mPieces.length);
+        System.arraycopy(other.mOccupancy, 0, mOccupancy, 0, mOccupancy.length);
+        System.arraycopy(other.mBoard, 0, mBoard, 0, mBoard.length);
+        mAllOccupancy = other.mAllOccupancy;
+        mSideToMove = other.mSideToMove;
+        mCastlingRights = other.mCastlingRights;
+        mEnPassantSquare = other.mEnPassantSquare;
+        mZobristKey = other.mZobristKey;
+        mPawnKey = other.mPawnKey;
+        mHalfmoveClock = other.mHalfmoveClock;
+        mFullmoveNumber = other.mFullmoveNumber;
+        mMiddlegameScore = other.mMiddlegameScore;
+        mEndgameScore = other.mEndgameScore;
+        mPhase = other.mPhase;
+        mHistorySize = other.mHistorySize;
+        System.arraycopy(other.mUndoMoves, 0, mUndoMoves, 0, mHistorySize);
+        System.arraycopy(other.mUndoStates, 0, mUndoStates, 0, mHistorySize);
+        System.arraycopy(other.mUndoKeys, 0, mUndoKeys, 0, mHistorySize);
+    }
+
+    public void putPiece(int piece, int square) {
+        long squareBit = bit(square);
+        mPieces[piece] |= squareBit;
+        mOccupancy[colorOf(piece)] |= squareBit;
+        mAllOccupancy |= squareBit;
+        mBoard[square] = (byte) piece;
+        mZobristKey ^= Zobrist.pieceKey(piece, square);
+        if (typeOf(piece) == PAWN) {
+            mPawnKey ^= Zobrist.pieceKey(piece, square);
+        }
+        mMiddlegameScore += PieceSquareTables.middlegame(piece, square);
+        mEndgameScore += PieceSquareTables.endgame(piece, square);
+        mPhase += PieceSquareTables.phase(piece);
+    }
+
+    /**
+     * Removes whatever piece is on the square.
+     * @return the removed piece code or NO_PIECE when the square was already empty.
+     */
+    public int removePiece(int square) {
+        int piece = mBoard[square];
+        if (piece != NO_PIECE) {
+            long squareBit = ~bit(square);
+            mPieces[piece] &= squareBit;
+            mOccupancy[colorOf(piece)] &= squareBit;
+            mAllOccupancy &= squareBit;
+            mBoard[square] = (byte) NO_PIECE;
+            mZobristKey ^= Zobrist.pieceKey(piece, square);
+            if (typeOf(piece) == PAWN) {
+                mPawnKey ^= Zobrist.pieceKey(piece, square);
+            }
+            mMiddlegameScore -= PieceSquareTables.middlegame(piece, square);
+            mEndgameScore -= PieceSquareTables.endgame(piece, square);
+            mPhase -= PieceSquareTables.phase(piece);
+        }
+        return piece;
+    }
+
+    public void clear() {
+        Arrays.fill(mPieces, 0L);
+        Arrays.fill(mOccupancy, 0L);
+        mAllOccupancy = 0L;
+        Arrays.fill(mBoard, (byte) NO_PIECE);
+        mSideToMove = WHITE;
+        mCastlingRights = 0;
+        mEnPassantSquare = NO_SQUARE;
+        mZobristKey = 0L;
+        mPawnKey = 0L;
+        mHalfmoveClock = 0;
+        mFullmoveNumber = 1;
+        mMiddlegameScore = 0;
+        mEndgameScore = 0;
+        mPhase = 0;
+        mHistorySize = 0;
+    }
+
+    /**
+     * Plays a move produced by the MoveGenerator. The state needed to take it back is pushed on
+     * the undo stack so unmakeMove can restore the position exactly.
+     */
+    public void makeMove(int move) {
+        mUndoMoves[mHistorySize] = move;
+        mUndoStates[mHistorySize] = mCastlingRights
+                | ((mEnPassantSquare + 1) << STATE_EN_PASSANT_SHIFT)
+                | (mHalfmoveClock << STATE_HALFMOVE_SHIFT);
+        mUndoKeys[mHistorySize] = mZobristKey;
+        mHistorySize++;
+
+        int us = mSideToMove;
+        int from = Move.getFrom(move);
+        int to = Move.getTo(move);
+        int piece = Move.getPiece(move);
+        int captured = Move.getCaptured(move);
+        int flag = Move.getFlag(move);
+
+        if (flag == Move.FLAG_EN_PASSANT) {
+            removePiece(getEnPassantCaptureSquare(us, to));
+        } else if (captured != NO_PIECE) {
+            removePiece(to);
+        }
+        removePiece(from);
+        putPiece(Move.isPromotion(move) ? pieceCode(us, Move.getPromotionType(move)) : piece, to);
+
+        if (flag == Move.FLAG_CASTLING) {
+            int rook = pieceCode(us, ROOK);
+            removePiece(getCastlingRookFrom(from, to));
+            putPiece(rook, getCastlingRookTo(from, to));
+        }
+
+        updateCastlingRights(from, to);
+        setEnPassantSquare(flag == Move.FLAG_DOUBLE_PAWN_PUSH ? (from + to) >> 1 : NO_SQUARE);
+        mHalfmoveClock = captured != NO_PIECE || piece == pieceCode(us, PAWN) ? 0 : mHalfmoveClock + 1;
+        if (us == Bitboards.BLACK) {
+            mFullmoveNumber++;
+        }
+        setSideToMove(us ^ 1);
+    }
+
+    /**
+     * Takes back the last move played with makeMove.
+     */
+    public void unmakeMove() {
+        mHistorySize--;
+        int move = mUndoMoves[mHistorySize];
+        int state = mUndoStates[mHistorySize];
+
+        int us = mSideToMove ^ 1;
+        int from = Move.getFrom(move);
+        int to = Move.getTo(move);
+        int captured = Move.getCaptured(move);
+        int flag = Move.getFlag(move);
+
+        removePiece(to);
+        putPiece(Move.getPiece(move), from);
+        if (flag == Move.FLAG_CASTLING) {
+            removePiece(getCastlingRookTo(from, to));
+            putPiece(pieceCode(us, ROOK), getCastlingRookFrom(from, to));
+        } else if (flag == Move.FLAG_EN_PASSANT) {
+            putPiece(captured, getEnPassantCaptureSquare(us, to));
+        } else if (captured != NO_PIECE) {
+            putPiece(captured, to);
+        }
+
+        mSideToMove = us;
+        mCastlingRights = state & CASTLING_ALL;
+        mEnPassantSquare = ((state >>> STATE_EN_PASSANT_SHIFT) & 0x7F) - 1;
+        mHalfmoveClock = state >>> STATE_HALFMOVE_SHIFT;
+        if (us == Bitboards.BLACK) {
+            mFullmoveNumber--;
+        }
+        mZobristKey = mUndoKeys[mHistorySize];
+    }
+
+    /**
+     * Checks whether the current position already occurred since the last capture or pawn move,
+     * looking only at positions with the same side to move.
+     */
+    public boolean isRepetition() {
+        int earliest = Math.max(0, mHistorySize - mHalfmoveClock);
+        for (int i = mHistorySize - 2; i >= earliest; i -= 2) {
+            if (mUndoKeys[i] == mZobristKey) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The pawn taken en passant sits behind the square the capturing pawn lands on
+    private static int getEnPassantCaptureSquare(int us, int to) {
+        return us == WHITE ? to + 8 : to - 8;
+    }
+
+    private static int getCastlingRookFrom(int kingFrom, int kingTo) {
+        return kingTo > kingFrom ? kingFrom + 3 : kingFrom - 4;
+    }
+
+    private static int getCastlingRookTo(int kingFrom, int kingTo) {
+        return kingTo > kingFrom ? kingFrom + 1 : kingFrom - 1;
+    }
+
+    /**
+     * Drops the castling rights lost by a king or rook leaving its start square, or by a rook
+     * being captured on it.
+     */
+    public void updateCastlingRights(int from, int to) {
+        setCastlingRights(mCastlingRights & CASTLING_RIGHTS_MASK[from] & CASTLING_RIGHTS_MASK[to]);
+    }
+
+    public boolean isSquareAttacked(int square, int byColor) {
+        return isSquareAttacked(square, byColor, mAllOccupancy);
+    }
+
+    /**
+     * Checks for attacks as if the board had the given occupancy, e.g. with the king lifted off
+     * so it can't hide behind itself from a slider.
+     */
+    public boolean isSquareAttacked(int square, int byColor, long occupancy) {
+        long rooksAndQueens = getPieces(byColor, ROOK) | getPieces(byColor, QUEEN);
+        long bishopsAndQueens = getPieces(byColor, BISHOP) | getPieces(byColor, QUEEN);
+        return (Attacks.pawnAttacks(byColor ^ 1, square) & getPieces(byColor, PAWN)) != 0
+                || (Attacks.knightAttacks(square) & getPieces(byColor, KNIGHT)) != 0
+                || (Attacks.kingAttacks(square) & getPieces(byColor, KING)) != 0
+                || (Attacks.bishopAttacks(square, occupancy) & bishopsAndQueens) != 0
+                || (Attacks.rookAttacks(square, occupancy) & rooksAndQueens) != 0;
+    }
+
+    /**
+     * All pieces of the given color attacking the square.
+     */
+    public long getAttackers(int square, int byColor, long occupancy) {
+        long rooksAndQueens = getPieces(byColor, ROOK) | getPieces(byColor, QUEEN);
+        long bishopsAndQueens = getPieces(byColor, BISHOP) | getPieces(byColor, QUEEN);
+        return (Attacks.pawnAttacks(byColor ^ 1, square) & getPieces(byColor, PAWN))
+                | (Attacks.knightAttacks(square) & getPieces(byColor, KNIGHT))
+                | (Attacks.kingAttacks(square) & getPieces(byColor, KING))
+                | (Attacks.bishopAttacks(square, occupancy) & bishopsAndQueens)
+                | (Attacks.rookAttacks(square, occupancy) & rooksAndQueens);
+    }
+
+    /**
+     * The enemy pieces giving check to the side to move.
+     */
+    public long getCheckers() {
+        return getAttackers(getKingSquare(mSideToMove), mSideToMove ^ 1, mAllOccupancy);
+    }
+
+    /**
+     * Pieces of the given color that can't leave the line between their king and an enemy slider
+     * without exposing the king.
+     */
+    public long getPinnedPieces(int color) {
+        int kingSquare = getKingSquare(color);
+        int them = color ^ 1;
+        long enemies = mOccupancy[them];
+        // Sliders that would attack the king if only enemy pieces were on the board
+        long snipers = (Attacks.rookAttacks(kingSquare, enemies) & (getPieces(them, ROOK) | getPieces(them, QUEEN)))
+                | (Attacks.bishopAttacks(kingSquare, enemies) & (getPieces(them, BISHOP) | getPieces(them, QUEEN)));
+
+        long pinned = 0L;
+        for (; snipers != 0; snipers &= snipers - 1) {
+            long blockers = Attacks.between(kingSquare, Bitboards.lowestSquare(snipers)) & mAllOccupancy;
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0) {
+                pinned |= blockers & mOccupancy[color];
+            }
+        }
+        return pinned;
+    }
+
+    public int getKingSquare(int color) {
+        return Bitboards.lowestSquare(getPieces(color, KING));
+    }
+
+    public boolean isInCheck(int color) {
+        return isSquareAttacked(getKingSquare(color), color ^ 1);
+    }
+
+    public boolean isInCheck() {
+        return isInCheck(mSideToMove);
+    }
+
+    // Getters and setters ////////////////////////////////////////////////////////////////////////
+
+    public int getSideToMove() {
+        return mSideToMove;
+    }
+
+    public void setSideToMove(int color) {
+        mZobristKey ^= Zobrist.sideKey(mSideToMove) ^ Zobrist.sideKey(color);
+        mSideToMove = color;
+    }
+
+    public int getCastlingRights() {
+        return mCastlingRights;
+    }
+
+    public void setCastlingRights(int castlingRights) {
+        mZobristKey ^= Zobrist.castlingKey(mCastlingRights) ^ Zobrist.castlingKey(castlingRights);
+        mCastlingRights = castlingRights;
+    }
+
+    public int getEnPassantSquare() {
+        return mEnPassantSquare;
+    }
+
+    public void setEnPassantSquare(int square) {
+        mZobristKey ^= Zobrist.enPassantKey(mEnPassantSquare) ^ Zobrist.enPassantKey(square);
+        mEnPassantSquare = square;
+    }
+
+    /**
+     * A 64 bit hash of the position including side to move, castling rights and en passant state.
+     * It is updated incrementally on every change instead of being recomputed.
+     */
+    public long getZobristKey() {
+        return mZobristKey;
+    }
+
+    public long getPawnKey() {
+        return mPawnKey;
+    }
+
+    /**
+     * @return the middlegame material and piece-square score from white's point of view.
+     */
+    public int getMiddlegameScore() {
+        return mMiddlegameScore;
+    }
+
+    /**
+     * @return the endgame material and piece-square score from white's point of view.
+     */
+    public int getEndgameScore() {
+        return mEndgameScore;
+    }
+
+    /**
+     * @return how much non-pawn material is left, from 0 for bare kings and pawns up to
+     * PieceSquareTables.MAX_PHASE for the starting material. Promotions can push it higher.
+     */
+    public int getPhase() {
+        return mPhase;
+    }
+
+    public int getHalfmoveClock() {
+        return mHalfmoveClock;
+    }
+
+    public void setHalfmoveClock(int halfmoveClock) {
+        mHalfmoveClock = halfmoveClock;
+    }
+
+    public int getFullmoveNumber() {
+        return mFullmoveNumber;
+    }
+
+    public void setFullmoveNumber(int fullmoveNumber) {
+        mFullmoveNumber = fullmoveNumber;
+    }
+
+    /**
+     * The number of moves that can currently be taken back.
+     */
+    public int getHistorySize() {
+        return mHistorySize;
+    }
+
+    public long getPieces(int piece) {
+        return mPieces[piece];
+    }
+
+    public long getPieces(int color, int type) {
+        return mPieces[pieceCode(color, type)];
+    }
+
+    public long getOccupancy(int color) {
+        return mOccupancy[color];
+    }
+
+    public long getOccupancy() {
+        return mAllOccupancy;
+    }
+
+    public int getPieceAt(int square) {
+        return mBoard[square];
+    }
+
+    public boolean isOccupied(int square) {
+        return (mAllOccupancy & bit(square)) != 0;
+    }
+}
@@ -0,0 +1,74 @@
+package net.alexblass.chess.model.bitboard;
+
+/**
+ * Constants and static helpers shared by the bitboard representation of the board.
+ *
+ * Squares are numbered the same way as the GameBoard positions shown by the UI,
+ * (row * 8) + col, so square 0 is the top left corner of the black home row and
+ * square 63 is the bottom right corner of the white home row. Bit n of a bitboard
+ * is set when square n belongs to the set.
+ */
+public final class Bitboards {
+
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+    public static final int PIECE_TYPES = 6;
+
+    // Colored piece codes are (color * PIECE_TYPES) + type, NO_PIECE marks an empty square
+    public static final int NO_PIECE = 2 * PIECE_TYPES;
+
+    public static final int SQUARES = 64;
+    public static final int NO_SQUARE = -1;
+
+    public static final long EMPTY = 0L;
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long ROW_BLACK_HOME = 0xFFL;
+    public static final long ROW_WHITE_HOME = ROW_BLACK_HOME << 56;
+
+    private Bitboards() {
+    }
+
+    public static int pieceCode(int color, int type) {
+        return color * PIECE_TYPES + type;
+    }
+
+    public static int colorOf(int piece) {
+        return piece < PIECE_TYPES ? WHITE : BLACK;
+    }
+
+    public static int typeOf(int piece) {
+        return piece < PIECE_TYPES ? piece : piece - PIECE_TYPES;
+    }
+
+    public static int square(int row, int col) {
+        return (row << 3) + col;
+    }
+
+    public static int rowOf(int square) {
+        return square >>> 3;
+    }
+
+    public static int colOf(int square) {
+        return square & 7;
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    public static int lowestSquare(long bitboard) {
+        return Long.numberOfTrailingZeros(bitboard);
+    }
+
+    public static int count(long bitboard) {
+        return Long.bitCount(bitboard);
+    }
+}
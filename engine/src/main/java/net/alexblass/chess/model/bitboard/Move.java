@@ -0,0 +1,97 @@
+package net.alexblass.chess.model.bitboard;
+
+/**
+ * Static helpers to pack and unpack moves stored as a single int so move lists can live
+ * in primitive arrays.
+ *
+ * Bits 0-5 hold the start square, 6-11 the end square, 12-15 the moving piece code,
+ * 16-19 the captured piece code (NO_PIECE when nothing is captured), 20-21 the move flag
+ * and 22-24 the piece type a pawn is promoted to (0 when it isn't a promotion).
+ */
+public final class Move {
+
+    public static final int NO_MOVE = 0;
+
+    public static final int FLAG_NONE = 0;
+    public static final int FLAG_DOUBLE_PAWN_PUSH = 1;
+    public static final int FLAG_EN_PASSANT = 2;
+    public static final int FLAG_CASTLING = 3;
+
+    private static final int TO_SHIFT = 6;
+    private static final int PIECE_SHIFT = 12;
+    private static final int CAPTURED_SHIFT = 16;
+    private static final int FLAG_SHIFT = 20;
+    private static final int PROMOTION_SHIFT = 22;
+
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int PIECE_MASK = 0xF;
+    private static final int FLAG_MASK = 0x3;
+    private static final int PROMOTION_MASK = 0x7;
+
+    private Move() {
+    }
+
+    public static int create(int from, int to, int piece, int captured, int flag, int promotionType) {
+        return from
+                | (to << TO_SHIFT)
+                | (piece << PIECE_SHIFT)
+                | (captured << CAPTURED_SHIFT)
+                | (flag << FLAG_SHIFT)
+                | (promotionType << PROMOTION_SHIFT);
+    }
+
+    public static int create(int from, int to, int piece, int captured) {
+        return create(from, to, piece, captured, FLAG_NONE, 0);
+    }
+
+    public static int getFrom(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    public static int getTo(int move) {
+        return (move >>> TO_SHIFT) & SQUARE_MASK;
+    }
+
+    public static int getPiece(int move) {
+        return (move >>> PIECE_SHIFT) & PIECE_MASK;
+    }
+
+    public static int getCaptured(int move) {
+        return (move >>> CAPTURED_SHIFT) & PIECE_MASK;
+    }
+
+    public static int getFlag(int move) {
+        return (move >>> FLAG_SHIFT) & FLAG_MASK;
+    }
+
+    public static int getPromotionType(int move) {
+        return (move >>> PROMOTION_SHIFT) & PROMOTION_MASK;
+    }
+
+    public static boolean isCapture(int move) {
+        return getCaptured(move) != Bitboards.NO_PIECE;
+    }
+
+    public static boolean isPromotion(int move) {
+        return getPromotionType(move) != 0;
+    }
+
+    /**
+     * Returns the move in coordinate notation, e.g. "e2e4" or "e7e8q".
+     */
+    public static String toNotation(int move) {
+        StringBuilder notation = new StringBuilder(5)
+                .append(getSquareName(getFrom(move)))
+                .append(getSquareName(getTo(move)));
+        if (isPromotion(move)) {
+            notation.append("pnbrqk".charAt(getPromotionType(move)));
+        }
+        return notation.toString();
+    }
+
+    public static String getSquareName(int square) {
+        char file = (char) ('a' + Bitboards.colOf(square));
+        char rank = (char) ('8' - Bitboards.rowOf(square));
+        return new String(new char[]{file, rank});
+    }
+}
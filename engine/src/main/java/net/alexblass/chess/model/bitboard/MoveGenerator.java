@@ -0,0 +1,289 @@
+package net.alexblass.chess.model.bitboard;
+
+import static net.alexblass.chess.model.bitboard.Bitboards.BISHOP;
+import static net.alexblass.chess.model.bitboard.Bitboards.BLACK;
+import static net.alexblass.chess.model.bitboard.Bitboards.KING;
+import static net.alexblass.chess.model.bitboard.Bitboards.KNIGHT;
+import static net.alexblass.chess.model.bitboard.Bitboards.NO_PIECE;
+import static net.alexblass.chess.model.bitboard.Bitboards.NO_SQUARE;
+import static net.alexblass.chess.model.bitboard.Bitboards.PAWN;
+import static net.alexblass.chess.model.bitboard.Bitboards.QUEEN;
+import static net.alexblass.chess.model.bitboard.Bitboards.ROOK;
+import static net.alexblass.chess.model.bitboard.Bitboards.ROW_BLACK_HOME;
+import static net.alexblass.chess.model.bitboard.Bitboards.ROW_WHITE_HOME;
+import static net.alexblass.chess.model.bitboard.Bitboards.WHITE;
+import static net.alexblass.chess.model.bitboard.Bitboards.bit;
+import static net.alexblass.chess.model.bitboard.Bitboards.lowestSquare;
+import static net.alexblass.chess.model.bitboard.Bitboards.pieceCode;
+import static net.alexblass.chess.model.bitboard.BitboardPosition.CASTLING_BLACK_KING_SIDE;
+import static net.alexblass.chess.model.bitboard.BitboardPosition.CASTLING_BLACK_QUEEN_SIDE;
+import static net.alexblass.chess.model.bitboard.BitboardPosition.CASTLING_WHITE_KING_SIDE;
+import static net.alexblass.chess.model.bitboard.BitboardPosition.CASTLING_WHITE_QUEEN_SIDE;
+
+/**
+ * Generates the moves for the side to move of a BitboardPosition.
+ *
+ * Moves are written as packed ints (see Move) into a buffer supplied by the caller so that
+ * no objects are created while generating. A move is pseudo-legal when it follows the
+ * movement rules of its piece but may still leave the mover's own king in check. Legal moves
+ * are the pseudo-legal ones filtered with check and pin masks, without playing them out.
+ */
+public final class MoveGenerator {
+
+    // No legal chess position has more moves than this
+    public static final int MAX_MOVES = 256;
+
+    // Rows the pawns land on after their first single step, from where a second step is allowed
+    private static final long WHITE_DOUBLE_PUSH_ROW = ROW_WHITE_HOME >>> 16;
+    private static final long BLACK_DOUBLE_PUSH_ROW = ROW_BLACK_HOME << 16;
+    private static final long PROMOTION_ROWS = ROW_BLACK_HOME | ROW_WHITE_HOME;
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Writes every pseudo-legal move into moves starting at index start.
+     * @return the number of moves written.
+     */
+    public static int generateMoves(BitboardPosition position, int[] moves, int start) {
+        int us = position.getSideToMove();
+        long targets = ~position.getOccupancy(us);
+
+        int index = generatePawnMoves(position, us, false, moves, start);
+        index = generatePieceMoves(position, us, KNIGHT, targets, moves, index);
+        index = generatePieceMoves(position, us, BISHOP, targets, moves, index);
+        index = generatePieceMoves(position, us, ROOK, targets, moves, index);
+        index = generatePieceMoves(position, us, QUEEN, targets, moves, index);
+        index = generatePieceMoves(position, us, KING, targets, moves, index);
+        index = generateCastlingMoves(position, us, moves, index);
+        return index - start;
+    }
+
+    /**
+     * Writes the pseudo-legal captures and promotions into moves starting at index start. These
+     * are the moves that change the material balance, which is all a quiescence search plays.
+     * @return the number of moves written.
+     */
+    public static int generateCaptures(BitboardPosition position, int[] moves, int start) {
+        int us = position.getSideToMove();
+        long targets = position.getOccupancy(us ^ 1);
+
+        int index = generatePawnMoves(position, us, true, moves, start);
+        index = generatePieceMoves(position, us, KNIGHT, targets, moves, index);
+        index = generatePieceMoves(position, us, BISHOP, targets, moves, index);
+        index = generatePieceMoves(position, us, ROOK, targets, moves, index);
+        index = generatePieceMoves(position, us, QUEEN, targets, moves, index);
+        index = generatePieceMoves(position, us, KING, targets, moves, index);
+        return index - start;
+    }
+
+    /**
+     * Writes every legal move into moves starting at index start.
+     * @return the number of moves written, 0 when the side to move is checkmated or stalemated.
+     */
+    public static int generateLegalMoves(BitboardPosition position, int[] moves, int start) {
+        return filterLegalMoves(position, moves, start, start + generateMoves(position, moves, start));
+    }
+
+    /**
+     * Writes the legal captures and promotions into moves starting at index start.
+     * @return the number of moves written.
+     */
+    public static int generateLegalCaptures(BitboardPosition position, int[] moves, int start) {
+        return filterLegalMoves(position, moves, start, start + generateCaptures(position, moves, start));
+    }
+
+    /**
+     * Finds the legal move between the squares, for example to identify a move tapped on the
+     * board, using legalMoves as the buffer for the legal moves. The king's squares stand for a
+     * castling move.
+     * @param promotionType the piece type a pawn promotes to, ignored by other moves.
+     * @return the move, or NO_MOVE when no legal move matches.
+     */
+    public static int findLegalMove(BitboardPosition position, int from, int to, int promotionType,
+                                    int[] legalMoves) {
+        int moveCount = generateLegalMoves(position, legalMoves, 0);
+        for (int i = 0; i < moveCount; i++) {
+            int move = legalMoves[i];
+            if (Move.getFrom(move) == from && Move.getTo(move) == to
+                    && (!Move.isPromotion(move) || Move.getPromotionType(move) == promotionType)) {
+                return move;
+            }
+        }
+        return Move.NO_MOVE;
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    /**
+     * Keeps the moves from start up to end that don't leave the king in check, in place.
+     * @return the number of moves kept.
+     */
+    private static int filterLegalMoves(BitboardPosition position, int[] moves, int start, int end) {
+        int us = position.getSideToMove();
+        int kingSquare = position.getKingSquare(us);
+        long checkers = position.getCheckers();
+        long pinned = position.getPinnedPieces(us);
+        // With one checker the other pieces must capture it or step in between
+        long evasionTargets = checkers == 0 ? ~0L : checkers | Attacks.between(kingSquare, lowestSquare(checkers));
+        boolean isDoubleCheck = (checkers & (checkers - 1)) != 0;
+        // The king can't step back along the ray of a slider checking it
+        long occupancyWithoutKing = position.getOccupancy() & ~bit(kingSquare);
+
+        int index = start;
+        for (int i = start; i < end; i++) {
+            int move = moves[i];
+            int from = Move.getFrom(move);
+            int to = Move.getTo(move);
+            boolean isLegal;
+            if (from == kingSquare) {
+                isLegal = Move.getFlag(move) == Move.FLAG_CASTLING
+                        || !position.isSquareAttacked(to, us ^ 1, occupancyWithoutKing);
+            } else if (isDoubleCheck) {
+                isLegal = false;
+            } else if (Move.getFlag(move) == Move.FLAG_EN_PASSANT) {
+                isLegal = isEnPassantLegal(position, us, kingSquare, from, to);
+            } else {
+                isLegal = (bit(to) & evasionTargets) != 0
+                        && ((pinned & bit(from)) == 0 || (Attacks.line(kingSquare, from) & bit(to)) != 0);
+            }
+            if (isLegal) {
+                moves[index++] = move;
+            }
+        }
+        return index - start;
+    }
+
+    /**
+     * En passant removes two pieces from the same row at once, which can uncover an attack no
+     * pin mask catches, so the resulting occupancy is checked directly.
+     */
+    private static boolean isEnPassantLegal(BitboardPosition position, int us, int kingSquare, int from, int to) {
+        int them = us ^ 1;
+        long capturedPawn = bit(us == WHITE ? to + 8 : to - 8);
+        long occupancy = (position.getOccupancy() ^ bit(from) ^ capturedPawn) | bit(to);
+        long attackers = position.getAttackers(kingSquare, them, occupancy) & ~capturedPawn;
+        return attackers == 0;
+    }
+
+    static long getAttacks(int type, int square, long occupancy) {
+        switch (type) {
+            case KNIGHT:
+                return Attacks.knightAttacks(square);
+            case BISHOP:
+                return Attacks.bishopAttacks(square, occupancy);
+            case ROOK:
+                return Attacks.rookAttacks(square, occupancy);
+            case QUEEN:
+                return Attacks.queenAttacks(square, occupancy);
+            case KING:
+                return Attacks.kingAttacks(square);
+            default:
+                throw new IllegalArgumentException("Not a piece type with fixed attacks: " + type);
+        }
+    }
+
+    private static int generatePieceMoves(BitboardPosition position, int us, int type, long targets,
+                                          int[] moves, int index) {
+        int piece = pieceCode(us, type);
+        long occupancy = position.getOccupancy();
+        for (long pieces = position.getPieces(piece); pieces != 0; pieces &= pieces - 1) {
+            int from = lowestSquare(pieces);
+            for (long attacks = getAttacks(type, from, occupancy) & targets; attacks != 0; attacks &= attacks - 1) {
+                int to = lowestSquare(attacks);
+                moves[index++] = Move.create(from, to, piece, position.getPieceAt(to));
+            }
+        }
+        return index;
+    }
+
+    private static int generatePawnMoves(BitboardPosition position, int us, boolean isCapturesOnly,
+                                         int[] moves, int index) {
+        int piece = pieceCode(us, PAWN);
+        long pawns = position.getPieces(piece);
+        long empty = ~position.getOccupancy();
+        long enemies = position.getOccupancy(us ^ 1);
+
+        // White pawns advance towards row 0 (lower squares), black pawns towards row 7
+        int forward = us == WHITE ? -8 : 8;
+        long singlePushes = us == WHITE ? (pawns >>> 8) & empty : (pawns << 8) & empty;
+        long doublePushes = us == WHITE
+                ? ((singlePushes & WHITE_DOUBLE_PUSH_ROW) >>> 8) & empty
+                : ((singlePushes & BLACK_DOUBLE_PUSH_ROW) << 8) & empty;
+        if (isCapturesOnly) {
+            // Promoting pushes stay, they change the material as much as a capture
+            singlePushes &= PROMOTION_ROWS;
+            doublePushes = 0L;
+        }
+
+        for (; singlePushes != 0; singlePushes &= singlePushes - 1) {
+            int to = lowestSquare(singlePushes);
+            index = addPawnMove(moves, index, to - forward, to, piece, NO_PIECE);
+        }
+        for (; doublePushes != 0; doublePushes &= doublePushes - 1) {
+            int to = lowestSquare(doublePushes);
+            moves[index++] = Move.create(to - 2 * forward, to, piece, NO_PIECE, Move.FLAG_DOUBLE_PAWN_PUSH, 0);
+        }
+
+        for (long attackers = pawns; attackers != 0; attackers &= attackers - 1) {
+            int from = lowestSquare(attackers);
+            for (long captures = Attacks.pawnAttacks(us, from) & enemies; captures != 0; captures &= captures - 1) {
+                int to = lowestSquare(captures);
+                index = addPawnMove(moves, index, from, to, piece, position.getPieceAt(to));
+            }
+        }
+
+        int enPassantSquare = position.getEnPassantSquare();
+        if (enPassantSquare != NO_SQUARE) {
+            int capturedPawn = pieceCode(us ^ 1, PAWN);
+            // Our pawns that could capture on the square are the ones an enemy pawn there would attack
+            for (long attackers = Attacks.pawnAttacks(us ^ 1, enPassantSquare) & pawns; attackers != 0; attackers &= attackers - 1) {
+                moves[index++] = Move.create(lowestSquare(attackers), enPassantSquare, piece, capturedPawn,
+                        Move.FLAG_EN_PASSANT, 0);
+            }
+        }
+        return index;
+    }
+
+    private static int addPawnMove(int[] moves, int index, int from, int to, int piece, int captured) {
+        if ((bit(to) & PROMOTION_ROWS) != 0) {
+            moves[index++] = Move.create(from, to, piece, captured, Move.FLAG_NONE, QUEEN);
+            moves[index++] = Move.create(from, to, piece, captured, Move.FLAG_NONE, ROOK);
+            moves[index++] = Move.create(from, to, piece, captured, Move.FLAG_NONE, BISHOP);
+            moves[index++] = Move.create(from, to, piece, captured, Move.FLAG_NONE, KNIGHT);
+        } else {
+            moves[index++] = Move.create(from, to, piece, captured);
+        }
+        return index;
+    }
+
+    /**
+     * Castling needs the right to be intact, the squares between king and rook to be empty
+     * and the king to not start, pass through or land on an attacked square.
+     */
+    private static int generateCastlingMoves(BitboardPosition position, int us, int[] moves, int index) {
+        int rights = position.getCastlingRights();
+        int kingSide = us == WHITE ? CASTLING_WHITE_KING_SIDE : CASTLING_BLACK_KING_SIDE;
+        int queenSide = us == WHITE ? CASTLING_WHITE_QUEEN_SIDE : CASTLING_BLACK_QUEEN_SIDE;
+        if ((rights & (kingSide | queenSide)) == 0) {
+            return index;
+        }
+
+        int king = pieceCode(us, KING);
+        int from = us == WHITE ? BitboardPosition.WHITE_KING_START : BitboardPosition.BLACK_KING_START;
+        int them = us == WHITE ? BLACK : WHITE;
+        long occupancy = position.getOccupancy();
+        if (position.isSquareAttacked(from, them)) {
+            return index;
+        }
+
+        if ((rights & kingSide) != 0 && (occupancy & (bit(from + 1) | bit(from + 2))) == 0
+                && !position.isSquareAttacked(from + 1, them) && !position.isSquareAttacked(from + 2, them)) {
+            moves[index++] = Move.create(from, from + 2, king, NO_PIECE, Move.FLAG_CASTLING, 0);
+        }
+        if ((rights & queenSide) != 0 && (occupancy & (bit(from - 1) | bit(from - 2) | bit(from - 3))) == 0
+                && !position.isSquareAttacked(from - 1, them) && !position.isSquareAttacked(from - 2, them)) {
+            moves[index++] = Move.create(from, from - 2, king, NO_PIECE, Move.FLAG_CASTLING, 0);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,94 @@
+package net.alexblass.chess.model.bitboard;
+
+import net.alexblass.chess.model.notation.Fen;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth ("perft").
+ * The counts are well known for standard test positions, which makes perft both a check of
+ * the move rules and a benchmark of move generation plus make/unmake.
+ *
+ * Run with ./gradlew :engine:perft, or run the class with the depth and a FEN as its arguments.
+ */
+public class Perft {
+
+    public static final int DEFAULT_DEPTH = 5;
+
+    private final BitboardPosition mPosition;
+    private int[] mMoveBuffer = new int[0];
+
+    public Perft(BitboardPosition position) {
+        mPosition = position;
+    }
+
+    public long count(int depth) {
+        ensureBufferSize(depth);
+        return count(depth, 0);
+    }
+
+    /**
+     * Counts the leaf nodes below each root move separately, which narrows a wrong total down
+     * to the move whose subtree is off.
+     * @return the count for each root move keyed by its coordinate notation.
+     */
+    public Map<String, Long> divide(int depth) {
+        ensureBufferSize(depth);
+        Map<String, Long> counts = new LinkedHashMap<>();
+        int moveCount = MoveGenerator.generateLegalMoves(mPosition, mMoveBuffer, 0);
+        for (int i = 0; i < moveCount; i++) {
+            int move = mMoveBuffer[i];
+            mPosition.makeMove(move);
+            counts.put(Move.toNotation(move), depth <= 1 ? 1L : count(depth - 1, MoveGenerator.MAX_MOVES));
+            mPosition.unmakeMove();
+        }
+        return counts;
+    }
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_DEPTH;
+        String fen = args.length > 1 ? args[1] : Fen.STARTING_POSITION;
+
+        BitboardPosition position = new BitboardPosition();
+        Fen.parse(fen, position);
+        Perft perft = new Perft(position);
+
+        System.out.println("Position:  " + fen);
+        for (int i = 1; i <= depth; i++) {
+            long startTime = System.nanoTime();
+            long nodes = perft.count(i);
+            long elapsedNanos = Math.max(1L, System.nanoTime() - startTime);
+            System.out.println("perft(" + i + ") = " + nodes + " at "
+                    + nodes * 1000000000L / elapsedNanos + " nodes/s");
+        }
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private long count(int depth, int start) {
+        if (depth == 0) {
+            return 1L;
+        }
+
+        int moveCount = MoveGenerator.generateLegalMoves(mPosition, mMoveBuffer, start);
+        if (depth == 1) {
+            return moveCount;
+        }
+
+        long nodes = 0L;
+        int end = start + moveCount;
+        for (int i = start; i < end; i++) {
+            mPosition.makeMove(mMoveBuffer[i]);
+            nodes += count(depth - 1, end);
+            mPosition.unmakeMove();
+        }
+        return nodes;
+    }
+
+    private void ensureBufferSize(int depth) {
+        int size = (depth + 1) * MoveGenerator.MAX_MOVES;
+        if (mMoveBuffer.length < size) {
+            mMoveBuffer = new int[size];
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package net.alexblass.chess.model.bitboard;
+
+import static net.alexblass.chess.model.bitboard.Bitboards.BLACK;
+import static net.alexblass.chess.model.bitboard.Bitboards.KING;
+import static net.alexblass.chess.model.bitboard.Bitboards.PAWN;
+import static net.alexblass.chess.model.bitboard.Bitboards.WHITE;
+import static net.alexblass.chess.model.bitboard.Bitboards.bit;
+import static net.alexblass.chess.model.bitboard.Bitboards.colorOf;
+import static net.alexblass.chess.model.bitboard.Bitboards.lowestSquare;
+import static net.alexblass.chess.model.bitboard.Bitboards.typeOf;
+
+/**
+ * Static exchange evaluation: the material a capture wins or loses once both sides have
+ * recaptured on its square for as long as it pays off, always with their least valuable piece.
+ *
+ * The exchange is worked out on occupancy bitboards alone, sliders behind a capturing piece
+ * join in as it leaves, and nothing is played on the position. Pins are not considered.
+ * isAtLeast() answers the question a search asks, whether a move loses material, without
+ * allocating, see() computes the actual amount.
+ */
+public final class StaticExchange {
+
+    // High enough that recapturing with the king only counts when nothing can take it back
+    private static final int KING_VALUE = 20000;
+    // The longest possible exchange, every piece on the board capturing on one square
+    private static final int MAX_EXCHANGE = 32;
+
+    private StaticExchange() {
+    }
+
+    /**
+     * @return the material the mover gains with the move in centipawns, negative when the
+     * exchange it starts loses material. Quiet moves count the piece they put at risk.
+     */
+    public static int see(BitboardPosition position, int move) {
+        int from = Move.getFrom(move);
+        int to = Move.getTo(move);
+        int us = colorOf(Move.getPiece(move));
+        int[] gains = new int[MAX_EXCHANGE];
+
+        long occupancy = position.getOccupancy() ^ bit(from);
+        gains[0] = Move.isCapture(move) ? value(typeOf(Move.getCaptured(move))) : 0;
+        if (Move.getFlag(move) == Move.FLAG_EN_PASSANT) {
+            occupancy ^= bit(us == WHITE ? to + 8 : to - 8);
+        }
+        // The piece standing on the square, which the next capture wins
+        int targetValue = value(typeOf(Move.getPiece(move)));
+        if (Move.isPromotion(move)) {
+            targetValue = value(Move.getPromotionType(move));
+            gains[0] += targetValue - value(PAWN);
+        }
+
+        long attackers = getAttackers(position, to, occupancy) & occupancy;
+        int side = us ^ 1;
+        int depth = 0;
+        while (depth < MAX_EXCHANGE - 1) {
+            long sideAttackers = attackers & position.getOccupancy(side);
+            if (sideAttackers == 0) {
+                break;
+            }
+
+            // What this side is ahead by if it captures and the exchange stops there
+            depth++;
+            gains[depth] = targetValue - gains[depth - 1];
+
+            int attackerType = getLeastValuableType(position, side, sideAttackers);
+            long attacker = position.getPieces(side, attackerType) & sideAttackers;
+            occupancy ^= attacker & -attacker;
+            // The capture may have uncovered a slider behind it
+            attackers = getAttackers(position, to, occupancy) & occupancy;
+            targetValue = value(attackerType);
+            side ^= 1;
+        }
+
+        // Going back through the exchange, each side only captures when that beats stopping
+        while (depth > 0) {
+            gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+            depth--;
+        }
+        return gains[0];
+    }
+
+    /**
+     * Checks whether the exchange started by the move gains at least threshold centipawns for the
+     * mover, without working out by how much.
+     */
+    public static boolean isAtLeast(BitboardPosition position, int move, int threshold) {
+        int from = Move.getFrom(move);
+        int to = Move.getTo(move);
+        int us = colorOf(Move.getPiece(move));
+
+        long occupancy = position.getOccupancy() ^ bit(from);
+        int targetValue = value(typeOf(Move.getPiece(move)));
+        // What the mover is ahead by, less the threshold, once the opponent has answered
+        int balance = (Move.isCapture(move) ? value(typeOf(Move.getCaptured(move))) : 0) - threshold;
+        if (Move.getFlag(move) == Move.FLAG_EN_PASSANT) {
+            occupancy ^= bit(us == WHITE ? to + 8 : to - 8);
+        }
+        if (Move.isPromotion(move)) {
+            targetValue = value(Move.getPromotionType(move));
+            balance += targetValue - value(PAWN);
+        }
+        if (balance < 0) {
+            return false;
+        }
+        // Even losing the moved piece for nothing keeps the mover above the threshold
+        balance = targetValue - balance;
+        if (balance <= 0) {
+            return true;
+        }
+
+        long attackers = getAttackers(position, to, occupancy) & occupancy;
+        int side = us;
+        boolean isMoverAhead = true;
+        while (true) {
+            side ^= 1;
+            long sideAttackers = attackers & position.getOccupancy(side);
+            if (sideAttackers == 0) {
+                break;
+            }
+            isMoverAhead = !isMoverAhead;
+
+            int attackerType = getLeastValuableType(position, side, sideAttackers);
+            if (attackerType == KING) {
+                // Taking with the king is only possible when nothing can take it back
+                return (attackers & position.getOccupancy(side ^ 1)) != 0 ? !isMoverAhead : isMoverAhead;
+            }
+            balance = value(attackerType) - balance;
+            if (balance < (isMoverAhead ? 1 : 0)) {
+                break;
+            }
+
+            long attacker = position.getPieces(side, attackerType) & sideAttackers;
+            occupancy ^= attacker & -attacker;
+            attackers = getAttackers(position, to, occupancy) & occupancy;
+        }
+        return isMoverAhead;
+    }
+
+    /**
+     * Finds the pieces of the color that the opponent can win material from by capturing them.
+     * Cheap enough to run after every move, for example to point out hanging pieces.
+     * @return a bitboard of those pieces.
+     */
+    public static long getHangingPieces(BitboardPosition position, int color) {
+        int them = color ^ 1;
+        long occupancy = position.getOccupancy();
+        long hanging = 0L;
+        for (long pieces = position.getOccupancy(color); pieces != 0; pieces &= pieces - 1) {
+            int square = lowestSquare(pieces);
+            int piece = position.getPieceAt(square);
+            long attackers = position.getAttackers(square, them, occupancy);
+            if (typeOf(piece) == KING || attackers == 0) {
+                continue;
+            }
+
+            int attackerType = getLeastValuableType(position, them, attackers);
+            int from = lowestSquare(position.getPieces(them, attackerType) & attackers);
+            if (isAtLeast(position, Move.create(from, square, Bitboards.pieceCode(them, attackerType), piece), 1)) {
+                hanging |= bit(square);
+            }
+        }
+        return hanging;
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private static int value(int type) {
+        return type == KING ? KING_VALUE : PieceSquareTables.PIECE_VALUES[type];
+    }
+
+    private static long getAttackers(BitboardPosition position, int square, long occupancy) {
+        return position.getAttackers(square, WHITE, occupancy) | position.getAttackers(square, BLACK, occupancy);
+    }
+
+    private static int getLeastValuableType(BitboardPosition position, int color, long attackers) {
+        for (int type = PAWN; type < KING; type++) {
+            if ((position.getPieces(color, type) & attackers) != 0) {
+                return type;
+            }
+        }
+        return KING;
+    }
+}
@@ -0,0 +1,102 @@
+package net.alexblass.chess.model.bitboard;
+
+import static net.alexblass.chess.model.bitboard.Bitboards.NO_PIECE;
+import static net.alexblass.chess.model.bitboard.Bitboards.SQUARES;
+
+/**
+ * Random keys used to hash positions. A position's key is the XOR of the keys of every piece on
+ * its square, its castling rights, its en passant file and, when black is to move, the side key.
+ * Because XOR is its own inverse a move updates the key by toggling only the keys that changed.
+ *
+ * The keys come from a fixed seed so the same position hashes the same way on every device,
+ * which lets hashes be stored and compared across runs.
+ */
+public final class Zobrist {
+
+    private static final long[] PIECE_SQUARE_KEYS = new long[NO_PIECE * SQUARES];
+    private static final long[] CASTLING_KEYS = new long[BitboardPosition.CASTLING_ALL + 1];
+    private static final long[] EN_PASSANT_KEYS = new long[8];
+    private static final long BLACK_TO_MOVE_KEY;
+
+    private static long sSeed = 0x5DEECE66DL;
+
+    static {
+        for (int i = 0; i < PIECE_SQUARE_KEYS.length; i++) {
+            PIECE_SQUARE_KEYS[i] = nextKey();
+        }
+        // Each castling right gets its own key and combinations are the XOR of their parts
+        long[] rightKeys = new long[4];
+        for (int i = 0; i < rightKeys.length; i++) {
+            rightKeys[i] = nextKey();
+        }
+        for (int rights = 0; rights < CASTLING_KEYS.length; rights++) {
+            for (int i = 0; i < rightKeys.length; i++) {
+                if ((rights & (1 << i)) != 0) {
+                    CASTLING_KEYS[rights] ^= rightKeys[i];
+                }
+            }
+        }
+        for (int i = 0; i < EN_PASSANT_KEYS.length; i++) {
+            EN_PASSANT_KEYS[i] = nextKey();
+        }
+        BLACK_TO_MOVE_KEY = nextKey();
+    }
+
+    private Zobrist() {
+    }
+
+    public static long pieceKey(int piece, int square) {
+        return PIECE_SQUARE_KEYS[(piece << 6) + square];
+    }
+
+    public static long castlingKey(int castlingRights) {
+        return CASTLING_KEYS[castlingRights];
+    }
+
+    public static long enPassantKey(int square) {
+        return square == Bitboards.NO_SQUARE ? 0L : EN_PASSANT_KEYS[Bitboards.colOf(square)];
+    }
+
+    public static long sideKey(int sideToMove) {
+        return sideToMove == Bitboards.WHITE ? 0L : BLACK_TO_MOVE_KEY;
+    }
+
+    /**
+     * Hashes the position from scratch. Only meant for setting up and checking positions, moves
+     * should keep the incremental key up to date instead.
+     */
+    public static long computeKey(BitboardPosition position) {
+        long key = castlingKey(position.getCastlingRights())
+                ^ enPassantKey(position.getEnPassantSquare())
+                ^ sideKey(position.getSideToMove());
+        for (int square = 0; square < SQUARES; square++) {
+            int piece = position.getPieceAt(square);
+            if (piece != NO_PIECE) {
+                key ^= pieceKey(piece, square);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Hashes only the pawns of the position from scratch, see computeKey.
+     */
+    public static long computePawnKey(BitboardPosition position) {
+        long key = 0L;
+        for (int square = 0; square < SQUARES; square++) {
+            int piece = position.getPieceAt(square);
+            if (piece != NO_PIECE && Bitboards.typeOf(piece) == Bitboards.PAWN) {
+                key ^= pieceKey(piece, square);
+            }
+        }
+        return key;
+    }
+
+    private static long nextKey() {
+        // SplitMix64
+        long z = sSeed += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,172 @@
+package net.alexblass.chess.model.notation;
+
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.bitboard.Bitboards;
+import net.alexblass.chess.model.bitboard.Move;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation.
+ * FEN lists the rows from the black home row down, which matches the square numbering of
+ * the BitboardPosition, so the board field can be read straight into squares 0 to 63.
+ */
+public final class Fen {
+
+    public static final String STARTING_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    // Indexed by piece type, upper case for white
+    static final String PIECE_LETTERS = "PNBRQKpnbrqk";
+
+    private Fen() {
+    }
+
+    /**
+     * Clears the position and sets it up from the FEN string.
+     * The halfmove clock and fullmove number may be left out.
+     */
+    public static void parse(String fen, BitboardPosition position) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("FEN needs at least 4 fields: " + fen);
+        }
+
+        position.clear();
+        parseBoard(fields[0], position);
+        position.setSideToMove(parseSideToMove(fields[1]));
+        position.setCastlingRights(parseCastlingRights(fields[2]));
+        position.setEnPassantSquare(fields[3].equals("-") ? Bitboards.NO_SQUARE : parseSquare(fields[3]));
+        if (fields.length > 4) {
+            position.setHalfmoveClock(Integer.parseInt(fields[4]));
+        }
+        if (fields.length > 5) {
+            position.setFullmoveNumber(Integer.parseInt(fields[5]));
+        }
+    }
+
+    /**
+     * @return the position as a FEN string with all six fields.
+     */
+    public static String toFen(BitboardPosition position) {
+        StringBuilder fen = new StringBuilder();
+        appendBoard(position, fen);
+        fen.append(position.getSideToMove() == Bitboards.WHITE ? " w " : " b ");
+        appendCastlingRights(position.getCastlingRights(), fen);
+        fen.append(' ');
+        int enPassantSquare = position.getEnPassantSquare();
+        fen.append(enPassantSquare == Bitboards.NO_SQUARE ? "-" : Move.getSquareName(enPassantSquare));
+        fen.append(' ').append(position.getHalfmoveClock());
+        fen.append(' ').append(position.getFullmoveNumber());
+        return fen.toString();
+    }
+
+    public static int parseSquare(String squareName) {
+        if (squareName.length() != 2) {
+            throw new IllegalArgumentException("Invalid square: " + squareName);
+        }
+        int col = squareName.charAt(0) - 'a';
+        int row = '8' - squareName.charAt(1);
+        if (col < 0 || col > 7 || row < 0 || row > 7) {
+            throw new IllegalArgumentException("Invalid square: " + squareName);
+        }
+        return Bitboards.square(row, col);
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private static void parseBoard(String board, BitboardPosition position) {
+        int square = 0;
+        for (int i = 0; i < board.length(); i++) {
+            char c = board.charAt(i);
+            if (c == '/') {
+                continue;
+            }
+            if (c >= '1' && c <= '8') {
+                square += c - '0';
+            } else {
+                int piece = PIECE_LETTERS.indexOf(c);
+                if (piece < 0 || square >= Bitboards.SQUARES) {
+                    throw new IllegalArgumentException("Invalid FEN board: " + board);
+                }
+                position.putPiece(piece, square++);
+            }
+        }
+        if (square != Bitboards.SQUARES) {
+            throw new IllegalArgumentException("Invalid FEN board: " + board);
+        }
+    }
+
+    private static void appendBoard(BitboardPosition position, StringBuilder fen) {
+        for (int row = 0; row < 8; row++) {
+            int emptySquares = 0;
+            for (int col = 0; col < 8; col++) {
+                int piece = position.getPieceAt(Bitboards.square(row, col));
+                if (piece == Bitboards.NO_PIECE) {
+                    emptySquares++;
+                    continue;
+                }
+                if (emptySquares > 0) {
+                    fen.append(emptySquares);
+                    emptySquares = 0;
+                }
+                fen.append(PIECE_LETTERS.charAt(piece));
+            }
+            if (emptySquares > 0) {
+                fen.append(emptySquares);
+            }
+            if (row < 7) {
+                fen.append('/');
+            }
+        }
+    }
+
+    private static void appendCastlingRights(int rights, StringBuilder fen) {
+        if (rights == 0) {
+            fen.append('-');
+            return;
+        }
+        if ((rights & BitboardPosition.CASTLING_WHITE_KING_SIDE) != 0) {
+            fen.append('K');
+        }
+        if ((rights & BitboardPosition.CASTLING_WHITE_QUEEN_SIDE) != 0) {
+            fen.append('Q');
+        }
+        if ((rights & BitboardPosition.CASTLING_BLACK_KING_SIDE) != 0) {
+            fen.append('k');
+        }
+        if ((rights & BitboardPosition.CASTLING_BLACK_QUEEN_SIDE) != 0) {
+            fen.append('q');
+        }
+    }
+
+    private static int parseSideToMove(String side) {
+        if (side.equals("w")) {
+            return Bitboards.WHITE;
+        } else if (side.equals("b")) {
+            return Bitboards.BLACK;
+        }
+        throw new IllegalArgumentException("Invalid side to move: " + side);
+    }
+
+    private static int parseCastlingRights(String castling) {
+        int rights = 0;
+        for (int i = 0; i < castling.length(); i++) {
+            switch (castling.charAt(i)) {
+                case 'K':
+                    rights |= BitboardPosition.CASTLING_WHITE_KING_SIDE;
+                    break;
+                case 'Q':
+                    rights |= BitboardPosition.CASTLING_WHITE_QUEEN_SIDE;
+                    break;
+                case 'k':
+                    rights |= BitboardPosition.CASTLING_BLACK_KING_SIDE;
+                    break;
+                case 'q':
+                    rights |= BitboardPosition.CASTLING_BLACK_QUEEN_SIDE;
+                    break;
+                case '-':
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid castling rights: " + castling);
+            }
+        }
+        return rights;
+    }
+}
@@ -0,0 +1,86 @@
+package net.alexblass.chess.model.notation;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One game of a PGN file: its tags, its moves as packed Moves played from its starting position
+ * and its result.
+ */
+public class PgnGame {
+
+    public static final String TAG_EVENT = "Event";
+    public static final String TAG_SITE = "Site";
+    public static final String TAG_DATE = "Date";
+    public static final String TAG_ROUND = "Round";
+    public static final String TAG_WHITE = "White";
+    public static final String TAG_BLACK = "Black";
+    public static final String TAG_RESULT = "Result";
+    public static final String TAG_SET_UP = "SetUp";
+    public static final String TAG_FEN = "FEN";
+
+    public static final String RESULT_WHITE_WINS = "1-0";
+    public static final String RESULT_BLACK_WINS = "0-1";
+    public static final String RESULT_DRAW = "1/2-1/2";
+    public static final String RESULT_UNKNOWN = "*";
+
+    private final Map<String, String> mTags;
+    private final int[] mMoves;
+    private final String mResult;
+    private final String mError;
+
+    public PgnGame(Map<String, String> tags, int[] moves, String result) {
+        this(tags, moves, result, null);
+    }
+
+    /**
+     * @param error why the moves stop early, null when the whole game could be read.
+     */
+    public PgnGame(Map<String, String> tags, int[] moves, String result, String error) {
+        mTags = new LinkedHashMap<>(tags);
+        mMoves = moves;
+        mResult = result;
+        mError = error;
+    }
+
+    public Map<String, String> getTags() {
+        return Collections.unmodifiableMap(mTags);
+    }
+
+    /**
+     * @return the tag's value, or null when the game doesn't have it.
+     */
+    public String getTag(String name) {
+        return mTags.get(name);
+    }
+
+    /**
+     * @return the FEN of the starting position, which is the standard one unless the game was set
+     * up from another.
+     */
+    public String getStartingFen() {
+        String fen = mTags.get(TAG_FEN);
+        return fen != null ? fen : Fen.STARTING_POSITION;
+    }
+
+    public int[] getMoves() {
+        return mMoves;
+    }
+
+    public String getResult() {
+        return mResult;
+    }
+
+    /**
+     * @return false when a move couldn't be parsed or wasn't legal, in which case getMoves()
+     * holds the moves before it.
+     */
+    public boolean isValid() {
+        return mError == null;
+    }
+
+    public String getError() {
+        return mError;
+    }
+}
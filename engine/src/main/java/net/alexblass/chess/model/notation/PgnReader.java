@@ -0,0 +1,321 @@
+package net.alexblass.chess.model.notation;
+
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.bitboard.MoveGenerator;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads the games of a PGN file one at a time, however large the file.
+ *
+ * The channel is read in fixed-size chunks and decoded as UTF-8 into a reused character buffer,
+ * so memory use doesn't grow with the file. Every move is parsed as SAN and played on the
+ * rules engine, which both validates the game and turns its moves into packed Moves. Comments,
+ * variations, numeric annotation glyphs and escaped lines are skipped.
+ *
+ * A game with a move that can't be parsed or isn't legal is still returned, with the moves
+ * before it and an error, so one bad game doesn't stop an import.
+ */
+public class PgnReader implements Closeable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final int END_OF_INPUT = -1;
+    private static final int NO_CHAR = -2;
+    private static final String TOKEN_DELIMITERS = "[]{}();";
+
+    private final ReadableByteChannel mChannel;
+    private final ByteBuffer mBytes;
+    private final CharBuffer mChars;
+    private final CharsetDecoder mDecoder;
+    private boolean mIsEndOfInput;
+    private boolean mIsFlushed;
+    private int mPushedBack = NO_CHAR;
+    private int mPreviousChar = '\n';
+
+    private final StringBuilder mToken = new StringBuilder();
+    private final BitboardPosition mPosition = new BitboardPosition();
+    private final int[] mLegalMoves = new int[MoveGenerator.MAX_MOVES];
+    private int[] mMoves = new int[256];
+
+    public PgnReader(ReadableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    public PgnReader(ReadableByteChannel channel, int bufferSize) {
+        mChannel = channel;
+        mBytes = ByteBuffer.allocateDirect(bufferSize);
+        mChars = CharBuffer.allocate(bufferSize);
+        mChars.flip();
+        mDecoder = Charset.forName("UTF-8").newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    public static PgnReader open(File file) throws IOException {
+        return new PgnReader(new FileInputStream(file).getChannel());
+    }
+
+    /**
+     * @return the next game, or null when there are no more.
+     */
+    public PgnGame next() throws IOException {
+        Map<String, String> tags = new LinkedHashMap<>();
+        boolean hasContent = false;
+        boolean isInMovetext = false;
+        int moveCount = 0;
+        String result = null;
+        String error = null;
+
+        while (result == null) {
+            boolean isLineStart = mPreviousChar == '\n';
+            int c = read();
+            if (c == END_OF_INPUT) {
+                if (!hasContent) {
+                    return null;
+                }
+                break;
+            }
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            // An escape only counts at the start of a line, otherwise it's just a token
+            if (c == '%' && isLineStart) {
+                skipPast('\n');
+                continue;
+            }
+
+            switch (c) {
+                case '[':
+                    if (isInMovetext) {
+                        // A game without a result ends where the next one's tags start
+                        mPushedBack = c;
+                        result = PgnGame.RESULT_UNKNOWN;
+                    } else {
+                        readTag(tags);
+                        hasContent = true;
+                    }
+                    break;
+                case '{':
+                    skipPast('}');
+                    break;
+                case ';':
+                    skipPast('\n');
+                    break;
+                case '(':
+                    skipVariation();
+                    break;
+                case '$':
+                    readToken(c);
+                    break;
+                default:
+                    hasContent = true;
+                    if (!isInMovetext) {
+                        isInMovetext = true;
+                        error = setUpPosition(tags);
+                    }
+                    readToken(c);
+                    if (isResult(mToken)) {
+                        result = mToken.toString();
+                    } else if (error == null && stripMoveNumber(mToken)) {
+                        try {
+                            int move = San.parse(mPosition, mToken, mLegalMoves);
+                            if (moveCount == BitboardPosition.MAX_HISTORY - 1) {
+                                throw new IllegalArgumentException("Game is too long");
+                            }
+                            if (moveCount == mMoves.length) {
+                                mMoves = Arrays.copyOf(mMoves, moveCount * 2);
+                            }
+                            mMoves[moveCount++] = move;
+                            mPosition.makeMove(move);
+                        } catch (IllegalArgumentException e) {
+                            error = "Ply " + (moveCount + 1) + ": " + e.getMessage();
+                        }
+                    }
+                    break;
+            }
+        }
+
+        if (result == null) {
+            result = tags.containsKey(PgnGame.TAG_RESULT) ? tags.get(PgnGame.TAG_RESULT) : PgnGame.RESULT_UNKNOWN;
+        }
+        return new PgnGame(tags, Arrays.copyOf(mMoves, moveCount), result, error);
+    }
+
+    @Override
+    public void close() throws IOException {
+        mChannel.close();
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private int read() throws IOException {
+        if (mPushedBack != NO_CHAR) {
+            int c = mPushedBack;
+            mPushedBack = NO_CHAR;
+            return c;
+        }
+        if (!mChars.hasRemaining() && !fill()) {
+            return END_OF_INPUT;
+        }
+        mPreviousChar = mChars.get();
+        return mPreviousChar;
+    }
+
+    /**
+     * Decodes the next chunk of the channel into the character buffer.
+     * @return false when the input is exhausted.
+     */
+    private boolean fill() throws IOException {
+        mChars.clear();
+        while (mChars.position() == 0 && !mIsFlushed) {
+            if (!mIsEndOfInput && mChannel.read(mBytes) < 0) {
+                mIsEndOfInput = true;
+            }
+            mBytes.flip();
+            mDecoder.decode(mBytes, mChars, mIsEndOfInput);
+            // A character split between two chunks stays behind until the next read
+            mBytes.compact();
+            if (mIsEndOfInput) {
+                mDecoder.flush(mChars);
+                mIsFlushed = true;
+            }
+        }
+        mChars.flip();
+        return mChars.hasRemaining();
+    }
+
+    private void skipPast(char end) throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c != end && c != END_OF_INPUT);
+    }
+
+    private void skipVariation() throws IOException {
+        int depth = 1;
+        while (depth > 0) {
+            int c = read();
+            if (c == END_OF_INPUT) {
+                return;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '{') {
+                // Comments may hold parentheses of their own
+                skipPast('}');
+            }
+        }
+    }
+
+    /**
+     * Reads a token starting with the given character into mToken.
+     */
+    private void readToken(int first) throws IOException {
+        mToken.setLength(0);
+        mToken.append((char) first);
+        while (true) {
+            int c = read();
+            if (c == END_OF_INPUT || Character.isWhitespace(c)) {
+                return;
+            }
+            if (TOKEN_DELIMITERS.indexOf(c) >= 0) {
+                mPushedBack = c;
+                return;
+            }
+            mToken.append((char) c);
+        }
+    }
+
+    /**
+     * Reads a tag like [White "Carlsen, Magnus"] after its opening bracket.
+     */
+    private void readTag(Map<String, String> tags) throws IOException {
+        StringBuilder name = new StringBuilder();
+        int c = read();
+        while (c != END_OF_INPUT && c != '"' && c != ']') {
+            if (!Character.isWhitespace(c)) {
+                name.append((char) c);
+            }
+            c = read();
+        }
+
+        StringBuilder value = new StringBuilder();
+        if (c == '"') {
+            c = read();
+            while (c != END_OF_INPUT && c != '"') {
+                if (c == '\\') {
+                    c = read();
+                }
+                if (c != END_OF_INPUT) {
+                    value.append((char) c);
+                }
+                c = read();
+            }
+            skipPast(']');
+        }
+        tags.put(name.toString(), value.toString());
+    }
+
+    /**
+     * @return an error when the game's FEN tag can't be read, null otherwise.
+     */
+    private String setUpPosition(Map<String, String> tags) {
+        String fen = tags.get(PgnGame.TAG_FEN);
+        try {
+            Fen.parse(fen != null ? fen : Fen.STARTING_POSITION, mPosition);
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * Removes a leading move number like 12. or 12... from the token.
+     * @return true when a move is left.
+     */
+    private static boolean stripMoveNumber(StringBuilder token) {
+        int i = 0;
+        while (i < token.length() && Character.isDigit(token.charAt(i))) {
+            i++;
+        }
+        if (i > 0 && (i == token.length() || token.charAt(i) == '.')) {
+            while (i < token.length() && token.charAt(i) == '.') {
+                i++;
+            }
+            token.delete(0, i);
+        }
+        return token.length() > 0;
+    }
+
+    private static boolean isResult(CharSequence token) {
+        return contentEquals(token, PgnGame.RESULT_WHITE_WINS)
+                || contentEquals(token, PgnGame.RESULT_BLACK_WINS)
+                || contentEquals(token, PgnGame.RESULT_DRAW)
+                || contentEquals(token, PgnGame.RESULT_UNKNOWN);
+    }
+
+    private static boolean contentEquals(CharSequence token, String value) {
+        if (token.length() != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (token.charAt(i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
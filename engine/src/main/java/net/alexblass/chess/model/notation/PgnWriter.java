@@ -0,0 +1,114 @@
+package net.alexblass.chess.model.notation;
+
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.bitboard.Bitboards;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Writes games in the PGN export format that PgnReader and other chess programs read.
+ *
+ * The seven required tags come first, "?" standing in for missing ones, followed by the other
+ * tags and the moves in SAN, wrapped to lines of at most 80 characters.
+ */
+public class PgnWriter implements Closeable {
+
+    private static final int MAX_LINE_LENGTH = 80;
+    private static final String[] SEVEN_TAG_ROSTER = {
+            PgnGame.TAG_EVENT, PgnGame.TAG_SITE, PgnGame.TAG_DATE, PgnGame.TAG_ROUND,
+            PgnGame.TAG_WHITE, PgnGame.TAG_BLACK, PgnGame.TAG_RESULT
+    };
+
+    private final Writer mWriter;
+    private final BitboardPosition mPosition = new BitboardPosition();
+    private final StringBuilder mLine = new StringBuilder(MAX_LINE_LENGTH);
+    private final StringBuilder mToken = new StringBuilder();
+
+    public PgnWriter(Writer writer) {
+        mWriter = writer;
+    }
+
+    /**
+     * @throws IllegalArgumentException when a move isn't legal in the game.
+     */
+    public void write(PgnGame game) throws IOException {
+        Map<String, String> tags = game.getTags();
+        for (String name : SEVEN_TAG_ROSTER) {
+            String value = name.equals(PgnGame.TAG_RESULT) ? game.getResult() : tags.get(name);
+            writeTag(name, value != null ? value : "?");
+        }
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            if (!isInSevenTagRoster(tag.getKey())) {
+                writeTag(tag.getKey(), tag.getValue());
+            }
+        }
+        mWriter.write('\n');
+
+        Fen.parse(game.getStartingFen(), mPosition);
+        mLine.setLength(0);
+        int[] moves = game.getMoves();
+        for (int i = 0; i < moves.length; i++) {
+            mToken.setLength(0);
+            if (mPosition.getSideToMove() == Bitboards.WHITE) {
+                mToken.append(mPosition.getFullmoveNumber()).append(". ");
+            } else if (i == 0) {
+                mToken.append(mPosition.getFullmoveNumber()).append("... ");
+            }
+            San.format(mPosition, moves[i], mToken);
+            appendToken(mToken);
+            mPosition.makeMove(moves[i]);
+        }
+        mToken.setLength(0);
+        mToken.append(game.getResult());
+        appendToken(mToken);
+        mWriter.append(mLine).append("\n\n");
+    }
+
+    public void flush() throws IOException {
+        mWriter.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        mWriter.close();
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private void writeTag(String name, String value) throws IOException {
+        mWriter.append('[').append(name).append(" \"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                mWriter.append('\\');
+            }
+            mWriter.append(c);
+        }
+        mWriter.append("\"]\n");
+    }
+
+    /**
+     * Adds the token to the current line, starting a new line when it wouldn't fit.
+     */
+    private void appendToken(CharSequence token) throws IOException {
+        if (mLine.length() > 0 && mLine.length() + 1 + token.length() > MAX_LINE_LENGTH) {
+            mWriter.append(mLine).append('\n');
+            mLine.setLength(0);
+        }
+        if (mLine.length() > 0) {
+            mLine.append(' ');
+        }
+        mLine.append(token);
+    }
+
+    private static boolean isInSevenTagRoster(String name) {
+        for (String rosterName : SEVEN_TAG_ROSTER) {
+            if (rosterName.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
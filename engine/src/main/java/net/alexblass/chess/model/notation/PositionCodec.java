@@ -0,0 +1,148 @@
+package net.alexblass.chess.model.notation;
+
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.bitboard.Bitboards;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static net.alexblass.chess.model.bitboard.Bitboards.BLACK;
+import static net.alexblass.chess.model.bitboard.Bitboards.NO_PIECE;
+import static net.alexblass.chess.model.bitboard.Bitboards.NO_SQUARE;
+import static net.alexblass.chess.model.bitboard.Bitboards.PAWN;
+import static net.alexblass.chess.model.bitboard.Bitboards.WHITE;
+
+/**
+ * Packs a position into at most 28 bytes, for storing and sharing positions where FEN is too
+ * large or too slow to parse.
+ *
+ * Layout: the occupancy bitboard (8 bytes), then the piece code of every occupied square from
+ * square 0 up, one per nibble with the high nibble first, then one byte holding the side to move
+ * in bit 0 and the castling rights in bits 1-4, one byte for the halfmove clock and two for the
+ * fullmove number. A pawn that can be taken en passant is stored with the unused piece code
+ * NO_PIECE, its color follows from its row, so the en passant square costs no extra byte.
+ *
+ * Encoding and decoding work straight on the bytes, without building any strings.
+ */
+public final class PositionCodec {
+
+    public static final int MAX_BYTES = 28;
+
+    private static final int EN_PASSANT_PAWN = NO_PIECE;
+    // Rows where a pawn lands after moving two squares
+    private static final int WHITE_DOUBLE_PUSH_ROW = 4;
+    private static final int BLACK_DOUBLE_PUSH_ROW = 3;
+    private static final int CASTLING_SHIFT = 1;
+    private static final int MAX_HALFMOVE_CLOCK = 0xFF;
+    private static final int MAX_FULLMOVE_NUMBER = 0xFFFF;
+
+    private PositionCodec() {
+    }
+
+    /**
+     * @return the position packed into a new array of just the bytes it needs.
+     */
+    public static byte[] encode(BitboardPosition position) {
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_BYTES);
+        encode(position, buffer);
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * Writes the packed position at the buffer's position and moves past it.
+     * @return the number of bytes written.
+     */
+    public static int encode(BitboardPosition position, ByteBuffer buffer) {
+        int start = buffer.position();
+        long occupancy = position.getOccupancy();
+        int enPassantPawn = getEnPassantPawnSquare(position);
+        buffer.putLong(occupancy);
+
+        int pendingNibble = -1;
+        for (long pieces = occupancy; pieces != 0L; pieces &= pieces - 1) {
+            int square = Bitboards.lowestSquare(pieces);
+            int code = square == enPassantPawn ? EN_PASSANT_PAWN : position.getPieceAt(square);
+            if (pendingNibble < 0) {
+                pendingNibble = code;
+            } else {
+                buffer.put((byte) ((pendingNibble << 4) | code));
+                pendingNibble = -1;
+            }
+        }
+        if (pendingNibble >= 0) {
+            buffer.put((byte) (pendingNibble << 4));
+        }
+
+        buffer.put((byte) (position.getSideToMove() | (position.getCastlingRights() << CASTLING_SHIFT)));
+        buffer.put((byte) Math.min(position.getHalfmoveClock(), MAX_HALFMOVE_CLOCK));
+        buffer.putShort((short) Math.min(position.getFullmoveNumber(), MAX_FULLMOVE_NUMBER));
+        return buffer.position() - start;
+    }
+
+    /**
+     * Clears the position and sets it up from the packed bytes at the array's offset.
+     * @return the number of bytes read.
+     */
+    public static int decode(byte[] bytes, int offset, BitboardPosition position) {
+        return decode(ByteBuffer.wrap(bytes, offset, bytes.length - offset), position);
+    }
+
+    /**
+     * Clears the position and sets it up from the packed bytes at the buffer's position, then
+     * moves past them.
+     * @return the number of bytes read.
+     */
+    public static int decode(ByteBuffer buffer, BitboardPosition position) {
+        int start = buffer.position();
+        long occupancy = buffer.getLong();
+        position.clear();
+
+        int enPassantSquare = NO_SQUARE;
+        int packed = 0;
+        boolean isHighNibble = true;
+        for (long pieces = occupancy; pieces != 0L; pieces &= pieces - 1) {
+            int square = Bitboards.lowestSquare(pieces);
+            if (isHighNibble) {
+                packed = buffer.get() & 0xFF;
+            }
+            int code = isHighNibble ? packed >>> 4 : packed & 0xF;
+            isHighNibble = !isHighNibble;
+
+            if (code == EN_PASSANT_PAWN) {
+                int row = Bitboards.rowOf(square);
+                if (row == WHITE_DOUBLE_PUSH_ROW) {
+                    code = Bitboards.pieceCode(WHITE, PAWN);
+                    enPassantSquare = square + 8;
+                } else if (row == BLACK_DOUBLE_PUSH_ROW) {
+                    code = Bitboards.pieceCode(BLACK, PAWN);
+                    enPassantSquare = square - 8;
+                }
+            }
+            if (code >= NO_PIECE) {
+                throw new IllegalArgumentException("Invalid piece code " + code + " on square " + square);
+            }
+            position.putPiece(code, square);
+        }
+
+        int state = buffer.get() & 0xFF;
+        position.setSideToMove(state & 1);
+        position.setCastlingRights(state >>> CASTLING_SHIFT);
+        position.setEnPassantSquare(enPassantSquare);
+        position.setHalfmoveClock(buffer.get() & 0xFF);
+        position.setFullmoveNumber(buffer.getShort() & 0xFFFF);
+        return buffer.position() - start;
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    /**
+     * @return the square of the pawn that can be taken en passant, or NO_SQUARE.
+     */
+    private static int getEnPassantPawnSquare(BitboardPosition position) {
+        int enPassantSquare = position.getEnPassantSquare();
+        if (enPassantSquare == NO_SQUARE) {
+            return NO_SQUARE;
+        }
+        // The pawn moved last, so it belongs to the side not to move
+        return position.getSideToMove() == WHITE ? enPassantSquare + 8 : enPassantSquare - 8;
+    }
+}
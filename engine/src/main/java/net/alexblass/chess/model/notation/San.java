@@ -0,0 +1,227 @@
+package net.alexblass.chess.model.notation;
+
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.bitboard.Bitboards;
+import net.alexblass.chess.model.bitboard.Move;
+import net.alexblass.chess.model.bitboard.MoveGenerator;
+
+import static net.alexblass.chess.model.bitboard.Bitboards.PAWN;
+
+/**
+ * Reads and writes moves in Standard Algebraic Notation, like Nbd7, exd6, e8=Q+ or O-O-O.
+ *
+ * A SAN move only makes sense in its position, so both directions match it against the legal
+ * moves of the position. Parsing accepts the usual variations: missing or extra capture marks,
+ * check and annotation suffixes, promotions without '=' and castling written with zeros.
+ */
+public final class San {
+
+    public static final String KING_SIDE_CASTLING = "O-O";
+    public static final String QUEEN_SIDE_CASTLING = "O-O-O";
+
+    // Indexed by piece type
+    private static final String PIECE_LETTERS = "PNBRQK";
+    private static final String SUFFIXES = "+#!?";
+
+    private San() {
+    }
+
+    public static int parse(BitboardPosition position, CharSequence san) {
+        return parse(position, san, new int[MoveGenerator.MAX_MOVES]);
+    }
+
+    /**
+     * Finds the legal move the SAN stands for, using legalMoves as the buffer for the legal moves
+     * so a reader parsing many moves doesn't allocate one each time.
+     * @throws IllegalArgumentException when the SAN matches no legal move or more than one.
+     */
+    public static int parse(BitboardPosition position, CharSequence san, int[] legalMoves) {
+        int end = san.length();
+        while (end > 0 && SUFFIXES.indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        int moveCount = MoveGenerator.generateLegalMoves(position, legalMoves, 0);
+
+        int castlingSide = getCastlingSide(san, end);
+        if (castlingSide != 0) {
+            for (int i = 0; i < moveCount; i++) {
+                int move = legalMoves[i];
+                if (Move.getFlag(move) == Move.FLAG_CASTLING
+                        && Integer.signum(Move.getTo(move) - Move.getFrom(move)) == castlingSide) {
+                    return move;
+                }
+            }
+            throw new IllegalArgumentException("Illegal move: " + san);
+        }
+
+        int promotionType = 0;
+        if (end >= 3 && (san.charAt(end - 2) == '=' || isRank(san.charAt(end - 2)))) {
+            int type = PIECE_LETTERS.indexOf(Character.toUpperCase(san.charAt(end - 1)));
+            if (type > PAWN && type < Bitboards.KING) {
+                promotionType = type;
+                end -= san.charAt(end - 2) == '=' ? 2 : 1;
+            }
+        }
+        if (end < 2 || !isFile(san.charAt(end - 2)) || !isRank(san.charAt(end - 1))) {
+            throw new IllegalArgumentException("Invalid move: " + san);
+        }
+        int to = Bitboards.square('8' - san.charAt(end - 1), san.charAt(end - 2) - 'a');
+
+        int start = 0;
+        int pieceType = PAWN;
+        int letter = PIECE_LETTERS.indexOf(san.charAt(0));
+        if (letter > PAWN) {
+            pieceType = letter;
+            start = 1;
+        }
+        // Whatever is left between the piece and the destination narrows down where it came from
+        int fromCol = -1;
+        int fromRow = -1;
+        for (int i = start; i < end - 2; i++) {
+            char c = san.charAt(i);
+            if (isFile(c)) {
+                fromCol = c - 'a';
+            } else if (isRank(c)) {
+                fromRow = '8' - c;
+            } else if (c != 'x' && c != ':' && c != '-') {
+                throw new IllegalArgumentException("Invalid move: " + san);
+            }
+        }
+
+        int match = Move.NO_MOVE;
+        for (int i = 0; i < moveCount; i++) {
+            int move = legalMoves[i];
+            int from = Move.getFrom(move);
+            if (Move.getTo(move) == to
+                    && Bitboards.typeOf(Move.getPiece(move)) == pieceType
+                    && Move.getPromotionType(move) == promotionType
+                    && Move.getFlag(move) != Move.FLAG_CASTLING
+                    && (fromCol < 0 || Bitboards.colOf(from) == fromCol)
+                    && (fromRow < 0 || Bitboards.rowOf(from) == fromRow)) {
+                if (match != Move.NO_MOVE) {
+                    throw new IllegalArgumentException("Ambiguous move: " + san);
+                }
+                match = move;
+            }
+        }
+        if (match == Move.NO_MOVE) {
+            throw new IllegalArgumentException("Illegal move: " + san);
+        }
+        return match;
+    }
+
+    public static String format(BitboardPosition position, int move) {
+        StringBuilder san = new StringBuilder(8);
+        format(position, move, san);
+        return san.toString();
+    }
+
+    /**
+     * Appends the SAN of a legal move of the position, with its check or mate suffix.
+     */
+    public static void format(BitboardPosition position, int move, StringBuilder san) {
+        int from = Move.getFrom(move);
+        int to = Move.getTo(move);
+        int type = Bitboards.typeOf(Move.getPiece(move));
+        int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+
+        if (Move.getFlag(move) == Move.FLAG_CASTLING) {
+            san.append(to > from ? KING_SIDE_CASTLING : QUEEN_SIDE_CASTLING);
+        } else {
+            if (type == PAWN) {
+                if (Move.isCapture(move)) {
+                    san.append(getFileLetter(from));
+                }
+            } else {
+                san.append(PIECE_LETTERS.charAt(type));
+                appendDisambiguation(position, move, legalMoves, san);
+            }
+            if (Move.isCapture(move)) {
+                san.append('x');
+            }
+            san.append(getFileLetter(to)).append(getRankDigit(to));
+            if (Move.isPromotion(move)) {
+                san.append('=').append(PIECE_LETTERS.charAt(Move.getPromotionType(move)));
+            }
+        }
+
+        position.makeMove(move);
+        if (position.isInCheck()) {
+            san.append(MoveGenerator.generateLegalMoves(position, legalMoves, 0) == 0 ? '#' : '+');
+        }
+        position.unmakeMove();
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    /**
+     * @return 1 for king side castling, -1 for queen side, 0 when the SAN isn't castling.
+     */
+    private static int getCastlingSide(CharSequence san, int end) {
+        if (isCastling(san, end, QUEEN_SIDE_CASTLING)) {
+            return -1;
+        }
+        return isCastling(san, end, KING_SIDE_CASTLING) ? 1 : 0;
+    }
+
+    private static boolean isCastling(CharSequence san, int end, String castling) {
+        if (end != castling.length()) {
+            return false;
+        }
+        for (int i = 0; i < end; i++) {
+            char c = castling.charAt(i) == 'O' && san.charAt(i) == '0' ? 'O' : san.charAt(i);
+            if (c != castling.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds the file, the rank or both of the start square when another piece of the same kind
+     * could move to the same square.
+     */
+    private static void appendDisambiguation(BitboardPosition position, int move, int[] legalMoves,
+                                             StringBuilder san) {
+        int from = Move.getFrom(move);
+        boolean isAmbiguous = false;
+        boolean isFileShared = false;
+        boolean isRankShared = false;
+        int moveCount = MoveGenerator.generateLegalMoves(position, legalMoves, 0);
+        for (int i = 0; i < moveCount; i++) {
+            int other = legalMoves[i];
+            int otherFrom = Move.getFrom(other);
+            if (Move.getPiece(other) == Move.getPiece(move) && Move.getTo(other) == Move.getTo(move)
+                    && otherFrom != from) {
+                isAmbiguous = true;
+                isFileShared |= Bitboards.colOf(otherFrom) == Bitboards.colOf(from);
+                isRankShared |= Bitboards.rowOf(otherFrom) == Bitboards.rowOf(from);
+            }
+        }
+        if (!isAmbiguous) {
+            return;
+        }
+        if (!isFileShared) {
+            san.append(getFileLetter(from));
+        } else if (!isRankShared) {
+            san.append(getRankDigit(from));
+        } else {
+            san.append(getFileLetter(from)).append(getRankDigit(from));
+        }
+    }
+
+    private static boolean isFile(char c) {
+        return c >= 'a' && c <= 'h';
+    }
+
+    private static boolean isRank(char c) {
+        return c >= '1' && c <= '8';
+    }
+
+    private static char getFileLetter(int square) {
+        return (char) ('a' + Bitboards.colOf(square));
+    }
+
+    private static char getRankDigit(int square) {
+        return (char) ('8' - Bitboards.rowOf(square));
+    }
+}
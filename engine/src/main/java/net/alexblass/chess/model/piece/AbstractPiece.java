@@ -2,6 +2,8 @@ package net.alexblass.chess.model.piece;
 
 import net.alexblass.chess.model.GameBoard;
 import net.alexblass.chess.model.PieceColor;
+import net.alexblass.chess.model.bitboard.Bitboards;
+import net.alexblass.chess.model.bitboard.PieceSquareTables;
 
 /**
  * An abstract class to derive different piece types to store data related to the game pieces.
@@ -17,13 +19,14 @@ public abstract class AbstractPiece {
     private boolean mHasMovedFromStart;
     private boolean mIsActive;
 
-    abstract public int getImageResId();
     abstract public boolean isValidMove(GameBoard gameBoard, int newRow, int newCol);
+    abstract public int getPieceType();
 
     public AbstractPiece(PieceColor color, int row, int col) {
         mColor = color;
         mRow = row;
         mCol = col;
+        mPointsValue = PieceSquareTables.PIECE_VALUES[getPieceType()];
         mHasMovedFromStart = false;
     }
 
@@ -47,6 +50,13 @@ public abstract class AbstractPiece {
         return mColor;
     }
 
+    /**
+     * @return the material value of the piece in centipawns.
+     */
+    public int getPointsValue() {
+        return mPointsValue;
+    }
+
     boolean hasMovedFromStart() {
         return mHasMovedFromStart;
     }
@@ -67,4 +77,20 @@ public abstract class AbstractPiece {
     boolean canCapturePiece(AbstractPiece pieceToCapture) {
         return !mColor.equals(pieceToCapture.getColor());
     }
+
+    int getSquare() {
+        return Bitboards.square(mRow, mCol);
+    }
+
+    /**
+     * Checks the new position against a precomputed attack set, where it must be empty or
+     * hold an enemy piece.
+     */
+    boolean isAttackedSquareAvailable(GameBoard gameBoard, long attacks, int newRow, int newCol) {
+        if ((attacks & Bitboards.bit(Bitboards.square(newRow, newCol))) == 0) {
+            return false;
+        }
+        AbstractPiece piece = gameBoard.getPieceAtCoordinates(newRow, newCol);
+        return isSquareEmpty(piece) || canCapturePiece(piece);
+    }
 }
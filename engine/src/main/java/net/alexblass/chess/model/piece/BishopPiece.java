@@ -0,0 +1,41 @@
+package net.alexblass.chess.model.piece;
+
+import net.alexblass.chess.constant.Constants;
+import net.alexblass.chess.model.GameBoard;
+import net.alexblass.chess.model.PieceColor;
+import net.alexblass.chess.model.bitboard.Attacks;
+import net.alexblass.chess.model.bitboard.Bitboards;
+
+/**
+ * A specialized bishop piece class.
+ */
+public class BishopPiece extends AbstractPiece {
+
+    public BishopPiece(PieceColor color, int row, int col) {
+        super(color, row, col);
+        setName(Constants.BISHOP);
+    }
+
+    /**
+     * Bishops can move in a diagonal line in any direction where there are
+     * no obstructions between the start position and the end position.
+     * The end position may be occupied by an enemy piece for a capture.
+     * Up/Down: <= |7|
+     * Left/Right: <= |7|
+     * Where |Up/Down| == |Left/Right|
+     **/
+    @Override
+    public boolean isValidMove(GameBoard gameBoard, int newRow, int newCol) {
+        return isValidBishopMove(gameBoard, this, newRow, newCol);
+    }
+
+    @Override
+    public int getPieceType() {
+        return Bitboards.BISHOP;
+    }
+
+    static boolean isValidBishopMove(GameBoard gameBoard, AbstractPiece pieceToMove, int newRow, int newCol) {
+        long attacks = Attacks.bishopAttacks(pieceToMove.getSquare(), gameBoard.getPosition().getOccupancy());
+        return pieceToMove.isAttackedSquareAvailable(gameBoard, attacks, newRow, newCol);
+    }
+}
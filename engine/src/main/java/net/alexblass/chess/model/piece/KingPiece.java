@@ -1,19 +1,16 @@
 package net.alexblass.chess.model.piece;
 
-import net.alexblass.chess.ChessApplication;
-import net.alexblass.chess.base.R;
-import net.alexblass.chess.bus.event.CastlingEvent;
 import net.alexblass.chess.constant.Constants;
 import net.alexblass.chess.model.GameBoard;
 import net.alexblass.chess.model.PieceColor;
+import net.alexblass.chess.model.bitboard.Attacks;
+import net.alexblass.chess.model.bitboard.Bitboards;
 
 /**
  * A specialized king piece class.
  */
 public class KingPiece extends AbstractPiece {
 
-    // TODO: check & checkmate verification
-
     public KingPiece(PieceColor color, int row, int col) {
         super(color, row, col);
         setName(Constants.KING);
@@ -21,7 +18,8 @@ public class KingPiece extends AbstractPiece {
 
     /**
      * Kings can move to an adjacent tile in any direction.
-     * The end position must not put the king in a position where it may be captured by an enemy piece.
+     * The end position must not put the king in a position where it may be captured by an enemy piece,
+     * which is verified for every piece by GameBoard.isLegalMove.
      * The end position may be occupied by an enemy piece for a capture.
      * Up/Down: = |1|
      * Left/Right: = |1|
@@ -39,27 +37,19 @@ public class KingPiece extends AbstractPiece {
      **/
     @Override
     public boolean isValidMove(GameBoard gameBoard, int newRow, int newCol) {
-        int rowDelta = newRow - getRow();
-        int colDelta = newCol - getCol();
-
         if (isCastling(gameBoard, newRow, newCol)) {
             boolean isValid = !areThereObstructions(gameBoard, newRow, newCol);
             if (isValid) {
-                ChessApplication.bus().post(new CastlingEvent());
+                gameBoard.notifyCastling();
             }
             return isValid;
         }
-        if (!(Math.abs(rowDelta) <= 1 && Math.abs(colDelta) <= 1)) {
-            return false;
-        }
-
-        AbstractPiece piece = gameBoard.getPieceAtCoordinates(newRow, newCol);
-        return piece == null || canCapturePiece(piece);
+        return isAttackedSquareAvailable(gameBoard, Attacks.kingAttacks(getSquare()), newRow, newCol);
     }
 
     @Override
-    public int getImageResId() {
-        return getColor().equals(PieceColor.BLACK) ? R.drawable.ic_piece_modern_king_black : R.drawable.ic_piece_modern_king_white;
+    public int getPieceType() {
+        return Bitboards.KING;
     }
 
     public RookPiece getCastlingRook(GameBoard gameBoard, int row, int colDelta) {
@@ -82,7 +72,7 @@ public class KingPiece extends AbstractPiece {
     private boolean areThereObstructions(GameBoard gameBoard, int newRow, int newCol) {
         int colDirection = getCol() < newCol ? 1: -1; // Moving right or left
         for (int i = getCol() + colDirection; i > Constants.LEFT_ROOK_START_COL && i < Constants.RIGHT_ROOK_START_COL; i += colDirection) {
-            if (gameBoard.getPieceAtCoordinates(newRow, i) != null) {
+            if (gameBoard.isSquareOccupied(newRow, i)) {
                 return true;
             }
         }
@@ -1,9 +1,10 @@
 package net.alexblass.chess.model.piece;
 
-import net.alexblass.chess.base.R;
 import net.alexblass.chess.constant.Constants;
 import net.alexblass.chess.model.GameBoard;
 import net.alexblass.chess.model.PieceColor;
+import net.alexblass.chess.model.bitboard.Attacks;
+import net.alexblass.chess.model.bitboard.Bitboards;
 
 /**
  * A specialized knight piece class.
@@ -25,19 +26,11 @@ public class KnightPiece extends AbstractPiece {
      **/
     @Override
     public boolean isValidMove(GameBoard gameBoard, int newRow, int newCol) {
-        int rowDelta = newRow - getRow();
-        int colDelta = newCol - getCol();
-
-        if ((Math.abs(rowDelta) == 1 && Math.abs(colDelta) == 2) ||
-                (Math.abs(rowDelta) == 2 && Math.abs(colDelta) == 1)) {
-            AbstractPiece piece = gameBoard.getPieceAtCoordinates(newRow, newCol);
-            return isSquareEmpty(piece) || canCapturePiece(piece);
-        }
-        return false;
+        return isAttackedSquareAvailable(gameBoard, Attacks.knightAttacks(getSquare()), newRow, newCol);
     }
 
     @Override
-    public int getImageResId() {
-        return getColor().equals(PieceColor.BLACK) ? R.drawable.ic_piece_modern_knight_black : R.drawable.ic_piece_modern_knight_white;
+    public int getPieceType() {
+        return Bitboards.KNIGHT;
     }
 }
@@ -1,9 +1,9 @@
 package net.alexblass.chess.model.piece;
 
-import net.alexblass.chess.base.R;
 import net.alexblass.chess.constant.Constants;
 import net.alexblass.chess.model.GameBoard;
 import net.alexblass.chess.model.PieceColor;
+import net.alexblass.chess.model.bitboard.Bitboards;
 
 /**
  * A specialized pawn piece class.
@@ -72,14 +72,18 @@ public class PawnPiece extends AbstractPiece {
     }
 
     @Override
-    public int getImageResId() {
-        return getColor().equals(PieceColor.BLACK) ? R.drawable.ic_piece_modern_pawn_black : R.drawable.ic_piece_modern_pawn_white;
+    public int getPieceType() {
+        return Bitboards.PAWN;
     }
 
     public boolean getJustMoved2Spaces() {
         return mJustMoved2Spaces;
     }
 
+    public void setJustMoved2Spaces(boolean justMoved2Spaces) {
+        mJustMoved2Spaces = justMoved2Spaces;
+    }
+
     public boolean isPawnEligibleForPromotion() {
         return getColor().equals(PieceColor.BLACK) && getRow() == Constants.HOME_ROW_WHITE ||
                 getColor().equals(PieceColor.WHITE) && getRow() == Constants.HOME_ROW_BLACK;
@@ -1,9 +1,10 @@
 package net.alexblass.chess.model.piece;
 
-import net.alexblass.chess.base.R;
 import net.alexblass.chess.constant.Constants;
 import net.alexblass.chess.model.GameBoard;
 import net.alexblass.chess.model.PieceColor;
+import net.alexblass.chess.model.bitboard.Attacks;
+import net.alexblass.chess.model.bitboard.Bitboards;
 
 /**
  * A specialized queen piece class.
@@ -23,12 +24,12 @@ public class QueenPiece extends AbstractPiece {
      **/
     @Override
     public boolean isValidMove(GameBoard gameBoard, int newRow, int newCol) {
-        return RookPiece.isValidRookMove(gameBoard, this, newRow, newCol) ||
-                BishopPiece.isValidBishopMove(gameBoard, this, newRow, newCol);
+        long attacks = Attacks.queenAttacks(getSquare(), gameBoard.getPosition().getOccupancy());
+        return isAttackedSquareAvailable(gameBoard, attacks, newRow, newCol);
     }
 
     @Override
-    public int getImageResId() {
-        return getColor().equals(PieceColor.BLACK) ? R.drawable.ic_piece_modern_queen_black : R.drawable.ic_piece_modern_queen_white;
+    public int getPieceType() {
+        return Bitboards.QUEEN;
     }
 }
@@ -0,0 +1,41 @@
+package net.alexblass.chess.model.piece;
+
+import net.alexblass.chess.constant.Constants;
+import net.alexblass.chess.model.GameBoard;
+import net.alexblass.chess.model.PieceColor;
+import net.alexblass.chess.model.bitboard.Attacks;
+import net.alexblass.chess.model.bitboard.Bitboards;
+
+/**
+ * A specialized rook piece class.
+ */
+public class RookPiece extends AbstractPiece {
+
+    public RookPiece(PieceColor color, int row, int col) {
+        super(color, row, col);
+        setName(Constants.ROOK);
+    }
+
+    /**
+     * Rooks can move in a straight line either horizontally or vertically where there are
+     * no obstructions between the start position and the end position.
+     * The end position may be occupied by an enemy piece for a capture.
+     * Up/Down: <= |7|
+     * Left/Right: <= |7|
+     * Where if |Up/Down| > 0 then Left/Right == 0 or |Left/Right| > 0 then Up/Down == 0
+     **/
+    @Override
+    public boolean isValidMove(GameBoard gameBoard, int newRow, int newCol) {
+        return isValidRookMove(gameBoard, this, newRow, newCol);
+    }
+
+    @Override
+    public int getPieceType() {
+        return Bitboards.ROOK;
+    }
+
+    static boolean isValidRookMove(GameBoard gameBoard, AbstractPiece pieceToMove, int newRow, int newCol) {
+        long attacks = Attacks.rookAttacks(pieceToMove.getSquare(), gameBoard.getPosition().getOccupancy());
+        return pieceToMove.isAttackedSquareAvailable(gameBoard, attacks, newRow, newCol);
+    }
+}
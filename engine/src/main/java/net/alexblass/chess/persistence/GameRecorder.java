@@ -0,0 +1,97 @@
+package net.alexblass.chess.persistence;
+
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.bitboard.MoveGenerator;
+
+import java.util.Arrays;
+
+/**
+ * Records the moves of one game into a MoveLogStore, a few plies per write.
+ *
+ * Moves are held back until batchPlies of them have been made, so by default the player's move
+ * and the computer's reply go out together. flush() writes whatever is pending, for example when
+ * the game is closed.
+ */
+public class GameRecorder {
+
+    public static final int DEFAULT_BATCH_PLIES = 2;
+
+    private final MoveLogStore mStore;
+    private final String mGameId;
+    private final int mBatchPlies;
+    private final int[] mPendingMoves;
+    private int mPendingCount;
+    private int mPlyCount;
+
+    public GameRecorder(MoveLogStore store, String gameId) {
+        this(store, gameId, 0, DEFAULT_BATCH_PLIES);
+    }
+
+    /**
+     * @param storedPlies the plies the store already holds for the game, when resuming it.
+     */
+    public GameRecorder(MoveLogStore store, String gameId, int storedPlies, int batchPlies) {
+        if (batchPlies < 1) {
+            throw new IllegalArgumentException("Batches must hold at least one ply: " + batchPlies);
+        }
+        mStore = store;
+        mGameId = gameId;
+        mPlyCount = storedPlies;
+        mBatchPlies = batchPlies;
+        mPendingMoves = new int[batchPlies];
+    }
+
+    public void record(int move) {
+        mPendingMoves[mPendingCount++] = move;
+        mPlyCount++;
+        if (mPendingCount == mBatchPlies) {
+            flush();
+        }
+    }
+
+    public void flush() {
+        if (mPendingCount == 0) {
+            return;
+        }
+        mStore.appendMoves(mGameId, mPlyCount - mPendingCount, Arrays.copyOf(mPendingMoves, mPendingCount));
+        mPendingCount = 0;
+    }
+
+    public String getGameId() {
+        return mGameId;
+    }
+
+    /**
+     * @return the plies of the game so far, written or not.
+     */
+    public int getPlyCount() {
+        return mPlyCount;
+    }
+
+    /**
+     * Plays logged moves on the position, stopping at the first one that isn't legal there, which
+     * would mean the log is damaged.
+     * @return the number of moves played.
+     */
+    public static int replay(int[] moves, BitboardPosition position) {
+        int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+        for (int i = 0; i < moves.length; i++) {
+            int legalCount = MoveGenerator.generateLegalMoves(position, legalMoves, 0);
+            if (!contains(legalMoves, legalCount, moves[i])) {
+                return i;
+            }
+            position.makeMove(moves[i]);
+        }
+        return moves.length;
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private static boolean contains(int[] moves, int count, int move) {
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
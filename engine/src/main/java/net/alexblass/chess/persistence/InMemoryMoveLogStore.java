@@ -0,0 +1,44 @@
+package net.alexblass.chess.persistence;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps move logs in memory, a stand-in for a database in tests and for games that aren't saved.
+ */
+public class InMemoryMoveLogStore implements MoveLogStore {
+
+    private final Map<String, int[]> mLogs = new HashMap<>();
+    private int mAppendCount;
+
+    @Override
+    public synchronized void appendMoves(String gameId, int firstPly, int[] moves) {
+        int[] log = mLogs.containsKey(gameId) ? mLogs.get(gameId) : new int[0];
+        if (firstPly < 0 || firstPly > log.length) {
+            throw new IllegalArgumentException("Ply " + firstPly + " would leave a gap in the log of game "
+                    + gameId + " with " + log.length + " plies");
+        }
+        log = Arrays.copyOf(log, Math.max(log.length, firstPly + moves.length));
+        System.arraycopy(moves, 0, log, firstPly, moves.length);
+        mLogs.put(gameId, log);
+        mAppendCount++;
+    }
+
+    @Override
+    public void loadMoves(String gameId, LoadCallback callback) {
+        int[] moves;
+        synchronized (this) {
+            moves = mLogs.containsKey(gameId) ? mLogs.get(gameId).clone() : new int[0];
+        }
+        callback.onMovesLoaded(moves);
+    }
+
+    /**
+     * @return how many times appendMoves was called, that is how many writes a database would
+     * have received.
+     */
+    public synchronized int getAppendCount() {
+        return mAppendCount;
+    }
+}
@@ -0,0 +1,29 @@
+package net.alexblass.chess.persistence;
+
+/**
+ * Stores the moves of each game as an append-only log of packed moves, one record per ply.
+ *
+ * A game is saved by appending the moves made since the last append and restored by replaying
+ * its log from the starting position, so no board is ever stored.
+ */
+public interface MoveLogStore {
+
+    /**
+     * Appends moves to the game's log. moves[0] is ply firstPly of the game, counted from 0, and
+     * writing a ply again replaces it.
+     */
+    void appendMoves(String gameId, int firstPly, int[] moves);
+
+    /**
+     * Loads the whole log of the game, empty for an unknown game. The callback may be called on
+     * another thread or before this returns.
+     */
+    void loadMoves(String gameId, LoadCallback callback);
+
+    interface LoadCallback {
+
+        void onMovesLoaded(int[] moves);
+
+        void onLoadFailed(Exception e);
+    }
+}
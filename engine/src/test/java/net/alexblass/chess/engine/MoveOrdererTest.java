@@ -0,0 +1,96 @@
+package net.alexblass.chess.engine;
+
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.bitboard.Move;
+import net.alexblass.chess.model.bitboard.MoveGenerator;
+import net.alexblass.chess.model.notation.Fen;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Scores and selects moves of one position, with the killers and history that cutoffs leave.
+ */
+public class MoveOrdererTest {
+
+    // exf5 wins a knight and exd5 trades pawns, while Nxd5 and Qxd5 lose to cxd5. h8=Q promotes.
+    private static final String POSITION = "4k3/7P/2p5/3p1n2/4P3/2N5/8/3QK3 w - - 0 1";
+
+    @Test
+    public void movesAreSelectedByCategory() {
+        BitboardPosition position = createPosition();
+        MoveOrderer orderer = new MoveOrderer();
+        orderer.onCutoff(findMove(position, "e1f2"), 0, 1);
+        orderer.onCutoff(findMove(position, "d1d2"), 0, 1);
+        // Only counts towards the history at ply 0, its killer is one ply deeper
+        orderer.onCutoff(findMove(position, "c3b5"), 1, 3);
+
+        assertSelectionOrder(orderer, position, findMove(position, "d1g4"),
+                new String[] {"d1d5", "c3d5", "c3a4", "c3b5", "e1f2", "d1d2", "e4d5", "e4f5", "d1g4"},
+                "d1g4", "e4f5", "e4d5", "d1d2", "e1f2", "c3b5", "c3a4", "c3d5", "d1d5");
+    }
+
+    @Test
+    public void capturesAndPromotionsAreNotKillers() {
+        BitboardPosition position = createPosition();
+        MoveOrderer orderer = new MoveOrderer();
+        orderer.onCutoff(findMove(position, "e1f2"), 0, 1);
+        orderer.onCutoff(findMove(position, "d1d2"), 0, 1);
+        orderer.onCutoff(findMove(position, "e4f5"), 0, 1);
+        orderer.onCutoff(findMove(position, "h7h8q"), 0, 1);
+
+        // Without killers the equal history would keep the given order
+        String[] moves = {"c3a4", "e1f2", "d1d2", "c3b5"};
+        assertSelectionOrder(orderer, position, Move.NO_MOVE, moves, "d1d2", "e1f2", "c3a4", "c3b5");
+
+        // The first killer cutting off again keeps both, a new one pushes out the second
+        orderer.onCutoff(findMove(position, "d1d2"), 0, 1);
+        orderer.onCutoff(findMove(position, "c3a4"), 0, 1);
+        assertSelectionOrder(orderer, position, Move.NO_MOVE, moves, "c3a4", "d1d2", "e1f2", "c3b5");
+    }
+
+    @Test
+    public void historyIsHalvedAtTheMaximum() {
+        BitboardPosition position = createPosition();
+        MoveOrderer orderer = new MoveOrderer();
+        orderer.onCutoff(findMove(position, "e1f2"), 0, 1);
+        orderer.onCutoff(findMove(position, "c3b5"), 1, 1);
+        // A single cutoff that reaches the maximum
+        orderer.onCutoff(findMove(position, "d1g4"), 1, (int) Math.sqrt(MoveOrderer.MAX_HISTORY));
+
+        // Nb5's history of 1 is halved to nothing, Qg4's stays ahead but below the killer
+        assertSelectionOrder(orderer, position, Move.NO_MOVE, new String[] {"d1g4", "e1f2", "c3a4", "c3b5"},
+                "e1f2", "d1g4", "c3a4", "c3b5");
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private static void assertSelectionOrder(MoveOrderer orderer, BitboardPosition position, int hashMove,
+                                             String[] moveNotations, String... expectedOrder) {
+        int[] moves = new int[moveNotations.length];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = findMove(position, moveNotations[i]);
+        }
+        orderer.scoreMoves(position, moves, 0, moves.length, hashMove, 0);
+        for (int i = 0; i < moves.length; i++) {
+            assertEquals("move " + i, expectedOrder[i], Move.toNotation(orderer.selectNext(moves, i, moves.length)));
+        }
+    }
+
+    private static int findMove(BitboardPosition position, String notation) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int moveCount = MoveGenerator.generateLegalMoves(position, moves, 0);
+        for (int i = 0; i < moveCount; i++) {
+            if (Move.toNotation(moves[i]).equals(notation)) {
+                return moves[i];
+            }
+        }
+        throw new AssertionError("No legal move " + notation);
+    }
+
+    private static BitboardPosition createPosition() {
+        BitboardPosition position = new BitboardPosition();
+        Fen.parse(POSITION, position);
+        return position;
+    }
+}
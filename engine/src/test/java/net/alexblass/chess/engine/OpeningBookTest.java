@@ -0,0 +1,118 @@
+package net.alexblass.chess.engine;
+
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.bitboard.Bitboards;
+import net.alexblass.chess.model.bitboard.Move;
+import net.alexblass.chess.model.notation.Fen;
+import net.alexblass.chess.model.notation.San;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import static net.alexblass.chess.model.bitboard.Bitboards.PAWN;
+import static net.alexblass.chess.model.bitboard.Bitboards.WHITE;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Writes books with OpeningBookWriter and reads them back with OpeningBook.
+ */
+public class OpeningBookTest {
+
+    // e2-e4 and d2-d4
+    private static final int MOVE = Move.create(52, 36, Bitboards.pieceCode(WHITE, PAWN), Bitboards.NO_PIECE);
+    private static final int OTHER_MOVE = Move.create(51, 35, Bitboards.pieceCode(WHITE, PAWN), Bitboards.NO_PIECE);
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void keysAreFoundOnEitherSideOfTheSignBit() throws IOException {
+        long[] keys = new long[2000];
+        Random random = new Random(1);
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextLong();
+        }
+        keys[0] = Long.MIN_VALUE;
+        keys[1] = -1L;
+        keys[2] = 0L;
+        keys[3] = Long.MAX_VALUE;
+        OpeningBookWriter writer = new OpeningBookWriter();
+        for (int i = 0; i < keys.length; i++) {
+            writer.add(keys[i], MOVE, i + 1);
+        }
+        OpeningBook book = write(writer);
+        assertEquals(keys.length, book.getEntryCount());
+
+        int[] moves = new int[4];
+        int[] weights = new int[4];
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(1, book.getMoves(keys[i], moves, weights));
+            assertEquals(MOVE, moves[0]);
+            assertEquals(i + 1, weights[0]);
+        }
+        assertEquals(0, book.getMoves(1L, moves, weights));
+        assertEquals(0, book.getMoves(-2L, moves, weights));
+    }
+
+    @Test
+    public void duplicateMovesAreMergedAndOrderedByWeight() throws IOException {
+        OpeningBookWriter writer = new OpeningBookWriter();
+        writer.add(-5L, MOVE, 2);
+        writer.add(7L, MOVE, 1);
+        writer.add(-5L, OTHER_MOVE, 3);
+        writer.add(-5L, MOVE, 2);
+        writer.add(-5L, OTHER_MOVE, Integer.MAX_VALUE);
+        OpeningBook book = write(writer);
+        assertEquals(3, book.getEntryCount());
+
+        int[] moves = new int[4];
+        int[] weights = new int[4];
+        assertEquals(2, book.getMoves(-5L, moves, weights));
+        // Weights that add up past an int are capped
+        assertEquals(OTHER_MOVE, moves[0]);
+        assertEquals(Integer.MAX_VALUE, weights[0]);
+        assertEquals(MOVE, moves[1]);
+        assertEquals(4, weights[1]);
+        assertEquals(1, book.getMoves(7L, moves, weights));
+        assertEquals(1, weights[0]);
+    }
+
+    @Test
+    public void chooseMoveOnlyPicksLegalMoves() throws IOException {
+        BitboardPosition position = new BitboardPosition();
+        Fen.parse(Fen.STARTING_POSITION, position);
+        int e4 = San.parse(position, "e4");
+        int pawnToE5 = Move.create(Bitboards.square(6, 4), Bitboards.square(3, 4),
+                Bitboards.pieceCode(WHITE, PAWN), Bitboards.NO_PIECE);
+
+        OpeningBookWriter writer = new OpeningBookWriter();
+        writer.add(position.getZobristKey(), pawnToE5, 1000);
+        writer.add(position.getZobristKey(), e4, 1);
+        position.makeMove(e4);
+        writer.add(position.getZobristKey(), pawnToE5, 1);
+        position.unmakeMove();
+        OpeningBook book = write(writer);
+
+        Random random = new Random(1);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(e4, book.chooseMove(position, random));
+        }
+        // Only an illegal move, and not in the book at all
+        position.makeMove(e4);
+        assertEquals(Move.NO_MOVE, book.chooseMove(position, random));
+        position.makeMove(San.parse(position, "e5"));
+        assertEquals(Move.NO_MOVE, book.chooseMove(position, random));
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private OpeningBook write(OpeningBookWriter writer) throws IOException {
+        File file = mFolder.newFile();
+        writer.write(file);
+        return OpeningBook.open(file);
+    }
+}
@@ -0,0 +1,145 @@
+package net.alexblass.chess.engine;
+
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.bitboard.MoveGenerator;
+import net.alexblass.chess.model.notation.Fen;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs searches with helper threads, whatever the number of processors, and checks how they are
+ * combined, stopped and shut down.
+ */
+public class ParallelSearchTest {
+
+    private static final int THREAD_COUNT = 3;
+    private static final String HELPER_THREAD_PREFIX = "search-helper-";
+
+    @Test
+    public void resultsOfAllWorkersAreCombined() {
+        BitboardPosition position = createPosition(Bench.POSITIONS[1]);
+        ParallelSearch search = createSearch(position);
+        final SearchResult[] mainResult = new SearchResult[1];
+        search.setSearchListener(new SearchListener() {
+            @Override
+            public void onIterationComplete(SearchResult result) {
+                mainResult[0] = result;
+            }
+        });
+        try {
+            assertEquals(THREAD_COUNT, search.getThreadCount());
+            SearchResult result = search.search(Long.MAX_VALUE, 5);
+
+            assertTrue(isLegalMove(position, result.getBestMove()));
+            assertTrue(result.getDepth() >= mainResult[0].getDepth());
+            assertTrue(result.getNodes() >= mainResult[0].getNodes());
+
+            // Every worker counts its own probes and the sum covers them all
+            long probes = 0L;
+            for (Search worker : search.mWorkers) {
+                probes += countProbes(worker.getTableStatistics());
+            }
+            assertTrue(probes > 0L);
+            assertEquals(probes, countProbes(search.getTableStatistics()));
+        } finally {
+            search.shutdown();
+        }
+    }
+
+    @Test
+    public void stopFromAnotherThreadEndsAnUnlimitedSearch() throws InterruptedException {
+        BitboardPosition position = createPosition(Bench.POSITIONS[1]);
+        final ParallelSearch search = createSearch(position);
+        final CountDownLatch isSearching = new CountDownLatch(1);
+        final AtomicLong stopTime = new AtomicLong();
+        search.setSearchListener(new SearchListener() {
+            @Override
+            public void onIterationComplete(SearchResult result) {
+                isSearching.countDown();
+            }
+        });
+        Thread stopper = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    isSearching.await();
+                    Thread.sleep(100L);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                stopTime.set(System.currentTimeMillis());
+                search.stop();
+            }
+        });
+        stopper.start();
+        try {
+            SearchResult result = search.search(Long.MAX_VALUE, Search.MAX_PLY);
+            long stoppedAfterMillis = System.currentTimeMillis() - stopTime.get();
+
+            assertTrue("stopped after " + stoppedAfterMillis + " ms", stoppedAfterMillis < 500L);
+            assertTrue(search.isStopped());
+            assertTrue(isLegalMove(position, result.getBestMove()));
+        } finally {
+            stopper.join();
+            search.shutdown();
+        }
+    }
+
+    @Test
+    public void shutdownEndsTheHelperThreads() throws InterruptedException {
+        ParallelSearch search = createSearch(createPosition(Fen.STARTING_POSITION));
+        search.search(Long.MAX_VALUE, 3);
+        assertTrue(countHelperThreads() > 0);
+
+        search.shutdown();
+        // The executor interrupts idle helpers, which then end on their own
+        long deadline = System.currentTimeMillis() + 2000L;
+        while (countHelperThreads() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        assertEquals(0, countHelperThreads());
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private static long countProbes(TranspositionTable.Statistics statistics) {
+        return statistics.getHits() + statistics.getMisses() + statistics.getCollisions();
+    }
+
+    private static ParallelSearch createSearch(BitboardPosition position) {
+        return new ParallelSearch(position, new TranspositionTable(Search.DEFAULT_TRANSPOSITION_TABLE_SIZE_MB),
+                THREAD_COUNT, THREAD_COUNT);
+    }
+
+    private static BitboardPosition createPosition(String fen) {
+        BitboardPosition position = new BitboardPosition();
+        Fen.parse(fen, position);
+        return position;
+    }
+
+    private static boolean isLegalMove(BitboardPosition position, int move) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int moveCount = MoveGenerator.generateLegalMoves(position, moves, 0);
+        for (int i = 0; i < moveCount; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int countHelperThreads() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && thread.getName().startsWith(HELPER_THREAD_PREFIX)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
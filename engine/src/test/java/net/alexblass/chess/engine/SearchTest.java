@@ -0,0 +1,180 @@
+package net.alexblass.chess.engine;
+
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.bitboard.Move;
+import net.alexblass.chess.model.bitboard.MoveGenerator;
+import net.alexblass.chess.model.notation.Fen;
+import net.alexblass.chess.model.notation.San;
+
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Searches positions with a known outcome: mates scored by their distance, the draws the search
+ * recognises below the root, the time limit and the line it answers with. Also checks that a
+ * ponder search keeps a stop() or ponderHit() that came before it started.
+ */
+public class SearchTest {
+
+    private static final int DEPTH = 5;
+
+    @Test
+    public void mateInOne() {
+        BitboardPosition position = createPosition("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        SearchResult result = new Search(position).search(Long.MAX_VALUE, DEPTH);
+        assertEquals(Search.MATE_SCORE - 1, result.getScore());
+        assertEquals(San.parse(position, "Ra8#"), result.getBestMove());
+    }
+
+    @Test
+    public void mateInTwo() {
+        // Rh8+ at once lets the king out to a7, Kb6 first takes that square away
+        BitboardPosition position = createPosition("k7/8/2K5/8/8/8/8/7R w - - 0 1");
+        SearchResult result = new Search(position).search(Long.MAX_VALUE, DEPTH);
+        assertEquals(Search.MATE_SCORE - 3, result.getScore());
+        assertLegalLine(position, result.getPrincipalVariation());
+    }
+
+    @Test
+    public void stalemateIsADraw() {
+        // Both of white's moves leave black without a move
+        BitboardPosition position = createPosition("7K/8/6pk/6p1/6P1/2P5/8/8 w - - 0 1");
+        assertEquals(Search.DRAW_SCORE, new Search(position).search(Long.MAX_VALUE, DEPTH).getScore());
+    }
+
+    @Test
+    public void repetitionIsADraw() {
+        // A queen down, white can only hope to repeat the position
+        BitboardPosition position = createPosition("k7/8/8/q7/8/8/8/7K w - - 0 1");
+        play(position, "Kg1", "Qb5", "Kh1", "Qa5");
+        SearchResult result = new Search(position).search(Long.MAX_VALUE, DEPTH);
+        assertEquals(Search.DRAW_SCORE, result.getScore());
+        assertEquals(San.parse(position, "Kg1"), result.getBestMove());
+    }
+
+    @Test
+    public void fiftyMoveRuleIsADraw() {
+        BitboardPosition position = createPosition("k7/8/8/8/8/8/1q6/7K w - - 99 80");
+        SearchResult result = new Search(position).search(Long.MAX_VALUE, DEPTH);
+        assertEquals(Search.DRAW_SCORE, result.getScore());
+
+        // With the clock further from the limit the queen wins
+        position = createPosition("k7/8/8/8/8/8/1q6/7K w - - 0 80");
+        assertTrue(new Search(position).search(Long.MAX_VALUE, DEPTH).getScore() < -500);
+    }
+
+    @Test
+    public void timeLimitHolds() {
+        BitboardPosition position = createPosition(Bench.POSITIONS[1]);
+        long startTime = System.currentTimeMillis();
+        SearchResult result = new Search(position).search(500L, Search.MAX_PLY);
+        long elapsedMillis = System.currentTimeMillis() - startTime;
+
+        assertTrue("took " + elapsedMillis + " ms", elapsedMillis < 750L);
+        assertTrue(result.getDepth() > 0);
+        assertLegalLine(position, result.getPrincipalVariation());
+    }
+
+    @Test
+    public void principalVariationsAreLegal() {
+        for (String fen : Bench.POSITIONS) {
+            BitboardPosition position = createPosition(fen);
+            SearchResult result = new Search(position).search(Long.MAX_VALUE, DEPTH);
+            assertTrue(fen, result.getPrincipalVariation().length > 0);
+            assertLegalLine(position, result.getPrincipalVariation());
+        }
+    }
+
+    @Test
+    public void ponderHitBeforePonderingStartsIsKept() {
+        Search search = new Search(createPosition(Bench.POSITIONS[1]));
+        // As if the player moved while the ponder task was still queued
+        search.ponderHit(200L);
+        long startTime = System.currentTimeMillis();
+        SearchResult result = search.ponder();
+        long elapsedMillis = System.currentTimeMillis() - startTime;
+
+        assertTrue("took " + elapsedMillis + " ms", elapsedMillis < 450L);
+        assertTrue(result.getDepth() > 0);
+    }
+
+    @Test
+    public void stopBeforePonderingStartsIsKept() {
+        Search search = new Search(createPosition(Bench.POSITIONS[1]));
+        search.stop();
+        long startTime = System.currentTimeMillis();
+        SearchResult result = search.ponder();
+        long elapsedMillis = System.currentTimeMillis() - startTime;
+
+        assertTrue("took " + elapsedMillis + " ms", elapsedMillis < 100L);
+        assertEquals(0, result.getDepth());
+        assertEquals(Move.NO_MOVE, result.getBestMove());
+    }
+
+    @Test
+    public void ponderHitStartsTheTimeLimit() throws Exception {
+        final Search search = new Search(createPosition(Bench.POSITIONS[1]));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<SearchResult> pondering = executor.submit(new Callable<SearchResult>() {
+                @Override
+                public SearchResult call() {
+                    return search.ponder();
+                }
+            });
+            Thread.sleep(300L);
+            assertFalse(pondering.isDone());
+
+            long hitTime = System.currentTimeMillis();
+            search.ponderHit(200L);
+            SearchResult result = pondering.get(2L, TimeUnit.SECONDS);
+            long elapsedMillis = System.currentTimeMillis() - hitTime;
+
+            assertTrue("took " + elapsedMillis + " ms", elapsedMillis >= 150L && elapsedMillis < 450L);
+            assertTrue(result.getDepth() > 0);
+            assertLegalLine(createPosition(Bench.POSITIONS[1]), result.getPrincipalVariation());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private static BitboardPosition createPosition(String fen) {
+        BitboardPosition position = new BitboardPosition();
+        Fen.parse(fen, position);
+        return position;
+    }
+
+    private static void play(BitboardPosition position, String... sans) {
+        for (String san : sans) {
+            position.makeMove(San.parse(position, san));
+        }
+    }
+
+    /**
+     * Plays the line on a copy of the position, checking that each move is legal where it is
+     * played.
+     */
+    private static void assertLegalLine(BitboardPosition position, int[] line) {
+        BitboardPosition copy = new BitboardPosition(position);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int move : line) {
+            int moveCount = MoveGenerator.generateLegalMoves(copy, moves, 0);
+            boolean isLegal = false;
+            for (int i = 0; i < moveCount; i++) {
+                isLegal |= moves[i] == move;
+            }
+            assertTrue(Fen.toFen(copy) + " " + Move.toNotation(move), isLegal);
+            copy.makeMove(move);
+        }
+    }
+}
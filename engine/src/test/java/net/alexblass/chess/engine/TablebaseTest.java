@@ -0,0 +1,162 @@
+package net.alexblass.chess.engine;
+
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.bitboard.Bitboards;
+import net.alexblass.chess.model.notation.Fen;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static net.alexblass.chess.model.bitboard.Bitboards.BLACK;
+import static net.alexblass.chess.model.bitboard.Bitboards.KING;
+import static net.alexblass.chess.model.bitboard.Bitboards.QUEEN;
+import static net.alexblass.chess.model.bitboard.Bitboards.WHITE;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Writes tablebase files and probes them back: synthetic values to check the indexing, the
+ * colour flipping and the block cache, and a generated KQvK to check the results themselves.
+ */
+public class TablebaseTest {
+
+    private static final int POSITIONS_PER_SIDE = Bitboards.SQUARES * Bitboards.SQUARES * Bitboards.SQUARES;
+    // Small blocks and a small cache make random probes inflate and evict blocks all the time
+    private static final int BLOCK_SIZE = 1000;
+    private static final int CACHE_BLOCKS = 2;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void valuesAreProbedAtTheirIndex() throws IOException {
+        Tablebase tablebase = new Tablebase(writeSyntheticKQvK(), CACHE_BLOCKS);
+        assertEquals(3, tablebase.getMaxPieces());
+
+        BitboardPosition position = new BitboardPosition();
+        Random random = new Random(1);
+        for (int i = 0; i < 20000; i++) {
+            int strongKing = random.nextInt(Bitboards.SQUARES);
+            int queen = random.nextInt(Bitboards.SQUARES);
+            int weakKing = random.nextInt(Bitboards.SQUARES);
+            if (strongKing == queen || strongKing == weakKing || queen == weakKing) {
+                continue;
+            }
+            int strongColor = random.nextBoolean() ? WHITE : BLACK;
+            int sideToMove = random.nextBoolean() ? WHITE : BLACK;
+            setUp(position, strongColor, strongKing, queen, weakKing, sideToMove);
+
+            // With black as the stronger side, the file sees the board upside down and the
+            // other side to move
+            int mirror = strongColor == WHITE ? 0 : 56;
+            int index = (sideToMove ^ strongColor) * POSITIONS_PER_SIDE
+                    + (strongKing ^ mirror) * Bitboards.SQUARES * Bitboards.SQUARES
+                    + (queen ^ mirror) * Bitboards.SQUARES
+                    + (weakKing ^ mirror);
+            assertEquals(getSyntheticValue(index) + Tablebase.WDL_LOSS, tablebase.probeWdl(position));
+        }
+    }
+
+    @Test
+    public void generatedKQvKScoresMatesAndDraws() throws IOException {
+        File directory = mFolder.newFolder();
+        TablebaseGenerator.generate("KQvK", directory);
+        Tablebase tablebase = new Tablebase(directory);
+
+        assertResult(tablebase, "k7/1Q6/1K6/8/8/8/8/8 b - - 0 1", Tablebase.WDL_LOSS, 0);
+        assertResult(tablebase, "k7/8/1K6/8/8/8/8/2Q5 w - - 0 1", Tablebase.WDL_WIN, 1);
+        // Black's only move walks into the mate
+        assertResult(tablebase, "1k6/8/1K6/8/8/8/8/2Q5 b - - 0 1", Tablebase.WDL_LOSS, -2);
+        assertResult(tablebase, "k7/1Q6/8/8/8/8/8/7K b - - 0 1", Tablebase.WDL_DRAW, 0);
+        assertResult(tablebase, "k7/2Q5/1K6/8/8/8/8/8 b - - 0 1", Tablebase.WDL_DRAW, 0);
+        // The same positions with the colours swapped are read from the same file
+        assertResult(tablebase, "8/8/8/8/8/1k6/1q6/K7 w - - 0 1", Tablebase.WDL_LOSS, 0);
+        assertResult(tablebase, "2q5/8/8/8/8/1k6/8/K7 b - - 0 1", Tablebase.WDL_WIN, 1);
+        // Not covered by the file
+        assertResult(tablebase, "k7/8/1K6/8/8/8/8/2R5 w - - 0 1", Tablebase.UNKNOWN, Tablebase.UNKNOWN);
+    }
+
+    @Test
+    public void buffersMappedByTheCallerAreProbed() throws IOException {
+        File directory = mFolder.newFolder();
+        TablebaseGenerator.generate("KQvK", directory);
+        Map<String, ByteBuffer> files = new HashMap<>();
+        for (File file : directory.listFiles()) {
+            files.put(file.getName(), ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+        }
+        Tablebase tablebase = new Tablebase(files, CACHE_BLOCKS);
+
+        assertEquals(3, tablebase.getMaxPieces());
+        assertResult(tablebase, "k7/8/1K6/8/8/8/8/2Q5 w - - 0 1", Tablebase.WDL_WIN, 1);
+        assertResult(tablebase, "2q5/8/8/8/8/1k6/8/K7 b - - 0 1", Tablebase.WDL_WIN, 1);
+    }
+
+    @Test
+    public void corruptBlockOffsetsProbeAsUnknown() throws IOException {
+        File directory = writeSyntheticKQvK();
+        // Block 1 now ends before it starts and block 2 starts inside the offsets table
+        RandomAccessFile file = new RandomAccessFile(new File(directory, "KQvK.wdl"), "rw");
+        try {
+            file.seek(TablebaseFile.HEADER_BYTES + 2 * 8);
+            file.writeLong(8L);
+        } finally {
+            file.close();
+        }
+        Tablebase tablebase = new Tablebase(directory, CACHE_BLOCKS);
+
+        BitboardPosition position = new BitboardPosition();
+        // Indices 1000 to 1999 are in block 1 and 2000 to 2999 in block 2
+        setUp(position, WHITE, 0, 15, 40, WHITE);
+        assertEquals(Tablebase.UNKNOWN, tablebase.probeWdl(position));
+        setUp(position, WHITE, 0, 31, 40, WHITE);
+        assertEquals(Tablebase.UNKNOWN, tablebase.probeWdl(position));
+        // The other blocks still read
+        setUp(position, WHITE, 0, 1, 40, WHITE);
+        assertEquals(getSyntheticValue(104) + Tablebase.WDL_LOSS, tablebase.probeWdl(position));
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private File writeSyntheticKQvK() throws IOException {
+        File directory = mFolder.newFolder();
+        byte[] values = new byte[2 * POSITIONS_PER_SIDE];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (byte) getSyntheticValue(i);
+        }
+        TablebaseWriter.write(new File(directory, "KQvK.wdl"), 3, values, BLOCK_SIZE);
+        return directory;
+    }
+
+    /**
+     * @return a stored WDL value of 0 to 4 that varies with every digit of the index.
+     */
+    private static int getSyntheticValue(int index) {
+        return (index + index / 64 * 3 + index / 4096 * 2) % 5;
+    }
+
+    private static void setUp(BitboardPosition position, int strongColor, int strongKing, int queen,
+                              int weakKing, int sideToMove) {
+        position.clear();
+        position.putPiece(Bitboards.pieceCode(strongColor, KING), strongKing);
+        position.putPiece(Bitboards.pieceCode(strongColor, QUEEN), queen);
+        position.putPiece(Bitboards.pieceCode(strongColor ^ 1, KING), weakKing);
+        position.setSideToMove(sideToMove);
+        position.setCastlingRights(0);
+        position.setEnPassantSquare(Bitboards.NO_SQUARE);
+    }
+
+    private static void assertResult(Tablebase tablebase, String fen, int wdl, int dtz) {
+        BitboardPosition position = new BitboardPosition();
+        Fen.parse(fen, position);
+        assertEquals(fen, wdl, tablebase.probeWdl(position));
+        assertEquals(fen, dtz, tablebase.probeDtz(position));
+    }
+}
@@ -0,0 +1,102 @@
+package net.alexblass.chess.engine;
+
+import net.alexblass.chess.model.bitboard.Move;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Stores and probes entries, including ones sharing a slot, and checks that a torn slot reads
+ * as a miss.
+ */
+public class TranspositionTableTest {
+
+    private static final long KEY = 0x123456789ABCDEF0L;
+    // Folds to the same slot as KEY: both halves change by the same bit
+    private static final long SAME_SLOT_KEY = KEY ^ (1L << 32 | 1L);
+    private static final int MOVE = Move.create(12, 28, 0, 12);
+    private static final int OTHER_MOVE = Move.create(6, 21, 1, 12);
+
+    @Test
+    public void storedEntriesAreProbedBack() {
+        TranspositionTable table = new TranspositionTable(1);
+        TranspositionTable.Statistics statistics = new TranspositionTable.Statistics();
+        assertEquals(TranspositionTable.EMPTY, table.probe(KEY, statistics));
+
+        table.store(KEY, MOVE, -1234, 7, TranspositionTable.BOUND_LOWER);
+        long entry = table.probe(KEY, statistics);
+        assertEquals(MOVE, TranspositionTable.getMove(entry));
+        assertEquals(-1234, TranspositionTable.getScore(entry));
+        assertEquals(7, TranspositionTable.getDepth(entry));
+        assertEquals(TranspositionTable.BOUND_LOWER, TranspositionTable.getBound(entry));
+        assertEquals(1L, statistics.getHits());
+        assertEquals(1L, statistics.getMisses());
+
+        // A search of the same position without a best move keeps the one it had
+        table.store(KEY, Move.NO_MOVE, 50, 3, TranspositionTable.BOUND_UPPER);
+        entry = table.probe(KEY);
+        assertEquals(MOVE, TranspositionTable.getMove(entry));
+        assertEquals(50, TranspositionTable.getScore(entry));
+        assertEquals(3, TranspositionTable.getDepth(entry));
+    }
+
+    @Test
+    public void deeperEntriesOfTheCurrentSearchAreKept() {
+        TranspositionTable table = new TranspositionTable(1);
+        TranspositionTable.Statistics statistics = new TranspositionTable.Statistics();
+        table.store(KEY, MOVE, 10, 8, TranspositionTable.BOUND_EXACT);
+
+        table.store(SAME_SLOT_KEY, OTHER_MOVE, 20, 4, TranspositionTable.BOUND_EXACT);
+        assertEquals(MOVE, TranspositionTable.getMove(table.probe(KEY)));
+        assertEquals(TranspositionTable.EMPTY, table.probe(SAME_SLOT_KEY, statistics));
+        assertEquals(1L, statistics.getCollisions());
+
+        // From an older search even a deeper entry gives way
+        table.newSearch();
+        table.store(SAME_SLOT_KEY, OTHER_MOVE, 20, 4, TranspositionTable.BOUND_EXACT);
+        assertEquals(OTHER_MOVE, TranspositionTable.getMove(table.probe(SAME_SLOT_KEY)));
+        assertEquals(TranspositionTable.EMPTY, table.probe(KEY));
+
+        // And in the same search an entry at least as deep replaces it
+        table.store(KEY, MOVE, 10, 4, TranspositionTable.BOUND_EXACT);
+        assertEquals(MOVE, TranspositionTable.getMove(table.probe(KEY)));
+    }
+
+    @Test
+    public void tornSlotsAreMisses() {
+        TranspositionTable table = new TranspositionTable(1);
+        TranspositionTable.Statistics statistics = new TranspositionTable.Statistics();
+        table.store(KEY, MOVE, 10, 4, TranspositionTable.BOUND_EXACT);
+        int slot = findStoredSlot(table);
+        long check = table.mTable[slot];
+
+        // The check half of one write next to the entry half of another
+        table.store(SAME_SLOT_KEY, OTHER_MOVE, 20, 4, TranspositionTable.BOUND_EXACT);
+        assertEquals(slot, findStoredSlot(table));
+        table.mTable[slot] = check;
+        assertEquals(TranspositionTable.EMPTY, table.probe(KEY, statistics));
+        assertEquals(TranspositionTable.EMPTY, table.probe(SAME_SLOT_KEY, statistics));
+
+        // A single flipped bit is caught the same way
+        table.store(KEY, MOVE, 10, 4, TranspositionTable.BOUND_EXACT);
+        table.mTable[slot + 1] ^= 1L << 30;
+        assertEquals(TranspositionTable.EMPTY, table.probe(KEY));
+        assertEquals(TranspositionTable.EMPTY, table.probe(KEY, statistics));
+        assertEquals(3L, statistics.getCollisions());
+        assertEquals(0L, statistics.getHits());
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    /**
+     * @return the index of the check half of the only slot holding an entry.
+     */
+    private static int findStoredSlot(TranspositionTable table) {
+        for (int i = 0; i < table.mTable.length; i += 2) {
+            if (table.mTable[i + 1] != TranspositionTable.EMPTY) {
+                return i;
+            }
+        }
+        throw new AssertionError("No entry stored");
+    }
+}
@@ -0,0 +1,84 @@
+package net.alexblass.chess.model.bitboard;
+
+import net.alexblass.chess.model.notation.Fen;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the move rules against published perft counts.
+ *
+ * @see <a href="https://www.chessprogramming.org/Perft_Results">Perft results</a>
+ */
+public class PerftTest {
+
+    static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    static final String ENDGAME = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+    static final String PROMOTIONS = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+    static final String DISCOVERED_CHECKS = "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8";
+    static final String MIDDLEGAME = "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10";
+
+    @Test
+    public void startingPosition() {
+        assertPerft(Fen.STARTING_POSITION, 20L, 400L, 8902L, 197281L, 4865609L);
+    }
+
+    @Test
+    public void kiwipete() {
+        assertPerft(KIWIPETE, 48L, 2039L, 97862L, 4085603L);
+    }
+
+    @Test
+    public void endgame() {
+        assertPerft(ENDGAME, 14L, 191L, 2812L, 43238L, 674624L);
+    }
+
+    @Test
+    public void promotions() {
+        assertPerft(PROMOTIONS, 6L, 264L, 9467L, 422333L);
+    }
+
+    @Test
+    public void discoveredChecks() {
+        assertPerft(DISCOVERED_CHECKS, 44L, 1486L, 62379L, 2103487L);
+    }
+
+    @Test
+    public void middlegame() {
+        assertPerft(MIDDLEGAME, 46L, 2079L, 89890L, 3894594L);
+    }
+
+    @Test
+    public void divideAddsUpToCount() {
+        Perft perft = new Perft(createPosition(KIWIPETE));
+        long total = 0L;
+        for (long nodes : perft.divide(3).values()) {
+            total += nodes;
+        }
+        assertEquals(97862L, total);
+    }
+
+    @Test
+    public void positionIsRestoredAfterCounting() {
+        BitboardPosition position = createPosition(KIWIPETE);
+        long key = position.getZobristKey();
+        new Perft(position).count(3);
+        assertEquals(key, position.getZobristKey());
+        assertEquals(key, Zobrist.computeKey(position));
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private static void assertPerft(String fen, long... expectedCounts) {
+        Perft perft = new Perft(createPosition(fen));
+        for (int depth = 1; depth <= expectedCounts.length; depth++) {
+            assertEquals("perft(" + depth + ") of " + fen, expectedCounts[depth - 1], perft.count(depth));
+        }
+    }
+
+    private static BitboardPosition createPosition(String fen) {
+        BitboardPosition position = new BitboardPosition();
+        Fen.parse(fen, position);
+        return position;
+    }
+}
@@ -0,0 +1,111 @@
+package net.alexblass.chess.model.bitboard;
+
+import net.alexblass.chess.model.notation.Fen;
+
+import org.junit.Test;
+
+import static net.alexblass.chess.model.bitboard.Bitboards.NO_PIECE;
+import static net.alexblass.chess.model.bitboard.Bitboards.SQUARES;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Walks the move trees of the perft positions and checks at every node that the state the
+ * position keeps up to date move by move equals the same state computed from scratch.
+ */
+public class PositionInvariantsTest {
+
+    private static final String[] POSITIONS = {
+            Fen.STARTING_POSITION,
+            PerftTest.KIWIPETE,
+            PerftTest.ENDGAME,
+            PerftTest.PROMOTIONS,
+            PerftTest.DISCOVERED_CHECKS,
+            PerftTest.MIDDLEGAME
+    };
+    private static final int DEPTH = 3;
+
+    @Test
+    public void scoresMatchAFullRescan() {
+        walkAll(new NodeCheck() {
+            @Override
+            public void check(BitboardPosition position, String path) {
+                int middlegame = 0;
+                int endgame = 0;
+                int phase = 0;
+                for (int square = 0; square < SQUARES; square++) {
+                    int piece = position.getPieceAt(square);
+                    if (piece != NO_PIECE) {
+                        middlegame += PieceSquareTables.middlegame(piece, square);
+                        endgame += PieceSquareTables.endgame(piece, square);
+                        phase += PieceSquareTables.phase(piece);
+                    }
+                }
+                assertEquals(path, middlegame, position.getMiddlegameScore());
+                assertEquals(path, endgame, position.getEndgameScore());
+                assertEquals(path, phase, position.getPhase());
+            }
+        });
+    }
+
+    @Test
+    public void pawnKeyMatchesAFullRescan() {
+        walkAll(new NodeCheck() {
+            @Override
+            public void check(BitboardPosition position, String path) {
+                assertEquals(path, Zobrist.computePawnKey(position), position.getPawnKey());
+            }
+        });
+    }
+
+    @Test
+    public void exchangeThresholdsAgreeWithItsValue() {
+        walkAll(new NodeCheck() {
+            private final int[] mMoves = new int[MoveGenerator.MAX_MOVES];
+
+            @Override
+            public void check(BitboardPosition position, String path) {
+                int moveCount = MoveGenerator.generateLegalMoves(position, mMoves, 0);
+                for (int i = 0; i < moveCount; i++) {
+                    int move = mMoves[i];
+                    int value = StaticExchange.see(position, move);
+                    String node = path + " " + Move.toNotation(move) + " see " + value;
+                    assertTrue(node, StaticExchange.isAtLeast(position, move, value));
+                    assertFalse(node, StaticExchange.isAtLeast(position, move, value + 1));
+                    assertEquals(node, value >= 0, StaticExchange.isAtLeast(position, move, 0));
+                }
+            }
+        });
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private interface NodeCheck {
+        /**
+         * @param path the FEN and the moves leading to the node, to report a failure with.
+         */
+        void check(BitboardPosition position, String path);
+    }
+
+    private static void walkAll(NodeCheck nodeCheck) {
+        for (String fen : POSITIONS) {
+            BitboardPosition position = new BitboardPosition();
+            Fen.parse(fen, position);
+            walk(position, DEPTH, fen, nodeCheck);
+        }
+    }
+
+    private static void walk(BitboardPosition position, int depth, String path, NodeCheck nodeCheck) {
+        nodeCheck.check(position, path);
+        if (depth == 0) {
+            return;
+        }
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int moveCount = MoveGenerator.generateLegalMoves(position, moves, 0);
+        for (int i = 0; i < moveCount; i++) {
+            position.makeMove(moves[i]);
+            walk(position, depth - 1, path + " " + Move.toNotation(moves[i]), nodeCheck);
+            position.unmakeMove();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package net.alexblass.chess.model.notation;
+
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.bitboard.MoveGenerator;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Reads hand written PGN and round trips random games through PgnWriter and PgnReader.
+ */
+public class PgnTest {
+
+    private static final String SAMPLE =
+            "[Event \"Casual \\\"blitz\\\"\"]\n"
+            + "[White \"M\u00fcller\"]\n"
+            + "[Result \"1-0\"]\n"
+            + "\n"
+            + "1. e4 {best by test} e5 2. Nf3 (2. f4 exf4 (2... d5) 3. Nf3) Nc6 $1 3. Bb5 a6\n"
+            + "; a line comment\n"
+            + "%escaped 4. Qxf7 is not read\n"
+            + "4. Ba4 Nf6 5. O-O Be7 6.Re1 b5 7. Bb3 d6 8. c3 O-O 1-0\n"
+            + "\n"
+            + "[Event \"Set up\"]\n"
+            + "[SetUp \"1\"]\n"
+            + "[FEN \"4k3/1P6/8/8/8/8/8/4K3 w - - 0 1\"]\n"
+            + "\n"
+            + "1. b8=Q+ Kd7 2. Qb5+ *\n"
+            + "\n"
+            + "[Event \"Broken\"]\n"
+            + "\n"
+            + "1. e4 e5 2. Ke3 Nc6 0-1\n";
+
+    @Test
+    public void readsTagsMovesAndResults() throws IOException {
+        List<PgnGame> games = readAll(SAMPLE);
+        assertEquals(3, games.size());
+
+        PgnGame ruyLopez = games.get(0);
+        assertTrue(ruyLopez.isValid());
+        assertEquals("Casual \"blitz\"", ruyLopez.getTag(PgnGame.TAG_EVENT));
+        assertEquals("M\u00fcller", ruyLopez.getTag(PgnGame.TAG_WHITE));
+        assertEquals(PgnGame.RESULT_WHITE_WINS, ruyLopez.getResult());
+        assertEquals(16, ruyLopez.getMoves().length);
+        assertEquals("r1bq1rk1/2p1bppp/p1np1n2/1p2p3/4P3/1BP2N2/PP1P1PPP/RNBQR1K1 w - - 1 9",
+                Fen.toFen(play(ruyLopez)));
+
+        PgnGame setUp = games.get(1);
+        assertTrue(setUp.isValid());
+        assertEquals(PgnGame.RESULT_UNKNOWN, setUp.getResult());
+        assertEquals(3, setUp.getMoves().length);
+
+        PgnGame broken = games.get(2);
+        assertFalse(broken.isValid());
+        assertEquals(2, broken.getMoves().length);
+        assertEquals(PgnGame.RESULT_BLACK_WINS, broken.getResult());
+    }
+
+    @Test
+    public void writtenGamesReadBack() throws IOException {
+        Random random = new Random(7);
+        List<PgnGame> written = new ArrayList<>();
+        StringWriter pgn = new StringWriter();
+        PgnWriter writer = new PgnWriter(pgn);
+        for (int i = 0; i < 40; i++) {
+            Map<String, String> tags = new LinkedHashMap<>();
+            tags.put(PgnGame.TAG_WHITE, "Player " + i);
+            PgnGame game = new PgnGame(tags, playRandomMoves(random, 1 + random.nextInt(200)), PgnGame.RESULT_DRAW);
+            writer.write(game);
+            written.add(game);
+        }
+
+        List<PgnGame> read = readAll(pgn.toString());
+        assertEquals(written.size(), read.size());
+        for (int i = 0; i < written.size(); i++) {
+            assertTrue(read.get(i).getError(), read.get(i).isValid());
+            assertArrayEquals(written.get(i).getMoves(), read.get(i).getMoves());
+            assertEquals("Player " + i, read.get(i).getTag(PgnGame.TAG_WHITE));
+        }
+    }
+
+    @Test
+    public void smallBuffersSplitCharactersAndTokens() throws IOException {
+        byte[] bytes = SAMPLE.getBytes(Charset.forName("UTF-8"));
+        PgnReader reader = new PgnReader(Channels.newChannel(new ByteArrayInputStream(bytes)), 3);
+        PgnGame game = reader.next();
+        assertEquals("M\u00fcller", game.getTag(PgnGame.TAG_WHITE));
+        assertEquals(16, game.getMoves().length);
+        assertTrue(reader.next().isValid());
+        assertFalse(reader.next().isValid());
+        assertNull(reader.next());
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private static List<PgnGame> readAll(String pgn) throws IOException {
+        byte[] bytes = pgn.getBytes(Charset.forName("UTF-8"));
+        PgnReader reader = new PgnReader(Channels.newChannel(new ByteArrayInputStream(bytes)));
+        List<PgnGame> games = new ArrayList<>();
+        for (PgnGame game = reader.next(); game != null; game = reader.next()) {
+            games.add(game);
+        }
+        reader.close();
+        return games;
+    }
+
+    private static BitboardPosition play(PgnGame game) {
+        BitboardPosition position = new BitboardPosition();
+        Fen.parse(game.getStartingFen(), position);
+        for (int move : game.getMoves()) {
+            position.makeMove(move);
+        }
+        return position;
+    }
+
+    private static int[] playRandomMoves(Random random, int plies) {
+        BitboardPosition position = new BitboardPosition();
+        Fen.parse(Fen.STARTING_POSITION, position);
+        int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+        int[] moves = new int[plies];
+        int count = 0;
+        while (count < plies) {
+            int moveCount = MoveGenerator.generateLegalMoves(position, legalMoves, 0);
+            if (moveCount == 0) {
+                break;
+            }
+            moves[count] = legalMoves[random.nextInt(moveCount)];
+            position.makeMove(moves[count++]);
+        }
+        int[] played = new int[count];
+        System.arraycopy(moves, 0, played, 0, count);
+        return played;
+    }
+}
@@ -0,0 +1,82 @@
+package net.alexblass.chess.model.notation;
+
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.bitboard.MoveGenerator;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Round trips positions through FEN and the binary codec.
+ */
+public class PositionCodecTest {
+
+    private static final String[] POSITIONS = {
+            Fen.STARTING_POSITION,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+            "rnbqkbnr/pppp1ppp/8/8/3Pp3/5N2/PPP1PPPP/RNBQKB1R b KQkq d3 0 3",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 12 47",
+            "4k3/8/8/8/8/8/8/4K3 b - - 99 300"
+    };
+
+    @Test
+    public void fenRoundTrips() {
+        for (String fen : POSITIONS) {
+            BitboardPosition position = new BitboardPosition();
+            Fen.parse(fen, position);
+            assertEquals(fen, Fen.toFen(position));
+        }
+    }
+
+    @Test
+    public void codecRoundTrips() {
+        for (String fen : POSITIONS) {
+            assertRoundTrip(createPosition(fen));
+        }
+    }
+
+    @Test
+    public void codecRoundTripsPlayedGames() {
+        Random random = new Random(1);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int game = 0; game < 50; game++) {
+            BitboardPosition position = createPosition(Fen.STARTING_POSITION);
+            for (int ply = 0; ply < 120; ply++) {
+                int moveCount = MoveGenerator.generateLegalMoves(position, moves, 0);
+                if (moveCount == 0) {
+                    break;
+                }
+                position.makeMove(moves[random.nextInt(moveCount)]);
+                assertRoundTrip(position);
+            }
+        }
+    }
+
+    @Test
+    public void startingPositionFitsMaxBytes() {
+        assertEquals(PositionCodec.MAX_BYTES, PositionCodec.encode(createPosition(Fen.STARTING_POSITION)).length);
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private static void assertRoundTrip(BitboardPosition position) {
+        byte[] bytes = PositionCodec.encode(position);
+        assertTrue(bytes.length <= PositionCodec.MAX_BYTES);
+
+        BitboardPosition decoded = new BitboardPosition();
+        assertEquals(bytes.length, PositionCodec.decode(ByteBuffer.wrap(bytes), decoded));
+        assertEquals(Fen.toFen(position), Fen.toFen(decoded));
+        assertEquals(position.getZobristKey(), decoded.getZobristKey());
+    }
+
+    private static BitboardPosition createPosition(String fen) {
+        BitboardPosition position = new BitboardPosition();
+        Fen.parse(fen, position);
+        return position;
+    }
+}
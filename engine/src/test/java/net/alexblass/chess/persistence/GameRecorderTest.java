@@ -0,0 +1,112 @@
+package net.alexblass.chess.persistence;
+
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.bitboard.MoveGenerator;
+import net.alexblass.chess.model.notation.Fen;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Records games into the in-memory store and checks what a database would have received.
+ */
+public class GameRecorderTest {
+
+    private static final String GAME_ID = "game";
+
+    @Test
+    public void writesOncePerBatch() {
+        InMemoryMoveLogStore store = new InMemoryMoveLogStore();
+        GameRecorder recorder = new GameRecorder(store, GAME_ID);
+        int[] moves = playFirstMoves(5);
+        for (int move : moves) {
+            recorder.record(move);
+        }
+        assertEquals(2, store.getAppendCount());
+
+        recorder.flush();
+        recorder.flush();
+        assertEquals(3, store.getAppendCount());
+        assertArrayEquals(moves, loadMoves(store, GAME_ID));
+    }
+
+    @Test
+    public void resumedGameAppendsToItsLog() {
+        InMemoryMoveLogStore store = new InMemoryMoveLogStore();
+        int[] moves = playFirstMoves(6);
+        GameRecorder recorder = new GameRecorder(store, GAME_ID);
+        for (int i = 0; i < 3; i++) {
+            recorder.record(moves[i]);
+        }
+        recorder.flush();
+
+        GameRecorder resumed = new GameRecorder(store, GAME_ID, loadMoves(store, GAME_ID).length,
+                GameRecorder.DEFAULT_BATCH_PLIES);
+        for (int i = 3; i < moves.length; i++) {
+            resumed.record(moves[i]);
+        }
+        resumed.flush();
+        assertArrayEquals(moves, loadMoves(store, GAME_ID));
+    }
+
+    @Test
+    public void replayRestoresThePosition() {
+        int[] moves = playFirstMoves(8);
+        BitboardPosition expected = createStartingPosition();
+        for (int move : moves) {
+            expected.makeMove(move);
+        }
+
+        BitboardPosition position = createStartingPosition();
+        assertEquals(moves.length, GameRecorder.replay(moves, position));
+        assertEquals(expected.getZobristKey(), position.getZobristKey());
+    }
+
+    @Test
+    public void replayStopsAtAnIllegalMove() {
+        int[] moves = playFirstMoves(4);
+        // The second move played again is not legal for the side to move
+        int[] damaged = {moves[0], moves[1], moves[1], moves[3]};
+        assertEquals(2, GameRecorder.replay(damaged, createStartingPosition()));
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    /**
+     * @return the first legal move of each position, played from the starting position.
+     */
+    private static int[] playFirstMoves(int plies) {
+        BitboardPosition position = createStartingPosition();
+        int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+        int[] moves = new int[plies];
+        for (int i = 0; i < plies; i++) {
+            MoveGenerator.generateLegalMoves(position, legalMoves, 0);
+            moves[i] = legalMoves[0];
+            position.makeMove(moves[i]);
+        }
+        return moves;
+    }
+
+    private static int[] loadMoves(MoveLogStore store, String gameId) {
+        final int[][] loaded = new int[1][];
+        store.loadMoves(gameId, new MoveLogStore.LoadCallback() {
+            @Override
+            public void onMovesLoaded(int[] moves) {
+                loaded[0] = moves;
+            }
+
+            @Override
+            public void onLoadFailed(Exception e) {
+                throw new AssertionError(e);
+            }
+        });
+        return loaded[0];
+    }
+
+    private static BitboardPosition createStartingPosition() {
+        BitboardPosition position = new BitboardPosition();
+        Fen.parse(Fen.STARTING_POSITION, position);
+        return position;
+    }
+}
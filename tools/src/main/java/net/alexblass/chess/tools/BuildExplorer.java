@@ -0,0 +1,91 @@
+package net.alexblass.chess.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Replays PGN files on all cores and writes the position statistics file ExplorerFile reads.
+ *
+ * Usage: BuildExplorer [--max-plies n] [--min-games n] [--threads n] output.bin input.pgn...
+ *
+ * Run with ./gradlew :tools:run --args='...'. Memory grows with the number of distinct
+ * positions, which --max-plies keeps in check, while --min-games only shrinks the file.
+ */
+public final class BuildExplorer {
+
+    public static final int DEFAULT_MAX_PLIES = 30;
+    public static final int DEFAULT_MIN_GAMES = 2;
+
+    // More chunks than threads lets workers that finish early take over the rest
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private BuildExplorer() {
+    }
+
+    /**
+     * Replays the games of the files on the pool.
+     */
+    public static MoveStatsTable replay(List<File> pgnFiles, int maxPlies, ForkJoinPool pool) throws IOException {
+        long totalLength = 0L;
+        for (File file : pgnFiles) {
+            totalLength += file.length();
+        }
+        List<PgnChunk> chunks = new ArrayList<>();
+        int maxChunks = pool.getParallelism() * CHUNKS_PER_THREAD;
+        for (File file : pgnFiles) {
+            // Every file gets its share of the chunks, by size
+            int fileChunks = (int) Math.max(1L, maxChunks * file.length() / Math.max(1L, totalLength));
+            chunks.addAll(PgnChunk.split(file, fileChunks));
+        }
+        if (chunks.isEmpty()) {
+            return new MoveStatsTable();
+        }
+        return pool.invoke(new ReplayTask(chunks, maxPlies));
+    }
+
+    public static void main(String[] args) throws IOException {
+        int maxPlies = DEFAULT_MAX_PLIES;
+        int minGames = DEFAULT_MIN_GAMES;
+        int threads = Runtime.getRuntime().availableProcessors();
+        File output = null;
+        List<File> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--max-plies") && i + 1 < args.length) {
+                maxPlies = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--min-games") && i + 1 < args.length) {
+                minGames = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (output == null) {
+                output = new File(args[i]);
+            } else {
+                inputs.add(new File(args[i]));
+            }
+        }
+        if (output == null || inputs.isEmpty()) {
+            System.err.println("Usage: BuildExplorer [--max-plies n] [--min-games n] [--threads n]"
+                    + " output.bin input.pgn...");
+            System.exit(1);
+        }
+
+        long startTime = System.currentTimeMillis();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        MoveStatsTable table;
+        try {
+            table = replay(inputs, maxPlies, pool);
+        } finally {
+            pool.shutdown();
+        }
+        int positions = ExplorerFileWriter.write(table, minGames, output);
+        long elapsedMillis = Math.max(1L, System.currentTimeMillis() - startTime);
+
+        System.out.println("Games:     " + table.getGameCount());
+        System.out.println("Skipped:   " + table.getSkippedGameCount());
+        System.out.println("Positions: " + positions);
+        System.out.println("Time (ms): " + elapsedMillis);
+        System.out.println("Games/s:   " + table.getGameCount() * 1000L / elapsedMillis);
+    }
+}
@@ -0,0 +1,87 @@
+package net.alexblass.chess.tools;
+
+import net.alexblass.chess.engine.OpeningBookWriter;
+import net.alexblass.chess.model.bitboard.Move;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Replays PGN files on all cores and writes the opening book the app ships as an asset.
+ *
+ * Usage: BuildOpeningBook [--max-plies n] [--min-games n] [--threads n] output.bin input.pgn...
+ *
+ * Every move played within the first plies of a game becomes a book move, weighed by the number
+ * of games that played it. Moves played in fewer than --min-games games are left out, which keeps
+ * one-off blunders out of the book. Run with ./gradlew :tools:buildOpeningBook --args='...'.
+ */
+public final class BuildOpeningBook {
+
+    public static final int DEFAULT_MAX_PLIES = 16;
+    public static final int DEFAULT_MIN_GAMES = 2;
+
+    private BuildOpeningBook() {
+    }
+
+    /**
+     * Writes the moves of the replayed games that were played at least minGames times.
+     * @return the number of book entries written.
+     */
+    public static int write(MoveStatsTable table, int minGames, File output) throws IOException {
+        OpeningBookWriter writer = new OpeningBookWriter();
+        for (int slot = 0; slot < table.getCapacity(); slot++) {
+            if (table.isUsed(slot) && table.getMove(slot) != Move.NO_MOVE) {
+                int games = table.getCount(slot, MoveStatsTable.GAMES);
+                if (games >= minGames) {
+                    writer.add(table.getKey(slot), table.getMove(slot), games);
+                }
+            }
+        }
+        return writer.write(output);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int maxPlies = DEFAULT_MAX_PLIES;
+        int minGames = DEFAULT_MIN_GAMES;
+        int threads = Runtime.getRuntime().availableProcessors();
+        File output = null;
+        List<File> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--max-plies") && i + 1 < args.length) {
+                maxPlies = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--min-games") && i + 1 < args.length) {
+                minGames = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (output == null) {
+                output = new File(args[i]);
+            } else {
+                inputs.add(new File(args[i]));
+            }
+        }
+        if (output == null || inputs.isEmpty()) {
+            System.err.println("Usage: BuildOpeningBook [--max-plies n] [--min-games n] [--threads n]"
+                    + " output.bin input.pgn...");
+            System.exit(1);
+        }
+
+        long startTime = System.currentTimeMillis();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        MoveStatsTable table;
+        try {
+            table = BuildExplorer.replay(inputs, maxPlies, pool);
+        } finally {
+            pool.shutdown();
+        }
+        int entries = write(table, minGames, output);
+        long elapsedMillis = Math.max(1L, System.currentTimeMillis() - startTime);
+
+        System.out.println("Games:     " + table.getGameCount());
+        System.out.println("Skipped:   " + table.getSkippedGameCount());
+        System.out.println("Entries:   " + entries);
+        System.out.println("Time (ms): " + elapsedMillis);
+    }
+}
@@ -0,0 +1,90 @@
+package net.alexblass.chess.tools;
+
+import net.alexblass.chess.model.bitboard.Move;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Turns the move counts of a MoveStatsTable into the sorted per-position file ExplorerFile maps.
+ */
+public final class ExplorerFileWriter {
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private ExplorerFileWriter() {
+    }
+
+    /**
+     * Writes the positions reached in at least minGames games, replacing the file.
+     * @return the number of positions written.
+     */
+    public static int write(MoveStatsTable table, int minGames, File file) throws IOException {
+        // Flipping the sign bit makes the signed sort order keys as unsigned numbers
+        long[] keys = new long[table.size()];
+        int keyCount = 0;
+        for (int slot = 0; slot < table.getCapacity(); slot++) {
+            if (table.isUsed(slot)) {
+                keys[keyCount++] = table.getKey(slot) ^ Long.MIN_VALUE;
+            }
+        }
+        Arrays.sort(keys);
+        int positionCount = 0;
+        for (int i = 0; i < keyCount; i++) {
+            if (i == 0 || keys[i] != keys[i - 1]) {
+                keys[positionCount++] = keys[i];
+            }
+        }
+
+        int[] games = new int[positionCount];
+        int[] whiteWins = new int[positionCount];
+        int[] draws = new int[positionCount];
+        int[] blackWins = new int[positionCount];
+        int[] replyMoves = new int[positionCount];
+        int[] replyGames = new int[positionCount];
+        for (int slot = 0; slot < table.getCapacity(); slot++) {
+            if (!table.isUsed(slot)) {
+                continue;
+            }
+            int index = Arrays.binarySearch(keys, 0, positionCount, table.getKey(slot) ^ Long.MIN_VALUE);
+            int move = table.getMove(slot);
+            int moveGames = table.getCount(slot, MoveStatsTable.GAMES);
+            games[index] += moveGames;
+            whiteWins[index] += table.getCount(slot, MoveStatsTable.WHITE_WINS);
+            draws[index] += table.getCount(slot, MoveStatsTable.DRAWS);
+            blackWins[index] += table.getCount(slot, MoveStatsTable.BLACK_WINS);
+            // Ties go to the lower move, so the file doesn't depend on the order tables were merged in
+            if (move != Move.NO_MOVE && (moveGames > replyGames[index]
+                    || moveGames == replyGames[index] && move < replyMoves[index])) {
+                replyMoves[index] = move;
+                replyGames[index] = moveGames;
+            }
+        }
+
+        int count = 0;
+        DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+        try {
+            for (int i = 0; i < positionCount; i++) {
+                if (games[i] < minGames) {
+                    continue;
+                }
+                output.writeLong(keys[i] ^ Long.MIN_VALUE);
+                output.writeInt(games[i]);
+                output.writeInt(whiteWins[i]);
+                output.writeInt(draws[i]);
+                output.writeInt(blackWins[i]);
+                output.writeInt(replyMoves[i]);
+                output.writeInt(replyGames[i]);
+                count++;
+            }
+        } finally {
+            output.close();
+        }
+        return count;
+    }
+}
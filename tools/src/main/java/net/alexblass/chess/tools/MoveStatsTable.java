@@ -0,0 +1,167 @@
+package net.alexblass.chess.tools;
+
+import java.util.Arrays;
+
+/**
+ * Counts how often each move was played from each position and how those games ended.
+ *
+ * Entries are keyed by a position's Zobrist key and a packed Move, NO_MOVE standing for games
+ * that ended in the position. The table is open addressing over parallel primitive arrays, so
+ * millions of entries cost no objects. It isn't thread safe: every replay worker fills its own
+ * table and the tables are merged once the workers are done.
+ */
+public class MoveStatsTable {
+
+    public static final int GAMES = 0;
+    public static final int WHITE_WINS = 1;
+    public static final int DRAWS = 2;
+    public static final int BLACK_WINS = 3;
+
+    private static final int COLUMNS = 4;
+    // Packed Moves are never negative
+    private static final int EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    private long[] mKeys;
+    private int[] mMoves;
+    private int[] mCounts;
+    private int mSize;
+    private long mGameCount;
+    private long mSkippedGameCount;
+
+    public MoveStatsTable() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Counts one game that played the move from the position.
+     * @param resultColumn WHITE_WINS, DRAWS or BLACK_WINS, or -1 when the result isn't known.
+     */
+    public void add(long key, int move, int resultColumn) {
+        int slot = getOrInsertSlot(key, move);
+        mCounts[slot * COLUMNS + GAMES]++;
+        if (resultColumn > GAMES) {
+            mCounts[slot * COLUMNS + resultColumn]++;
+        }
+    }
+
+    /**
+     * Adds all entries and game counts of the other table to this one.
+     */
+    public void addAll(MoveStatsTable other) {
+        for (int slot = 0; slot < other.getCapacity(); slot++) {
+            if (other.isUsed(slot)) {
+                int target = getOrInsertSlot(other.mKeys[slot], other.mMoves[slot]);
+                for (int column = 0; column < COLUMNS; column++) {
+                    mCounts[target * COLUMNS + column] += other.mCounts[slot * COLUMNS + column];
+                }
+            }
+        }
+        mGameCount += other.mGameCount;
+        mSkippedGameCount += other.mSkippedGameCount;
+    }
+
+    public void countGame() {
+        mGameCount++;
+    }
+
+    public void countSkippedGame() {
+        mSkippedGameCount++;
+    }
+
+    public long getGameCount() {
+        return mGameCount;
+    }
+
+    /**
+     * @return the number of games left out because a move couldn't be read or wasn't legal.
+     */
+    public long getSkippedGameCount() {
+        return mSkippedGameCount;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * @return the number of slots, to be walked with isUsed() and the slot getters.
+     */
+    public int getCapacity() {
+        return mKeys.length;
+    }
+
+    public boolean isUsed(int slot) {
+        return mMoves[slot] != EMPTY;
+    }
+
+    public long getKey(int slot) {
+        return mKeys[slot];
+    }
+
+    public int getMove(int slot) {
+        return mMoves[slot];
+    }
+
+    public int getCount(int slot, int column) {
+        return mCounts[slot * COLUMNS + column];
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private int getOrInsertSlot(long key, int move) {
+        int mask = mKeys.length - 1;
+        int slot = hash(key, move) & mask;
+        while (mMoves[slot] != EMPTY) {
+            if (mKeys[slot] == key && mMoves[slot] == move) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        // Growing at half full keeps the probe sequences short
+        if (mSize >= mKeys.length / 2) {
+            grow();
+            return getOrInsertSlot(key, move);
+        }
+        mKeys[slot] = key;
+        mMoves[slot] = move;
+        mSize++;
+        return slot;
+    }
+
+    private void grow() {
+        long[] keys = mKeys;
+        int[] moves = mMoves;
+        int[] counts = mCounts;
+        allocate(keys.length * 2);
+
+        int mask = mKeys.length - 1;
+        for (int oldSlot = 0; oldSlot < keys.length; oldSlot++) {
+            if (moves[oldSlot] == EMPTY) {
+                continue;
+            }
+            int slot = hash(keys[oldSlot], moves[oldSlot]) & mask;
+            while (mMoves[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            mKeys[slot] = keys[oldSlot];
+            mMoves[slot] = moves[oldSlot];
+            System.arraycopy(counts, oldSlot * COLUMNS, mCounts, slot * COLUMNS, COLUMNS);
+            mSize++;
+        }
+    }
+
+    private void allocate(int capacity) {
+        mKeys = new long[capacity];
+        mMoves = new int[capacity];
+        Arrays.fill(mMoves, EMPTY);
+        mCounts = new int[capacity * COLUMNS];
+        mSize = 0;
+    }
+
+    private static int hash(long key, int move) {
+        // Zobrist keys are random already, the multiply spreads the moves of one position apart
+        long mixed = key ^ (move * 0x9E3779B97F4A7C15L);
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+}
@@ -0,0 +1,138 @@
+package net.alexblass.chess.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A byte range of a PGN file holding whole games, so several workers can read one large file.
+ *
+ * Chunks start where a tag line follows a blank line, which is where the export format starts
+ * every game after the first.
+ */
+public class PgnChunk {
+
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    private final File mFile;
+    private final long mStart;
+    private final long mEnd;
+
+    public PgnChunk(File file, long start, long end) {
+        mFile = file;
+        mStart = start;
+        mEnd = end;
+    }
+
+    /**
+     * Splits the file into at most maxChunks chunks of about the same size.
+     */
+    public static List<PgnChunk> split(File file, int maxChunks) throws IOException {
+        List<PgnChunk> chunks = new ArrayList<>();
+        RandomAccessFile pgnFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = pgnFile.getChannel();
+            long length = channel.size();
+            long start = 0L;
+            for (int i = 1; i < maxChunks && start < length; i++) {
+                long end = findGameStart(channel, Math.max(start, length / maxChunks * i));
+                if (end > start) {
+                    chunks.add(new PgnChunk(file, start, end));
+                    start = end;
+                }
+            }
+            if (start < length) {
+                chunks.add(new PgnChunk(file, start, length));
+            }
+        } finally {
+            pgnFile.close();
+        }
+        return chunks;
+    }
+
+    /**
+     * Opens a channel of its own over the chunk, which closes the file when closed.
+     */
+    public ReadableByteChannel open() throws IOException {
+        final FileChannel channel = new RandomAccessFile(mFile, "r").getChannel();
+        return new ReadableByteChannel() {
+            private long mPosition = mStart;
+
+            @Override
+            public int read(ByteBuffer buffer) throws IOException {
+                if (mPosition >= mEnd) {
+                    return -1;
+                }
+                int limit = buffer.limit();
+                buffer.limit(buffer.position() + (int) Math.min(buffer.remaining(), mEnd - mPosition));
+                try {
+                    int count = channel.read(buffer, mPosition);
+                    if (count > 0) {
+                        mPosition += count;
+                    }
+                    return count;
+                } finally {
+                    buffer.limit(limit);
+                }
+            }
+
+            @Override
+            public boolean isOpen() {
+                return channel.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        };
+    }
+
+    public File getFile() {
+        return mFile;
+    }
+
+    public long getLength() {
+        return mEnd - mStart;
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    /**
+     * @return the offset of the first game starting at or after the offset, or the file's length.
+     */
+    private static long findGameStart(FileChannel channel, long offset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        // The scan starts in the middle of a line, which can't count as blank
+        boolean isLineStart = false;
+        boolean isLineBlank = false;
+        boolean isPreviousLineBlank = false;
+        long position = offset;
+        while (channel.read(buffer, position) > 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                if (b == '\n') {
+                    isPreviousLineBlank = isLineBlank;
+                    isLineBlank = true;
+                    isLineStart = true;
+                    continue;
+                }
+                if (b == '[' && isLineStart && isPreviousLineBlank) {
+                    return position + buffer.position() - 1;
+                }
+                if (b != ' ' && b != '\t' && b != '\r') {
+                    isLineBlank = false;
+                }
+                isLineStart = false;
+            }
+            position += buffer.limit();
+            buffer.clear();
+        }
+        return channel.size();
+    }
+}
@@ -0,0 +1,107 @@
+package net.alexblass.chess.tools;
+
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.bitboard.Move;
+import net.alexblass.chess.model.notation.Fen;
+import net.alexblass.chess.model.notation.PgnGame;
+import net.alexblass.chess.model.notation.PgnReader;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Replays the games of some PGN chunks and counts the moves played from every position.
+ *
+ * A task with several chunks splits them in half and forks, so the pool spreads them over its
+ * workers. A task with one chunk replays it with a reader, a position and a table of its own, and
+ * the tables are merged on the way back up, so the workers never share anything while replaying.
+ */
+public class ReplayTask extends RecursiveTask<MoveStatsTable> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<PgnChunk> mChunks;
+    private final int mMaxPlies;
+
+    /**
+     * @param maxPlies how deep into each game positions are counted.
+     */
+    public ReplayTask(List<PgnChunk> chunks, int maxPlies) {
+        mChunks = chunks;
+        mMaxPlies = maxPlies;
+    }
+
+    @Override
+    protected MoveStatsTable compute() {
+        if (mChunks.size() == 1) {
+            try {
+                return replay(mChunks.get(0));
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read " + mChunks.get(0).getFile(), e);
+            }
+        }
+
+        int middle = mChunks.size() / 2;
+        ReplayTask first = new ReplayTask(mChunks.subList(0, middle), mMaxPlies);
+        ReplayTask second = new ReplayTask(mChunks.subList(middle, mChunks.size()), mMaxPlies);
+        first.fork();
+        MoveStatsTable secondTable = second.compute();
+        MoveStatsTable firstTable = first.join();
+
+        // Merging the smaller table into the larger one moves the fewest entries
+        if (firstTable.size() < secondTable.size()) {
+            secondTable.addAll(firstTable);
+            return secondTable;
+        }
+        firstTable.addAll(secondTable);
+        return firstTable;
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private MoveStatsTable replay(PgnChunk chunk) throws IOException {
+        MoveStatsTable table = new MoveStatsTable();
+        BitboardPosition position = new BitboardPosition();
+        PgnReader reader = new PgnReader(chunk.open());
+        try {
+            PgnGame game;
+            while ((game = reader.next()) != null) {
+                if (game.isValid()) {
+                    replay(game, position, table);
+                    table.countGame();
+                } else {
+                    table.countSkippedGame();
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return table;
+    }
+
+    private void replay(PgnGame game, BitboardPosition position, MoveStatsTable table) {
+        int resultColumn = getResultColumn(game.getResult());
+        int[] moves = game.getMoves();
+        int plies = Math.min(moves.length, mMaxPlies);
+
+        Fen.parse(game.getStartingFen(), position);
+        for (int i = 0; i < plies; i++) {
+            table.add(position.getZobristKey(), moves[i], resultColumn);
+            position.makeMove(moves[i]);
+        }
+        if (plies == moves.length && plies < mMaxPlies) {
+            table.add(position.getZobristKey(), Move.NO_MOVE, resultColumn);
+        }
+    }
+
+    private static int getResultColumn(String result) {
+        if (PgnGame.RESULT_WHITE_WINS.equals(result)) {
+            return MoveStatsTable.WHITE_WINS;
+        } else if (PgnGame.RESULT_DRAW.equals(result)) {
+            return MoveStatsTable.DRAWS;
+        } else if (PgnGame.RESULT_BLACK_WINS.equals(result)) {
+            return MoveStatsTable.BLACK_WINS;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,139 @@
+package net.alexblass.chess.tools;
+
+import net.alexblass.chess.engine.ExplorerFile;
+import net.alexblass.chess.engine.PositionStats;
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.bitboard.Move;
+import net.alexblass.chess.model.notation.Fen;
+import net.alexblass.chess.model.notation.San;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Builds explorer files from a few known games and checks the statistics they hold.
+ */
+public class BuildExplorerTest {
+
+    private static final String[] GAMES = {
+            "[Event \"A\"]\n[Result \"1-0\"]\n\n1. e4 e5 2. Nf3 Nc6 1-0\n",
+            "[Event \"B\"]\n[Result \"0-1\"]\n\n1. e4 c5 2. Nf3 d6 0-1\n",
+            "[Event \"C\"]\n[Result \"1/2-1/2\"]\n\n1. d4 d5 1/2-1/2\n",
+            "[Event \"D\"]\n[Result \"1-0\"]\n\n1. e4 e5 2. Bc4 {A comment} Nc6 1-0\n",
+            "[Event \"E\"]\n[Result \"*\"]\n\n1. e4 Ke7 2. Ke3 *\n"
+    };
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void countsPositionsResultsAndReplies() throws IOException {
+        ExplorerFile explorer = build(writeGames(8), 5, 1, 1);
+
+        BitboardPosition position = new BitboardPosition();
+        Fen.parse(Fen.STARTING_POSITION, position);
+        PositionStats start = explorer.lookup(position.getZobristKey());
+        // Every game but the one with an illegal move, eight times over
+        assertEquals(32, start.getGames());
+        assertEquals(16, start.getWhiteWins());
+        assertEquals(8, start.getDraws());
+        assertEquals(8, start.getBlackWins());
+        assertEquals(San.parse(position, "e4"), start.getReplyMove());
+        assertEquals(24, start.getReplyGames());
+
+        position.makeMove(San.parse(position, "e4"));
+        position.makeMove(San.parse(position, "e5"));
+        PositionStats openGame = explorer.lookup(position.getZobristKey());
+        assertEquals(16, openGame.getGames());
+        assertEquals(16, openGame.getWhiteWins());
+
+        // The game ends before the fifth ply cut-off, so its last position has no reply
+        position.makeMove(San.parse(position, "Nf3"));
+        position.makeMove(San.parse(position, "Nc6"));
+        PositionStats end = explorer.lookup(position.getZobristKey());
+        assertEquals(8, end.getGames());
+        assertEquals(Move.NO_MOVE, end.getReplyMove());
+    }
+
+    @Test
+    public void splittingIntoChunksChangesNothing() throws IOException {
+        File pgnFile = writeGames(200);
+        File whole = mFolder.newFile();
+        File split = mFolder.newFile();
+
+        int wholeCount = ExplorerFileWriter.write(replay(pgnFile, 1, 1), 1, whole);
+        int splitCount = ExplorerFileWriter.write(replay(pgnFile, 37, 4), 1, split);
+        assertEquals(wholeCount, splitCount);
+        assertEquals(whole.length(), split.length());
+        assertArrayEquals(Files.readAllBytes(whole.toPath()), Files.readAllBytes(split.toPath()));
+    }
+
+    @Test
+    public void rarePositionsAreLeftOut() throws IOException {
+        ExplorerFile explorer = build(writeGames(1), 10, 2, 2);
+
+        BitboardPosition position = new BitboardPosition();
+        Fen.parse(Fen.STARTING_POSITION, position);
+        assertEquals(4, explorer.lookup(position.getZobristKey()).getGames());
+        position.makeMove(San.parse(position, "d4"));
+        assertNull(explorer.lookup(position.getZobristKey()));
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private File writeGames(int copies) throws IOException {
+        File file = mFolder.newFile();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            for (int i = 0; i < copies; i++) {
+                for (String game : GAMES) {
+                    writer.write(game);
+                    writer.write('\n');
+                }
+            }
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+
+    private ExplorerFile build(File pgnFile, int maxPlies, int minGames, int threads) throws IOException {
+        File explorerFile = mFolder.newFile();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            MoveStatsTable table = BuildExplorer.replay(Collections.singletonList(pgnFile), maxPlies, pool);
+            ExplorerFileWriter.write(table, minGames, explorerFile);
+        } finally {
+            pool.shutdown();
+        }
+        return ExplorerFile.open(explorerFile);
+    }
+
+    private static MoveStatsTable replay(File pgnFile, int chunks, int threads) throws IOException {
+        List<PgnChunk> pgnChunks = PgnChunk.split(pgnFile, chunks);
+        assertEquals(chunks, pgnChunks.size());
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            MoveStatsTable table = pool.invoke(new ReplayTask(pgnChunks, 6));
+            assertEquals(800, table.getGameCount());
+            assertEquals(200, table.getSkippedGameCount());
+            return table;
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
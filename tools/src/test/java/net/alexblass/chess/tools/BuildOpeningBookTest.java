@@ -0,0 +1,105 @@
+package net.alexblass.chess.tools;
+
+import net.alexblass.chess.engine.OpeningBook;
+import net.alexblass.chess.model.bitboard.BitboardPosition;
+import net.alexblass.chess.model.notation.Fen;
+import net.alexblass.chess.model.notation.San;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Builds an opening book from a few known games and checks its moves and weights.
+ */
+public class BuildOpeningBookTest {
+
+    private static final String GAMES =
+            "[Event \"A\"]\n[Result \"1-0\"]\n\n1. e4 e5 2. Nf3 Nc6 1-0\n\n"
+            + "[Event \"B\"]\n[Result \"0-1\"]\n\n1. e4 c5 2. Nf3 d6 0-1\n\n"
+            + "[Event \"C\"]\n[Result \"1/2-1/2\"]\n\n1. e4 e5 2. Bc4 Nf6 1/2-1/2\n\n"
+            + "[Event \"D\"]\n[Result \"*\"]\n\n1. d4 d5 *\n\n"
+            + "[Event \"E\"]\n[Result \"*\"]\n\n1. e4 Ke7 2. Ke3 *\n";
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void movesAreWeighedByGamesWithinThePlies() throws IOException {
+        OpeningBook book = build(3, 1);
+        BitboardPosition position = createStartingPosition();
+        int[] moves = new int[8];
+        int[] weights = new int[8];
+
+        // The game with an illegal move is left out entirely
+        assertEquals(2, book.getMoves(position.getZobristKey(), moves, weights));
+        assertEquals(San.parse(position, "e4"), moves[0]);
+        assertEquals(3, weights[0]);
+        assertEquals(San.parse(position, "d4"), moves[1]);
+        assertEquals(1, weights[1]);
+
+        play(position, "e4", "e5");
+        assertEquals(2, book.getMoves(position.getZobristKey(), moves, weights));
+        // The fourth ply is past the cut-off
+        play(position, "Nf3");
+        assertEquals(0, book.getMoves(position.getZobristKey(), moves, weights));
+    }
+
+    @Test
+    public void rareMovesAreLeftOut() throws IOException {
+        OpeningBook book = build(10, 2);
+        BitboardPosition position = createStartingPosition();
+        int[] moves = new int[8];
+        int[] weights = new int[8];
+
+        assertEquals(1, book.getMoves(position.getZobristKey(), moves, weights));
+        assertEquals(San.parse(position, "e4"), moves[0]);
+        play(position, "e4");
+        assertEquals(1, book.getMoves(position.getZobristKey(), moves, weights));
+        assertEquals(San.parse(position, "e5"), moves[0]);
+        assertEquals(2, weights[0]);
+    }
+
+    // Helper methods /////////////////////////////////////////////////////////////////////////////
+    private OpeningBook build(int maxPlies, int minGames) throws IOException {
+        File pgnFile = mFolder.newFile();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(pgnFile), "UTF-8");
+        try {
+            writer.write(GAMES);
+        } finally {
+            writer.close();
+        }
+
+        File bookFile = mFolder.newFile();
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            MoveStatsTable table = BuildExplorer.replay(Collections.singletonList(pgnFile), maxPlies, pool);
+            BuildOpeningBook.write(table, minGames, bookFile);
+        } finally {
+            pool.shutdown();
+        }
+        return OpeningBook.open(bookFile);
+    }
+
+    private static BitboardPosition createStartingPosition() {
+        BitboardPosition position = new BitboardPosition();
+        Fen.parse(Fen.STARTING_POSITION, position);
+        return position;
+    }
+
+    private static void play(BitboardPosition position, String... sanMoves) {
+        for (String san : sanMoves) {
+            position.makeMove(San.parse(position, san));
+        }
+    }
+}